@@ -4,10 +4,15 @@ DROP SEQUENCE IF EXISTS tour_logs_id_seq CASCADE;
 DROP TABLE IF EXISTS tour_logs CASCADE;
 DROP TABLE IF EXISTS tours CASCADE;
 
+-- Schrittweite muss allocationSize in TourEntity entsprechen (Hibernate pooled optimizer).
+-- Nur fuer neue Datenbanken; bestehende stellt TourIdSequenceMigration beim Start um
+CREATE SEQUENCE IF NOT EXISTS tours_id_seq INCREMENT BY 50;
+
 CREATE TABLE IF NOT EXISTS tours
 (
     id
-    SERIAL
+    BIGINT
+    DEFAULT nextval('tours_id_seq')
     PRIMARY
     KEY,
     name
@@ -34,6 +39,8 @@ CREATE TABLE IF NOT EXISTS tours
     NOT NULL,
     route_image_url
     VARCHAR(8192),
+    route_geometry
+        TEXT,
     from_latitude
         DOUBLE PRECISION,
     from_longitude
@@ -45,7 +52,25 @@ CREATE TABLE IF NOT EXISTS tours
     popularity
     INTEGER,
     child_friendliness
-    DOUBLE PRECISION
+    DOUBLE PRECISION,
+    difficulty_sum
+        BIGINT DEFAULT 0,
+    time_seconds_sum
+        BIGINT DEFAULT 0,
+    distance_sum
+        DOUBLE PRECISION DEFAULT 0,
+    enrichment_status
+        VARCHAR(16) DEFAULT 'DONE',
+    enrichment_error
+        VARCHAR(1000),
+    enrichment_attempts
+        INTEGER DEFAULT 0
+);
+
+-- Volltextsuche (muss dem Ausdruck in TourSearchRepositoryImpl entsprechen)
+CREATE INDEX IF NOT EXISTS idx_tours_search ON tours USING GIN (
+    to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '') || ' '
+        || coalesce(from_location, '') || ' ' || coalesce(to_location, '') || ' ' || coalesce(transport_type, ''))
 );
 
 CREATE TABLE IF NOT EXISTS tour_logs
@@ -76,11 +101,34 @@ CREATE TABLE IF NOT EXISTS tour_logs
     total_time
     INTERVAL
     NOT NULL ,
+    total_time_seconds
+        BIGINT,
     rating
     INTEGER
     NOT
     NULL
 );
+
+-- Geocoding-Cache (normalisierte Adresse); found = false fuer Adressen ohne Nominatim-Treffer
+CREATE TABLE IF NOT EXISTS geocode_cache
+(
+    address_key
+        VARCHAR(512) PRIMARY KEY,
+    latitude
+        DOUBLE PRECISION,
+    longitude
+        DOUBLE PRECISION,
+    found
+        BOOLEAN NOT NULL,
+    fetched_at
+        TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Keyset-Paging (Sortfeld, id) fuer GET /api/tours und /tour_logs
+CREATE INDEX IF NOT EXISTS idx_tours_distance ON tours (distance, id);
+CREATE INDEX IF NOT EXISTS idx_tours_popularity ON tours (popularity, id);
+CREATE INDEX IF NOT EXISTS idx_tours_child_friendliness ON tours (child_friendliness, id);
+CREATE INDEX IF NOT EXISTS idx_tour_logs_tour_id ON tour_logs (tour_id, id);
     INSERT INTO tours
 (
     name,
@@ -8,6 +8,7 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import at.fhtw.mbtourplanner.repository.TourRepository;
 import org.postgresql.util.PGInterval;
 
@@ -15,6 +16,7 @@ import java.sql.SQLException;
 import java.time.LocalDateTime;
 
 @SpringBootApplication
+@EnableScheduling
 @RequiredArgsConstructor
 public class MbTourPlannerApplication {
 
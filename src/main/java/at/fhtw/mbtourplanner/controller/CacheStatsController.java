@@ -0,0 +1,29 @@
+package at.fhtw.mbtourplanner.controller;
+
+import at.fhtw.mbtourplanner.service.CacheStats;
+import at.fhtw.mbtourplanner.service.GeocodingCache;
+import at.fhtw.mbtourplanner.service.RouteCache;
+import at.fhtw.mbtourplanner.service.TileCache;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Trefferquoten der Caches fuer externe Dienste (Nominatim, ORS, OSM-Tiles)
+@RestController
+@RequestMapping("/api/caches")
+@Slf4j
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200")
+public class CacheStatsController {
+    private final GeocodingCache geocodingCache;
+    private final RouteCache routeCache;
+    private final TileCache tileCache;
+
+    @GetMapping
+    public List<CacheStats> getStats() {
+        log.info("GET /api/caches called");
+        return List.of(geocodingCache.stats(), routeCache.stats(), tileCache.stats());
+    }
+}
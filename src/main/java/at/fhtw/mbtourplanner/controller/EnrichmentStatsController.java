@@ -0,0 +1,25 @@
+package at.fhtw.mbtourplanner.controller;
+
+import at.fhtw.mbtourplanner.service.EnrichmentStages;
+import at.fhtw.mbtourplanner.service.StageStats;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+// Latenz-Histogramme der Anreicherungsstufen (Geocoding Start/Ziel, Routing, gesamt)
+@RestController
+@RequestMapping("/api/enrichment/stages")
+@Slf4j
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200")
+public class EnrichmentStatsController {
+    private final EnrichmentStages enrichmentStages;
+
+    @GetMapping
+    public List<StageStats> getStats() {
+        log.info("GET /api/enrichment/stages called");
+        return enrichmentStages.stats();
+    }
+}
@@ -0,0 +1,71 @@
+package at.fhtw.mbtourplanner.controller;
+
+import at.fhtw.mbtourplanner.model.Tour;
+import at.fhtw.mbtourplanner.service.ReactiveTourService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+// Gleiche Endpunkte wie TourController, aber Mono/Flux durchgehend (ohne Import/Export)
+@RestController
+@RequestMapping("/api/reactive/tours")
+@Slf4j
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = TourController.NEXT_CURSOR_HEADER)
+public class ReactiveTourController {
+    private final ReactiveTourService tourService;
+
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+
+    @Value("${tours.paging.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<Tour>>> getAll(@RequestParam(defaultValue = "id") String sort,
+                                                   @RequestParam(defaultValue = "asc") String direction,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "50") int size) {
+        log.info("GET /api/reactive/tours called (sort={}, direction={}, cursor={}, size={})", sort, direction, cursor, size);
+        return tourService.getTourPage(sort, "desc".equalsIgnoreCase(direction), cursor, Math.min(Math.max(size, 1), maxPageSize))
+                .map(TourController::withNextCursor);
+    }
+
+    @PostMapping
+    public Mono<Tour> addTour(@Valid @RequestBody Tour tour) {
+        log.info("POST /api/reactive/tours called with tour={}", tour);
+        return tourService.addTour(tour);
+    }
+
+    @GetMapping("/{id}")
+    public Mono<Tour> getTourById(@PathVariable Long id) {
+        log.info("GET /api/reactive/tours/{} called", id);
+        return tourService.getTourById(id);
+    }
+
+    @PutMapping("/{id}")
+    public Mono<Tour> updateTour(@PathVariable Long id, @Valid @RequestBody Tour tour) {
+        log.info("PUT /api/reactive/tours/{} called with tour={}", id, tour);
+        return tourService.updateTour(id, tour);
+    }
+
+    @DeleteMapping("/{id}")
+    public Mono<Void> deleteTour(@PathVariable Long id) {
+        log.info("DELETE /api/reactive/tours/{} called", id);
+        return tourService.deleteTour(id);
+    }
+
+    @GetMapping("/search")
+    public Flux<Tour> searchTours(@RequestParam String q,
+                                  @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        log.info("Searching tours (reactive) with query: {} (page={}, size={})", q, page, size);
+        return tourService.searchTours(q, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE));
+    }
+}
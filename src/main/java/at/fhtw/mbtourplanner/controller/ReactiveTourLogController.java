@@ -0,0 +1,66 @@
+package at.fhtw.mbtourplanner.controller;
+
+import at.fhtw.mbtourplanner.model.TourLog;
+import at.fhtw.mbtourplanner.service.ReactiveTourLogService;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/reactive/tours/{tourId}/tour_logs")
+@Slf4j
+@RequiredArgsConstructor
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = TourController.NEXT_CURSOR_HEADER)
+public class ReactiveTourLogController {
+
+    private final ReactiveTourLogService tourLogService;
+
+    @Value("${tours.paging.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    @GetMapping
+    public Mono<ResponseEntity<List<TourLog>>> getAll(@PathVariable Long tourId,
+                                                      @RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "50") int size) {
+        log.info("GET /api/reactive/tours/{}/tour_logs called (cursor={}, size={})", tourId, cursor, size);
+        return tourLogService.getLogPage(tourId, cursor, Math.min(Math.max(size, 1), maxPageSize))
+                .map(TourController::withNextCursor);
+    }
+
+    @GetMapping("/{logId}")
+    public Mono<TourLog> getOneLog(@PathVariable Long tourId, @PathVariable("logId") Long id) {
+        log.info("GET /api/reactive/tours/{}/tour_logs/{} called", tourId, id);
+        return tourLogService.getLog(tourId, id);
+    }
+
+    @PostMapping
+    public Mono<TourLog> create(@PathVariable Long tourId, @Valid @RequestBody TourLog tourLog) {
+        log.info("POST /api/reactive/tours/{}/tour_logs called with log={}", tourId, tourLog);
+        return tourLogService.addLog(tourId, tourLog);
+    }
+
+    @PutMapping("/{logId}")
+    public Mono<TourLog> update(@PathVariable Long tourId, @PathVariable("logId") Long id, @Valid @RequestBody TourLog tourLog) {
+        log.info("PUT /api/reactive/tours/{}/tour_logs/{} called with log={}", tourId, id, tourLog);
+        return tourLogService.updateLog(tourId, id, tourLog);
+    }
+
+    @DeleteMapping("/{logId}")
+    public Mono<Void> delete(@PathVariable Long tourId, @PathVariable("logId") Long id) {
+        log.info("DELETE /api/reactive/tours/{}/tour_logs/{} called", tourId, id);
+        return tourLogService.deleteLog(tourId, id);
+    }
+
+    @GetMapping("/search")
+    public Flux<TourLog> search(@PathVariable Long tourId, @RequestParam String q) {
+        log.info("GET /api/reactive/tours/{}/tour_logs/search called with query={}", tourId, q);
+        return tourLogService.searchLogs(tourId, q);
+    }
+}
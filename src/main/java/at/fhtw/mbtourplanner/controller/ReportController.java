@@ -7,6 +7,7 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 @RestController
 @RequestMapping("/api/reports")
@@ -17,23 +18,36 @@ public class ReportController {
     private final ReportService reportService;
 
     @GetMapping(value = "/tour/{tourId}", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> downloadTourReport(@PathVariable long tourId) throws Exception{
+    public ResponseEntity<StreamingResponseBody> downloadTourReport(@PathVariable long tourId) throws Exception{
         log.info("Downloading tour report for tourId={}", tourId);
-        byte[] pdfBytes = reportService.generateTourReportPDF(tourId);
-        log.debug("Generated tour report PDF ({} bytes) for tourId={}", pdfBytes.length, tourId);
+        ReportService.TourReport report = reportService.loadTourReport(tourId);
+        StreamingResponseBody body = out -> {
+            try {
+                reportService.writeTourReportPDF(report, out);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not write tour report for tourId=" + tourId, e);
+            }
+            log.debug("Streamed tour report PDF for tourId={}", tourId);
+        };
         return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename= tour-" + tourId + "-report.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
+                .body(body);
     }
 
     @GetMapping(value = "/summary", produces = MediaType.APPLICATION_PDF_VALUE)
-    public ResponseEntity<byte[]> downloadSummaryReport() throws Exception{
+    public ResponseEntity<StreamingResponseBody> downloadSummaryReport() throws Exception{
         log.info("Downloading summary report");
-        byte[] pdfBytes = reportService.generateSummaryReportPDF();
-        log.debug("Generated summary report PDF ({} bytes)", pdfBytes.length);
+        StreamingResponseBody body = out -> {
+            try {
+                reportService.writeSummaryReportPDF(out);
+            } catch (Exception e) {
+                throw new IllegalStateException("Could not write summary report", e);
+            }
+            log.debug("Streamed summary report PDF");
+        };
         return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION,"attachment; filename= summary-report.pdf")
                 .contentType(MediaType.APPLICATION_PDF)
-                .body(pdfBytes);
+                .body(body);
     }
 
 }
@@ -1,13 +1,16 @@
 package at.fhtw.mbtourplanner.controller;
 
+import at.fhtw.mbtourplanner.model.CsvImportReport;
+import at.fhtw.mbtourplanner.model.CursorPage;
+import at.fhtw.mbtourplanner.model.ImportReport;
 import at.fhtw.mbtourplanner.model.Tour;
-import at.fhtw.mbtourplanner.repository.TourEntity;
-import at.fhtw.mbtourplanner.service.TourMapper;
+import at.fhtw.mbtourplanner.service.TourExportService;
+import at.fhtw.mbtourplanner.service.TourImportService;
 import at.fhtw.mbtourplanner.service.TourService;
-import com.opencsv.CSVReader;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.http.HttpHeaders;
@@ -15,12 +18,11 @@ import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.io.InputStreamReader;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
 import java.sql.SQLException;
-import java.time.Duration;
-import java.util.ArrayList;
 import java.util.Map;
 import java.util.List;
 
@@ -28,15 +30,50 @@ import java.util.List;
 @RequestMapping("/api/tours")
 @Slf4j
 @RequiredArgsConstructor
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = TourController.NEXT_CURSOR_HEADER)
 public class TourController {
     private final TourService tourService;
-    private final TourMapper tourMapper;
+    private final TourImportService tourImportService;
+    private final TourExportService tourExportService;
 
+    private static final int MAX_SEARCH_PAGE_SIZE = 100;
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 50;
+
+    @Value("${tours.paging.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    private static final int MAX_CSV_CHUNK_SIZE = 10_000;
+
+    @Value("${tours.import.csv-chunk-size:1000}")
+    private int csvChunkSize = 1000;
+
+    // Keyset-Paging: Cursor der naechsten Seite kommt im Header, der Body bleibt ein Array.
+    // Ohne cursor und size wie bisher die komplette Liste, damit bestehende Clients weiter alle Touren bekommen
     @GetMapping
-    public List<Tour> getAll() throws SQLException {
-        log.info("GET /api/tours called");
-        return tourService.getAllTours();
+    public ResponseEntity<List<Tour>> getAll(@RequestParam(defaultValue = "id") String sort,
+                                             @RequestParam(defaultValue = "asc") String direction,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(required = false) Integer size) throws SQLException {
+        log.info("GET /api/tours called (sort={}, direction={}, cursor={}, size={})", sort, direction, cursor, size);
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(tourService.getAllTours());
+        }
+        CursorPage<Tour> page = tourService.getTourPage(sort, "desc".equalsIgnoreCase(direction), cursor,
+                pageSize(size, maxPageSize));
+        return withNextCursor(page);
+    }
+
+    static int pageSize(Integer size, int maxPageSize) {
+        return Math.min(Math.max(size != null ? size : DEFAULT_PAGE_SIZE, 1), maxPageSize);
+    }
+
+    static <T> ResponseEntity<List<T>> withNextCursor(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     @PostMapping
@@ -64,13 +101,36 @@ public class TourController {
     }
 
     @GetMapping("/search")
-    public List<Tour> searchTours(@RequestParam String q) {
-        log.info("Searching tours with query: {}", q);
-        List<Tour> result = tourService.searchTours(q);
+    public List<Tour> searchTours(@RequestParam String q,
+                                  @RequestParam(defaultValue = "0") int page,
+                                  @RequestParam(defaultValue = "20") int size) {
+        log.info("Searching tours with query: {} (page={}, size={})", q, page, size);
+        List<Tour> result = tourService.searchTours(q, Math.max(page, 0), Math.min(Math.max(size, 1), MAX_SEARCH_PAGE_SIZE));
         log.debug("Search returned {} tours for query='{}'", result.size(), q);
         return result;
     }
 
+    // Umkreissuche ueber den Startpunkt, die naechste Tour zuerst
+    @GetMapping("/near")
+    public List<Tour> findToursNear(@RequestParam double lat,
+                                    @RequestParam double lon,
+                                    @RequestParam(defaultValue = "10") double radiusKm,
+                                    @RequestParam(defaultValue = "50") int size) {
+        log.info("GET /api/tours/near called (lat={}, lon={}, radiusKm={}, size={})", lat, lon, radiusKm, size);
+        return tourService.findNear(lat, lon, radiusKm, Math.min(Math.max(size, 1), maxPageSize));
+    }
+
+    // Kartenausschnitt: Touren mit Startpunkt im Rechteck, aufsteigend nach id
+    @GetMapping("/within")
+    public List<Tour> findToursWithin(@RequestParam double minLat,
+                                      @RequestParam double minLon,
+                                      @RequestParam double maxLat,
+                                      @RequestParam double maxLon,
+                                      @RequestParam(defaultValue = "50") int size) {
+        log.info("GET /api/tours/within called (minLat={}, minLon={}, maxLat={}, maxLon={}, size={})", minLat, minLon, maxLat, maxLon, size);
+        return tourService.findWithin(minLat, minLon, maxLat, maxLon, Math.min(Math.max(size, 1), maxPageSize));
+    }
+
     @GetMapping("/export")
     public ResponseEntity<List<Tour>> exportALlToursJSON() throws SQLException {
         log.info("GET /api/tours/export (JSON) called");
@@ -89,77 +149,49 @@ public class TourController {
         return ResponseEntity.ok(Map.of("imported", tours.size(), "status", HttpStatus.OK.value()));
     }
 
+    // Bulk-Modus: Body wird streamend gelesen, Ergebnis pro Zeile statt Abbruch beim ersten Fehler
+    @PostMapping(value = "/import/bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ImportReport importToursBulk(InputStream body) throws IOException {
+        log.info("POST /api/tours/import/bulk called");
+        ImportReport report = tourImportService.importJson(body);
+        log.debug("Bulk import report: {} imported, {} failed", report.imported(), report.failed());
+        return report;
+    }
+
 
     @GetMapping(value = "/export/csv", produces = "text/csv")
-    public ResponseEntity<byte[]> exportAllToursCSV() throws SQLException {
+    public ResponseEntity<StreamingResponseBody> exportAllToursCSV() {
         log.info("GET /api/tours/export/csv called");
-        List<Tour> tours = null;
-        try {
-            tours = tourService.getAllTours();
-        } catch (SQLException e) {
-            throw new RuntimeException(e);
-        }
-        StringBuilder sb = new StringBuilder();
-
-        // CSV header
-        sb.append("id,name, description, fromLocation, toLocation, transportType, distance, estimatedTime, routeImageURL, popularity, childFriendliness\n");
-
-        // CSV rows
-        for (Tour tour : tours) {
-            sb.append(tour.getId()).append(",")
-                    .append(tour.getName()).append(",")
-                    .append(tour.getDescription()).append(",")
-                    .append(tour.getFromLocation()).append(",")
-                    .append(tour.getToLocation()).append(",")
-                    .append(tour.getTransportType()).append(",")
-                    .append(tour.getDistance()).append(",")
-                    .append(tour.getEstimatedTime()).append(",")
-                    .append(tour.getRouteImageUrl()).append(",")
-                    .append(tour.getPopularity()).append(",")
-                    .append(tour.getChildFriendliness())
-                    .append("\n");
-        }
-
-        byte[] csvBytes = sb.toString().getBytes(StandardCharsets.UTF_8);
-
+        StreamingResponseBody body = out -> {
+            int rows = tourExportService.writeToursCsv(out);
+            log.debug("Streamed {} tours as CSV", rows);
+        };
         return ResponseEntity.ok().header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=tours.csv")
                 .contentType(MediaType.parseMediaType("text/csv"))
-                .body(csvBytes);
-
+                .body(body);
     }
 
+    // Streaming-Import: Chunks werden einzeln committed, trusted=true uebernimmt Distanz/Dauer/Koordinaten ohne Anreicherung
     @PostMapping(value = "/import/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<Map<String, Integer>> importAllToursCSV(@RequestParam ("file") MultipartFile file) throws Exception {
-        log.info("POST /api/tours/import/csv called with file={}", file.getOriginalFilename());
-        List<TourEntity> toImport = new ArrayList<>();
-        try (CSVReader reader = new CSVReader(new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8))) {
-            reader.readNext();
-            String[] line;
-            while ((line = reader.readNext()) != null) {
-                TourEntity tour = new TourEntity();
-                tour.setName(line[1]);
-                tour.setDescription(line[2]);
-                tour.setFromLocation(line[3]);
-                tour.setToLocation(line[4]);
-                tour.setTransportType(line[5]);
-                tour.setDistance(Double.parseDouble(line[6]));
-                tour.setEstimatedTime(Duration.parse(line[7]));
-                tour.setRouteImageUrl(line[8]);
-                tour.setPopularity(Integer.parseInt(line[9]));
-                tour.setChildFriendliness(Double.parseDouble(line[10]));
-                toImport.add(tour);
-            }
-
-        } catch (Exception e) {
-            log.error("Error reading CSV file: {}", e.getMessage());
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST)
-                    .body(Map.of("imported", 0, "status", HttpStatus.BAD_REQUEST.value()));
+    public CsvImportReport importAllToursCSV(@RequestParam("file") MultipartFile file,
+                                             @RequestParam(defaultValue = "false") boolean trusted,
+                                             @RequestParam(required = false) Integer chunkSize) throws IOException {
+        log.info("POST /api/tours/import/csv called with file={} (trusted={})", file.getOriginalFilename(), trusted);
+        try (InputStream in = file.getInputStream()) {
+            return tourImportService.importCsv(in, trusted, resolveChunkSize(chunkSize));
         }
+    }
 
-        for (TourEntity tourEntity : toImport) {
-            tourService.addTour(tourMapper.toDto(tourEntity));
-        }
+    // Variante ohne Multipart fuer grosse Dateien, die nicht zwischengespeichert werden sollen
+    @PostMapping(value = "/import/csv", consumes = "text/csv")
+    public CsvImportReport importToursCSVStream(InputStream body,
+                                                @RequestParam(defaultValue = "false") boolean trusted,
+                                                @RequestParam(required = false) Integer chunkSize) throws IOException {
+        log.info("POST /api/tours/import/csv called with text/csv body (trusted={})", trusted);
+        return tourImportService.importCsv(body, trusted, resolveChunkSize(chunkSize));
+    }
 
-        return ResponseEntity.ok(Map.of("imported", toImport.size(), "status", HttpStatus.OK.value()));
+    private int resolveChunkSize(Integer chunkSize) {
+        return Math.min(Math.max(chunkSize != null ? chunkSize : csvChunkSize, 1), MAX_CSV_CHUNK_SIZE);
     }
 }
@@ -1,10 +1,13 @@
 package at.fhtw.mbtourplanner.controller;
 
+import at.fhtw.mbtourplanner.model.CursorPage;
 import at.fhtw.mbtourplanner.model.TourLog;
 import at.fhtw.mbtourplanner.service.TourLogService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.sql.SQLException;
@@ -14,17 +17,26 @@ import java.util.List;
 @RequestMapping("api/tours/{tourId}/tour_logs")
 @Slf4j
 @RequiredArgsConstructor
-@CrossOrigin(origins = "http://localhost:4200")
+@CrossOrigin(origins = "http://localhost:4200", exposedHeaders = TourController.NEXT_CURSOR_HEADER)
 public class TourLogController {
 
     private final TourLogService tourLogService;
 
+    @Value("${tours.paging.max-page-size:200}")
+    private int maxPageSize = 200;
+
+    // ohne cursor und size alle Logs der Tour (wie vor dem Paging)
     @GetMapping
-    public List<TourLog> getAll(@PathVariable Long tourId) throws SQLException {
-        log.info("GET /api/tours/{}/tour_logs called", tourId);
-        List<TourLog> logs = tourLogService.getLogsForTour(tourId);
-        log.debug("Returning {} logs for tourId={}", logs.size(), tourId);
-        return logs;
+    public ResponseEntity<List<TourLog>> getAll(@PathVariable Long tourId,
+                                                @RequestParam(required = false) String cursor,
+                                                @RequestParam(required = false) Integer size) throws SQLException {
+        log.info("GET /api/tours/{}/tour_logs called (cursor={}, size={})", tourId, cursor, size);
+        if (cursor == null && size == null) {
+            return ResponseEntity.ok(tourLogService.getLogsForTour(tourId));
+        }
+        CursorPage<TourLog> page = tourLogService.getLogPage(tourId, cursor, TourController.pageSize(size, maxPageSize));
+        log.debug("Returning {} logs for tourId={}", page.items().size(), tourId);
+        return TourController.withNextCursor(page);
     }
 
     @GetMapping("/{logId}")
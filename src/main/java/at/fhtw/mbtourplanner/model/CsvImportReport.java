@@ -0,0 +1,9 @@
+package at.fhtw.mbtourplanner.model;
+
+import java.util.List;
+
+// Zusammenfassung eines CSV-Imports; einzelne Zeilen nur fuer Fehler, damit der Report bei Millionen Zeilen klein bleibt
+public record CsvImportReport(int total, int imported, int failed, int chunks,
+                              long durationMillis, double rowsPerSecond,
+                              List<ImportChunkError> chunkErrors) {
+}
@@ -0,0 +1,7 @@
+package at.fhtw.mbtourplanner.model;
+
+import java.util.List;
+
+// Eine Seite aus Keyset-Paging; nextCursor ist null, wenn keine weiteren Eintraege existieren
+public record CursorPage<T>(List<T> items, String nextCursor) {
+}
@@ -0,0 +1,8 @@
+package at.fhtw.mbtourplanner.model;
+
+// Zustand der Anreicherung (Geocoding/Routing) einer Tour
+public enum EnrichmentStatus {
+    PENDING,
+    DONE,
+    FAILED
+}
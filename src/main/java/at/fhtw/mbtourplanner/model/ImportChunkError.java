@@ -0,0 +1,7 @@
+package at.fhtw.mbtourplanner.model;
+
+import java.util.List;
+
+// Fehlgeschlagene Zeilen eines Chunks (chunk = 0-basierte Chunk-Nummer, firstRow = erste Zeile des Chunks)
+public record ImportChunkError(int chunk, int firstRow, int rows, List<ImportRowResult> errors) {
+}
@@ -0,0 +1,11 @@
+package at.fhtw.mbtourplanner.model;
+
+import java.util.List;
+
+public record ImportReport(int total, int imported, int failed, List<ImportRowResult> rows) {
+
+    public static ImportReport of(List<ImportRowResult> rows) {
+        int imported = (int) rows.stream().filter(ImportRowResult::success).count();
+        return new ImportReport(rows.size(), imported, rows.size() - imported, rows);
+    }
+}
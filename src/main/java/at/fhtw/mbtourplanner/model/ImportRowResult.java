@@ -0,0 +1,13 @@
+package at.fhtw.mbtourplanner.model;
+
+// Ergebnis einer einzelnen Import-Zeile (row = 0-basierte Position in der Eingabe)
+public record ImportRowResult(int row, String name, boolean success, Long id, String error) {
+
+    public static ImportRowResult imported(int row, String name, Long id) {
+        return new ImportRowResult(row, name, true, id, null);
+    }
+
+    public static ImportRowResult failed(int row, String name, String error) {
+        return new ImportRowResult(row, name, false, null, error);
+    }
+}
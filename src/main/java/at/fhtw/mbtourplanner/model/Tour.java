@@ -43,4 +43,8 @@ public class Tour {
     @NotNull(message = "childFriendliness is missing")
     private double childFriendliness;
 
+    // wird vom Server gesetzt: PENDING solange Koordinaten/Route noch berechnet werden
+    private EnrichmentStatus enrichmentStatus;
+    private String enrichmentError;
+
 }
\ No newline at end of file
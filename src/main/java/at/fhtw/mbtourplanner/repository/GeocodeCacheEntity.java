@@ -0,0 +1,35 @@
+package at.fhtw.mbtourplanner.repository;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+// Persistente Stufe des Geocoding-Caches; found=false speichert "keine Treffer" (Negativ-Cache)
+@Entity
+@AllArgsConstructor
+@NoArgsConstructor
+@Data
+@Builder
+@Table(name = "geocode_cache")
+public class GeocodeCacheEntity {
+
+    @Id
+    @Column(name = "address_key", length = 512)
+    private String addressKey;
+
+    @Column(name = "latitude")
+    private Double latitude;
+
+    @Column(name = "longitude")
+    private Double longitude;
+
+    @Column(name = "found", nullable = false)
+    private boolean found;
+
+    @Column(name = "fetched_at", nullable = false)
+    private Instant fetchedAt;
+}
@@ -0,0 +1,6 @@
+package at.fhtw.mbtourplanner.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface GeocodeCacheRepository extends JpaRepository<GeocodeCacheEntity, String> {
+}
@@ -0,0 +1,105 @@
+package at.fhtw.mbtourplanner.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Geohash (Base32, abwechselnd Laengen- und Breitengrad-Bit): Zellen gleicher Genauigkeit sind ein Gitter,
+// jeder Praefix ist die umschliessende groebere Zelle. Zellindizes zaehlen von Sued/West ab 0
+public final class Geohash {
+    public static final int MAX_PRECISION = 12;
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+
+    private Geohash() {
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        return encode(latIndex(lat, precision), lonIndex(lon, precision), precision);
+    }
+
+    public static String encode(long latIndex, long lonIndex, int precision) {
+        int latBits = latBits(precision);
+        int lonBits = lonBits(precision);
+        char[] hash = new char[precision];
+        int value = 0;
+        for (int bit = 0; bit < 5 * precision; bit++) {
+            // gerade Bits: Laenge, ungerade Bits: Breite, jeweils vom hoechstwertigen Bit an
+            boolean set = bit % 2 == 0
+                    ? (lonIndex >>> (lonBits - 1 - bit / 2) & 1) != 0
+                    : (latIndex >>> (latBits - 1 - bit / 2) & 1) != 0;
+            value = value << 1 | (set ? 1 : 0);
+            if (bit % 5 == 4) {
+                hash[bit / 5] = BASE32[value];
+                value = 0;
+            }
+        }
+        return new String(hash);
+    }
+
+    public static long latIndex(double lat, int precision) {
+        return index(lat + 90, 180, latBits(precision));
+    }
+
+    public static long lonIndex(double lon, int precision) {
+        return index(lon + 180, 360, lonBits(precision));
+    }
+
+    // Zellhoehe bzw. -breite in Grad
+    public static double cellHeight(int precision) {
+        return 180.0 / (1L << latBits(precision));
+    }
+
+    public static double cellWidth(int precision) {
+        return 360.0 / (1L << lonBits(precision));
+    }
+
+    // Praefixe, die das Rechteck abdecken: die feinste Genauigkeit mit hoechstens maxCells Zellen.
+    // minLon > maxLon bedeutet ein Rechteck ueber die Datumsgrenze
+    public static List<String> covering(double minLat, double minLon, double maxLat, double maxLon, int maxCells) {
+        for (int precision = MAX_PRECISION; precision > 1; precision--) {
+            if (cellCount(minLat, minLon, maxLat, maxLon, precision) <= maxCells) {
+                return cells(minLat, minLon, maxLat, maxLon, precision);
+            }
+        }
+        return cells(minLat, minLon, maxLat, maxLon, 1);
+    }
+
+    private static long cellCount(double minLat, double minLon, double maxLat, double maxLon, int precision) {
+        long rows = latIndex(maxLat, precision) - latIndex(minLat, precision) + 1;
+        return rows * lonSpan(minLon, maxLon, precision);
+    }
+
+    private static long lonSpan(double minLon, double maxLon, int precision) {
+        long from = lonIndex(minLon, precision);
+        long to = lonIndex(maxLon, precision);
+        long columns = 1L << lonBits(precision);
+        return minLon <= maxLon ? to - from + 1 : Math.min(columns, columns - from + to + 1);
+    }
+
+    private static List<String> cells(double minLat, double minLon, double maxLat, double maxLon, int precision) {
+        long columns = 1L << lonBits(precision);
+        long fromLon = lonIndex(minLon, precision);
+        long span = lonSpan(minLon, maxLon, precision);
+        List<String> result = new ArrayList<>();
+        for (long row = latIndex(minLat, precision); row <= latIndex(maxLat, precision); row++) {
+            for (long i = 0; i < span; i++) {
+                result.add(encode(row, (fromLon + i) % columns, precision));
+            }
+        }
+        return result;
+    }
+
+    private static long index(double offset, double range, int bits) {
+        long cells = 1L << bits;
+        long index = (long) Math.floor(offset / range * cells);
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    private static int latBits(int precision) {
+        return 5 * precision / 2;
+    }
+
+    private static int lonBits(int precision) {
+        return (5 * precision + 1) / 2;
+    }
+}
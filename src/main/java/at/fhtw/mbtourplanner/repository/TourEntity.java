@@ -1,11 +1,13 @@
 package at.fhtw.mbtourplanner.repository;
 import at.fhtw.mbtourplanner.converter.DurationToIntervalConverter;
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import com.fasterxml.jackson.databind.annotation.JsonSerialize;
 import at.fhtw.mbtourplanner.converter.DurationToIntervalSerializer;
 import at.fhtw.mbtourplanner.converter.DurationToIntervalDeserializer;
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.Duration;
 
@@ -14,10 +16,21 @@ import java.time.Duration;
 @NoArgsConstructor
 @Data
 @Builder
-@Table(name = "tours")
+@Table(name = "tours", indexes = {
+        // (Sortfeld, id) fuer Keyset-Paging der Tour-Liste
+        @Index(name = "idx_tours_distance", columnList = "distance, id"),
+        @Index(name = "idx_tours_popularity", columnList = "popularity, id"),
+        @Index(name = "idx_tours_child_friendliness", columnList = "child_friendliness, id"),
+        @Index(name = "idx_tours_from_geohash", columnList = "from_geohash")
+})
 public class TourEntity {
+    // muss der Schrittweite von tours_id_seq entsprechen, bestehende Datenbanken stellt TourIdSequenceMigration um
+    static final int ID_ALLOCATION_SIZE = 50;
+
+    // Pooled Sequence statt IDENTITY, damit Hibernate INSERTs als JDBC-Batch senden kann
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "tours_seq")
+    @SequenceGenerator(name = "tours_seq", sequenceName = TourIdSequenceMigration.SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(name="name", nullable = false)
@@ -46,12 +59,20 @@ public class TourEntity {
     @Column(name = "route_image_url", length = 8192)
     private String routeImageUrl;
 
+    // Encoded Polyline (PolyLineEncoder), damit Reports ORS nicht erneut abfragen muessen
+    @Column(name = "route_geometry", columnDefinition = "TEXT")
+    private String routeGeometry;
+
     @Column(name = "from_latitude")
     private double fromLat;
 
     @Column(name = "from_longitude")
     private double fromLon;
 
+    // Geohash des Startpunkts fuer die Umkreissuche in der Datenbank (Kaltstart, solange der In-Memory-Index laedt)
+    @Column(name = "from_geohash", length = Geohash.MAX_PRECISION)
+    private String fromGeohash;
+
     @Column(name = "to_latitude")
     private double toLat;
 
@@ -63,4 +84,42 @@ public class TourEntity {
 
     @Column(name = "child_friendliness")
     private double childFriendliness;
+
+    // Laufende Summen ueber alle Logs der Tour (Anzahl = popularity), werden pro Log-Aenderung per Delta gepflegt
+    @ColumnDefault("0")
+    @Column(name = "difficulty_sum")
+    private long difficultySum;
+
+    @ColumnDefault("0")
+    @Column(name = "time_seconds_sum")
+    private long timeSecondsSum;
+
+    @ColumnDefault("0")
+    @Column(name = "distance_sum")
+    private double distanceSum;
+
+    // PENDING-Touren sind offene Anreicherungsauftraege und werden nach einem Neustart fortgesetzt
+    @Builder.Default
+    @Enumerated(EnumType.STRING)
+    @ColumnDefault("'DONE'")
+    @Column(name = "enrichment_status", length = 16)
+    private EnrichmentStatus enrichmentStatus = EnrichmentStatus.DONE;
+
+    @Column(name = "enrichment_error", length = 1000)
+    private String enrichmentError;
+
+    @ColumnDefault("0")
+    @Column(name = "enrichment_attempts")
+    private int enrichmentAttempts;
+
+    @PrePersist
+    @PreUpdate
+    public void syncFromGeohash() {
+        fromGeohash = hasStartLocation() ? Geohash.encode(fromLat, fromLon, Geohash.MAX_PRECISION) : null;
+    }
+
+    // erst nach der Anreicherung gibt es Koordinaten; (0, 0) steht fuer "nicht geocodiert"
+    public boolean hasStartLocation() {
+        return enrichmentStatus == EnrichmentStatus.DONE && (fromLat != 0 || fromLon != 0);
+    }
 }
@@ -0,0 +1,55 @@
+package at.fhtw.mbtourplanner.repository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+
+// Migration: bestehende Datenbanken haben tours_id_seq aus der SERIAL-Spalte mit Schrittweite 1.
+// Hibernate prueft die Schrittweite beim Start gegen allocationSize und bricht ab, daher muss das vor der
+// EntityManagerFactory laufen. setval stellt sicher, dass der pooled optimizer keine vergebenen ids erneut ausgibt
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TourIdSequenceMigration {
+    static final String SEQUENCE = "tours_id_seq";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PostConstruct
+    public void migrate() {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("postgres")) {
+            return;
+        }
+        List<Long> increments = jdbcTemplate.queryForList(
+                "SELECT increment_by FROM pg_sequences WHERE schemaname = current_schema() AND sequencename = ?",
+                Long.class, SEQUENCE);
+        if (increments.isEmpty() || increments.get(0) == TourEntity.ID_ALLOCATION_SIZE) {
+            // neue Datenbank (ddl-auto legt die Sequenz an) oder bereits migriert
+            return;
+        }
+        jdbcTemplate.execute("ALTER SEQUENCE " + SEQUENCE + " INCREMENT BY " + TourEntity.ID_ALLOCATION_SIZE);
+        // der naechste Block (nextval - allocationSize, nextval] muss oberhalb von max(id) liegen
+        Long maxId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM tours", Long.class);
+        jdbcTemplate.queryForObject("SELECT setval('" + SEQUENCE + "', GREATEST((SELECT last_value FROM " + SEQUENCE + "), ?))",
+                Long.class, maxId);
+        log.info("Migrated {} from increment {} to {} (max tour id {})",
+                SEQUENCE, increments.get(0), TourEntity.ID_ALLOCATION_SIZE, maxId);
+    }
+
+    // Hibernate erst nach der Migration starten
+    @Component
+    static class EntityManagerFactoryDependency extends EntityManagerFactoryDependsOnPostProcessor {
+        EntityManagerFactoryDependency() {
+            super(TourIdSequenceMigration.class);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package at.fhtw.mbtourplanner.repository;
+
+import java.util.List;
+
+public interface TourKeysetRepository {
+
+    // Seek-Paging: liefert bis zu limit Touren nach (afterValue, afterId) in der gewaehlten Sortierung
+    List<TourEntity> findPage(TourSort sort, boolean descending, Object afterValue, Long afterId, int limit);
+}
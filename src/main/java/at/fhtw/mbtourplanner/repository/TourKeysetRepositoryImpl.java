@@ -0,0 +1,45 @@
+package at.fhtw.mbtourplanner.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+public class TourKeysetRepositoryImpl implements TourKeysetRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TourEntity> findPage(TourSort sort, boolean descending, Object afterValue, Long afterId, int limit) {
+        String field = "t." + sort.getProperty();
+        String cmp = descending ? "<" : ">";
+        String dir = descending ? "DESC" : "ASC";
+
+        StringBuilder jpql = new StringBuilder("SELECT t FROM TourEntity t");
+        if (afterId != null) {
+            if (sort == TourSort.ID) {
+                jpql.append(" WHERE t.id ").append(cmp).append(" :afterId");
+            } else {
+                // (field, id) > (:value, :id) ausgeschrieben, da Tuple-Vergleiche nicht portabel sind
+                jpql.append(" WHERE ").append(field).append(' ').append(cmp).append(" :afterValue")
+                        .append(" OR (").append(field).append(" = :afterValue AND t.id ").append(cmp).append(" :afterId)");
+            }
+        }
+        jpql.append(" ORDER BY ");
+        if (sort != TourSort.ID) {
+            jpql.append(field).append(' ').append(dir).append(", ");
+        }
+        jpql.append("t.id ").append(dir);
+
+        var query = entityManager.createQuery(jpql.toString(), TourEntity.class);
+        if (afterId != null) {
+            query.setParameter("afterId", afterId);
+            if (sort != TourSort.ID) {
+                query.setParameter("afterValue", afterValue);
+            }
+        }
+        query.setMaxResults(limit);
+        return query.getResultList();
+    }
+}
@@ -0,0 +1,5 @@
+package at.fhtw.mbtourplanner.repository;
+
+// Startpunkt einer Tour, ohne die restlichen Spalten zu laden (Aufbau des Umkreis-Index)
+public record TourLocation(Long id, double fromLat, double fromLon, String fromGeohash) {
+}
@@ -22,7 +22,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @Data
 @Builder
-@Table(name="tour_logs")
+@Table(name="tour_logs", indexes = @Index(name = "idx_tour_logs_tour_id", columnList = "tour_id, id"))
 public class TourLogEntity {
 
     @Id
@@ -54,4 +54,14 @@ public class TourLogEntity {
     @Column(nullable = false)
     private int rating;
 
+    // Sekunden-Spiegel von totalTime, damit Datenbank-Aggregate (AVG/SUM) ohne INTERVAL-Parsing moeglich sind
+    @Column(name = "total_time_seconds")
+    private Long totalTimeSeconds;
+
+    @PrePersist
+    @PreUpdate
+    public void syncTotalTimeSeconds() {
+        totalTimeSeconds = totalTime != null ? totalTime.getSeconds() : null;
+    }
+
 }
@@ -1,11 +1,14 @@
 package at.fhtw.mbtourplanner.repository;
 
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface TourLogRepository extends JpaRepository<TourLogEntity, Long> {
 
@@ -25,4 +28,37 @@ public interface TourLogRepository extends JpaRepository<TourLogEntity, Long> {
 
     List<TourLogEntity> searchLogs(@Param("tourId") Long tourId, @Param("q") String query);
     List<TourLogEntity> findAllByTour(TourEntity tour);
+
+    @Query("""
+     SELECT new at.fhtw.mbtourplanner.repository.TourLogSummary(
+               t.id, t.name, AVG(tl.totalDistance), AVG(tl.totalTimeSeconds), AVG(tl.rating), COUNT(tl))
+          FROM TourEntity t LEFT JOIN TourLogEntity tl ON tl.tour = t
+          GROUP BY t.id, t.name
+          ORDER BY t.id
+     """)
+    List<TourLogSummary> findTourLogSummaries();
+
+    @Query("""
+     SELECT new at.fhtw.mbtourplanner.repository.TourLogTotals(
+               tl.tour.id, COUNT(tl), SUM(tl.difficulty), SUM(tl.totalTimeSeconds), SUM(tl.totalDistance))
+          FROM TourLogEntity tl
+          WHERE tl.tour.id = :tourId
+          GROUP BY tl.tour.id
+     """)
+    Optional<TourLogTotals> findTotalsByTourId(@Param("tourId") Long tourId);
+
+    @Query("""
+     SELECT new at.fhtw.mbtourplanner.repository.TourLogTotals(
+               tl.tour.id, COUNT(tl), SUM(tl.difficulty), SUM(tl.totalTimeSeconds), SUM(tl.totalDistance))
+          FROM TourLogEntity tl
+          WHERE tl.tour.id IN :tourIds
+          GROUP BY tl.tour.id
+     """)
+    List<TourLogTotals> findTotalsByTourIds(@Param("tourIds") Collection<Long> tourIds);
+
+    List<TourLogEntity> findByTotalTimeSecondsIsNullAndIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    List<TourLogEntity> findByTourIdAndIdGreaterThanOrderByIdAsc(Long tourId, Long id, Pageable pageable);
+
+    List<TourLogEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
 }
@@ -0,0 +1,10 @@
+package at.fhtw.mbtourplanner.repository;
+
+// Aggregierte Log-Kennzahlen einer Tour fuer den Summary-Report (eine Zeile pro Tour)
+public record TourLogSummary(Long tourId,
+                             String tourName,
+                             Double averageDistance,
+                             Double averageTimeSeconds,
+                             Double averageRating,
+                             Long logCount) {
+}
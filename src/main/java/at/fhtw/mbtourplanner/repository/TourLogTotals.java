@@ -0,0 +1,9 @@
+package at.fhtw.mbtourplanner.repository;
+
+// Summen ueber alle Logs einer Tour, Grundlage fuer das Neuberechnen der Tour-Statistiken
+public record TourLogTotals(Long tourId,
+                            Long logCount,
+                            Long difficultySum,
+                            Long timeSecondsSum,
+                            Double distanceSum) {
+}
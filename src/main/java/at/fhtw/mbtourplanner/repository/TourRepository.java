@@ -1,26 +1,72 @@
 package at.fhtw.mbtourplanner.repository;
 
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
-public interface TourRepository extends JpaRepository<TourEntity, Long> {
+public interface TourRepository extends JpaRepository<TourEntity, Long>, TourSearchRepository, TourKeysetRepository, TourSpatialRepository {
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TourEntity t WHERE t.id = :id")
+    Optional<TourEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // Statistik-Reparatur in Batches: Zeilen sperren, bevor aus den Logs aggregiert wird,
+    // damit kein parallel committetes Delta (TourLogService) ueberschrieben wird
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM TourEntity t WHERE t.id > :afterId ORDER BY t.id")
+    List<TourEntity> findBatchForUpdate(@Param("afterId") Long afterId, Pageable pageable);
+
+    // Touren mit Logs aus der Zeit vor den laufenden Summen (difficulty ist mindestens 1, die Summe also nie 0)
+    boolean existsByPopularityGreaterThanAndDifficultySum(int popularity, long difficultySum);
+
+    List<TourEntity> findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(
+            EnrichmentStatus status, Long id, Pageable pageable);
+
+    // Keyset-Seiten fuer den Aufbau des Such-Index
+    List<TourEntity> findByIdGreaterThanOrderByIdAsc(Long id, Pageable pageable);
+
+    // schreibt nur die Geometrie: ein save der ganzen Tour wuerde parallel gepflegte Log-Statistiken ueberschreiben.
+    // Leer = Backfill ohne Ergebnis, darf vom Report ueberschrieben werden
+    @Transactional
+    @Modifying
+    @Query("UPDATE TourEntity t SET t.routeGeometry = :geometry WHERE t.id = :id AND (t.routeGeometry IS NULL OR t.routeGeometry = '')")
+    int updateRouteGeometry(@Param("id") Long id, @Param("geometry") String geometry);
+
+    @Query("SELECT t.id FROM TourEntity t WHERE t.enrichmentStatus = :status ORDER BY t.id")
+    List<Long> findIdsByEnrichmentStatus(@Param("status") EnrichmentStatus status);
+
+    // Forward-only Cursor fuer Exporte; nur innerhalb einer Transaktion verwendbar und muss geschlossen werden
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT t FROM TourEntity t ORDER BY t.id")
+    Stream<TourEntity> streamAllOrderedById();
+
+    // Keyset-Seiten fuer den Aufbau des Umkreis-Index
     @Query("""
-            SELECT t FROM TourEntity t
-            WHERE LOWER(t.name) LIKE LOWER(CONCAT('%', :q, '%'))
-            OR LOWER(t.description) LIKE LOWER(CONCAT('%', :q, '%'))
-            OR LOWER(t.fromLocation) LIKE LOWER(CONCAT('%', :q, '%'))
-            OR LOWER(t.toLocation) LIKE LOWER(CONCAT('%', :q, '%'))
-            OR LOWER(t.transportType) LIKE LOWER(CONCAT('%', :q, '%'))
-            OR CAST (t.distance as string) LIKE CONCAT('%', :q, '%')
-            OR CAST (t.popularity as string) LIKE CONCAT('%', :q, '%')
-            OR CAST (t.childFriendliness as string) LIKE CONCAT('%', :q, '%')
-            OR CAST (t.estimatedTime as string) LIKE CONCAT('%', :q, '%')
-            OR LOWER(t.routeImageUrl) LIKE LOWER(CONCAT('%', :q, '%'))        
-""")
-    List<TourEntity> searchTours(@Param("q") String query);
-
-}
\ No newline at end of file
+            SELECT new at.fhtw.mbtourplanner.repository.TourLocation(t.id, t.fromLat, t.fromLon, t.fromGeohash)
+            FROM TourEntity t
+            WHERE t.id > :afterId AND t.enrichmentStatus = :status
+            ORDER BY t.id
+            """)
+    List<TourLocation> findLocationsAfter(@Param("afterId") Long afterId, @Param("status") EnrichmentStatus status, Pageable pageable);
+
+    // Altbestand ohne Geohash nachtragen (Bulk-Update umgeht @PreUpdate)
+    @Modifying
+    @Query("UPDATE TourEntity t SET t.fromGeohash = :geohash WHERE t.id = :id")
+    int updateFromGeohash(@Param("id") Long id, @Param("geohash") String geohash);
+}
@@ -0,0 +1,33 @@
+package at.fhtw.mbtourplanner.repository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+// ddl-auto legt keine Ausdrucks-Indizes an, daher wird der GIN-Index fuer die Volltextsuche hier erstellt
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class TourSearchIndexInitializer implements ApplicationRunner {
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        String product = jdbcTemplate.execute((ConnectionCallback<String>) c -> c.getMetaData().getDatabaseProductName());
+        if (product == null || !product.toLowerCase(Locale.ROOT).contains("postgres")) {
+            log.info("Skipping full-text index creation on {}", product);
+            return;
+        }
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tours_search ON tours USING GIN ("
+                + TourSearchRepositoryImpl.SEARCH_VECTOR + ")");
+        log.info("Full-text search index idx_tours_search is in place");
+        // LIKE 'praefix%' nutzt einen B-Tree nur mit text_pattern_ops, wenn die Datenbank nicht mit C-Collation laeuft
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_tours_from_geohash_pattern ON tours (from_geohash text_pattern_ops)");
+    }
+}
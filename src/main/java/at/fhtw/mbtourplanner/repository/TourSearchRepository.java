@@ -0,0 +1,9 @@
+package at.fhtw.mbtourplanner.repository;
+
+import java.util.List;
+
+public interface TourSearchRepository {
+
+    // Volltextsuche ueber die Textfelder einer Tour, nach Relevanz sortiert und seitenweise
+    List<TourEntity> searchRanked(String query, int page, int size);
+}
@@ -0,0 +1,102 @@
+package at.fhtw.mbtourplanner.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+@Slf4j
+public class TourSearchRepositoryImpl implements TourSearchRepository {
+
+    // muss exakt dem Ausdruck des GIN-Index entsprechen, sonst verwendet PostgreSQL den Index nicht
+    static final String SEARCH_VECTOR = "to_tsvector('simple', coalesce(name, '') || ' ' || coalesce(description, '') || ' ' "
+            + "|| coalesce(from_location, '') || ' ' || coalesce(to_location, '') || ' ' || coalesce(transport_type, ''))";
+
+    private static final List<String> TEXT_FIELDS = List.of("name", "description", "fromLocation", "toLocation", "transportType");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final boolean postgres;
+
+    public TourSearchRepositoryImpl(DataSource dataSource) {
+        this.postgres = isPostgres(dataSource);
+        log.info("Tour search uses {}", postgres ? "PostgreSQL full-text index" : "LIKE fallback");
+    }
+
+    @Override
+    public List<TourEntity> searchRanked(String query, int page, int size) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        return postgres ? searchFullText(tokens, page, size) : searchLike(tokens, page, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<TourEntity> searchFullText(List<String> tokens, int page, int size) {
+        // jedes Token als Praefix, alle Tokens muessen vorkommen
+        String tsQuery = String.join(" & ", tokens.stream().map(token -> token + ":*").toList());
+        Query query = entityManager.createNativeQuery("""
+                SELECT * FROM tours
+                WHERE %1$s @@ to_tsquery('simple', :q)
+                ORDER BY ts_rank(%1$s, to_tsquery('simple', :q)) DESC, id
+                """.formatted(SEARCH_VECTOR), TourEntity.class);
+        query.setParameter("q", tsQuery);
+        query.setFirstResult(firstResult(page, size));
+        query.setMaxResults(size);
+        return query.getResultList();
+    }
+
+    private List<TourEntity> searchLike(List<String> tokens, int page, int size) {
+        StringBuilder jpql = new StringBuilder("SELECT t FROM TourEntity t WHERE 1 = 1");
+        for (int i = 0; i < tokens.size(); i++) {
+            int param = i;
+            jpql.append(" AND (")
+                    .append(String.join(" OR ", TEXT_FIELDS.stream()
+                            .map(field -> "LOWER(t." + field + ") LIKE :t" + param)
+                            .toList()))
+                    .append(")");
+        }
+        // einfache Relevanz: Treffer im Namen zuerst
+        jpql.append(" ORDER BY CASE WHEN LOWER(t.name) LIKE :t0 THEN 0 ELSE 1 END, t.id");
+
+        var query = entityManager.createQuery(jpql.toString(), TourEntity.class);
+        for (int i = 0; i < tokens.size(); i++) {
+            query.setParameter("t" + i, "%" + tokens.get(i) + "%");
+        }
+        query.setFirstResult(firstResult(page, size));
+        query.setMaxResults(size);
+        return query.getResultList();
+    }
+
+    // page * size laeuft bei grossen Seitennummern ueber und wuerde einen negativen Offset liefern
+    static int firstResult(int page, int size) {
+        return (int) Math.min((long) page * size, Integer.MAX_VALUE);
+    }
+
+    static List<String> tokenize(String query) {
+        if (query == null) {
+            return List.of();
+        }
+        return Arrays.stream(query.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private static boolean isPostgres(DataSource dataSource) {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("postgres");
+        } catch (SQLException e) {
+            log.warn("Could not determine database product, using LIKE search: {}", e.getMessage());
+            return false;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package at.fhtw.mbtourplanner.repository;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+// Erlaubte Sortierungen fuer die Tour-Liste; jede ist ueber (Feld, id) indiziert, damit Keyset-Paging eindeutig bleibt
+public enum TourSort {
+    ID("id", TourEntity::getId, Long::valueOf),
+    DISTANCE("distance", TourEntity::getDistance, Double::valueOf),
+    POPULARITY("popularity", TourEntity::getPopularity, Integer::valueOf),
+    CHILD_FRIENDLINESS("childFriendliness", TourEntity::getChildFriendliness, Double::valueOf);
+
+    private final String property;
+    private final Function<TourEntity, Object> extractor;
+    private final Function<String, Object> parser;
+
+    TourSort(String property, Function<TourEntity, Object> extractor, Function<String, Object> parser) {
+        this.property = property;
+        this.extractor = extractor;
+        this.parser = parser;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Object valueOf(TourEntity tour) {
+        return extractor.apply(tour);
+    }
+
+    public Object parse(String value) {
+        return parser.apply(value);
+    }
+
+    public static TourSort fromProperty(String property) {
+        return Arrays.stream(values())
+                .filter(sort -> sort.property.equalsIgnoreCase(property))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported sort: " + property));
+    }
+}
@@ -0,0 +1,9 @@
+package at.fhtw.mbtourplanner.repository;
+
+import java.util.List;
+
+public interface TourSpatialRepository {
+
+    // Startpunkte, deren Geohash mit einem der Praefixe beginnt und deren Breite in [minLat, maxLat] liegt
+    List<TourLocation> findLocationsByGeohashPrefixes(List<String> prefixes, double minLat, double maxLat);
+}
@@ -0,0 +1,34 @@
+package at.fhtw.mbtourplanner.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+
+import java.util.List;
+
+public class TourSpatialRepositoryImpl implements TourSpatialRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TourLocation> findLocationsByGeohashPrefixes(List<String> prefixes, double minLat, double maxLat) {
+        if (prefixes.isEmpty()) {
+            return List.of();
+        }
+        // LIKE 'praefix%' kann den Index auf from_geohash als Bereichsscan nutzen
+        StringBuilder jpql = new StringBuilder("SELECT new at.fhtw.mbtourplanner.repository.TourLocation(")
+                .append("t.id, t.fromLat, t.fromLon, t.fromGeohash) FROM TourEntity t WHERE (");
+        for (int i = 0; i < prefixes.size(); i++) {
+            jpql.append(i > 0 ? " OR " : "").append("t.fromGeohash LIKE :p").append(i);
+        }
+        jpql.append(") AND t.fromLat BETWEEN :minLat AND :maxLat ORDER BY t.id");
+
+        var query = entityManager.createQuery(jpql.toString(), TourLocation.class);
+        for (int i = 0; i < prefixes.size(); i++) {
+            query.setParameter("p" + i, prefixes.get(i) + "%");
+        }
+        query.setParameter("minLat", minLat);
+        query.setParameter("maxLat", maxLat);
+        return query.getResultList();
+    }
+}
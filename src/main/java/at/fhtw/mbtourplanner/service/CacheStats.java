@@ -0,0 +1,12 @@
+package at.fhtw.mbtourplanner.service;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+public record CacheStats(String name, long hits, long misses, long evictions, long size) {
+
+    @JsonProperty
+    public double hitRatio() {
+        long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+}
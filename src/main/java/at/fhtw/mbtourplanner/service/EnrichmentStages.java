@@ -0,0 +1,96 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Stufen der Anreicherung mit eigenem Timeout und Latenz-Histogramm:
+// geocode-from und geocode-to laufen parallel, route danach, enrichment misst den gesamten Graphen
+@Component
+@Slf4j
+public class EnrichmentStages {
+    public static final String GEOCODE_FROM = "geocode-from";
+    public static final String GEOCODE_TO = "geocode-to";
+    public static final String ROUTE = "route";
+    public static final String TOTAL = "enrichment";
+
+    private final Duration geocodeTimeout;
+    private final Duration routeTimeout;
+    // feste Menge an Stufen, nach dem Konstruktor nur noch gelesen
+    private final Map<String, Stage> stages = Map.of(
+            GEOCODE_FROM, new Stage(), GEOCODE_TO, new Stage(), ROUTE, new Stage(), TOTAL, new Stage());
+
+    public EnrichmentStages(@Value("${tours.enrichment.geocode-timeout:10s}") Duration geocodeTimeout,
+                            @Value("${tours.enrichment.route-timeout:20s}") Duration routeTimeout) {
+        this.geocodeTimeout = geocodeTimeout;
+        this.routeTimeout = routeTimeout;
+        log.info("Enrichment stages (geocodeTimeout={}, routeTimeout={})", geocodeTimeout, routeTimeout);
+    }
+
+    public <T> Mono<T> geocode(String stage, Mono<T> work) {
+        return timed(stage, work.timeout(geocodeTimeout, timeoutError(stage, geocodeTimeout)));
+    }
+
+    public <T> Mono<T> route(Mono<T> work) {
+        return timed(ROUTE, work.timeout(routeTimeout, timeoutError(ROUTE, routeTimeout)));
+    }
+
+    // Gesamtdauer ohne eigenen Timeout, die Stufen begrenzen sich selbst
+    public <T> Mono<T> total(Mono<T> work) {
+        return timed(TOTAL, work);
+    }
+
+    public List<StageStats> stats() {
+        return List.of(stats(GEOCODE_FROM), stats(GEOCODE_TO), stats(ROUTE), stats(TOTAL));
+    }
+
+    public StageStats stats(String name) {
+        Stage stage = stages.get(name);
+        LatencyHistogram latency = stage.latency;
+        return new StageStats(name, latency.getCount(), stage.failures.get(), stage.timeouts.get(), stage.cancelled.get(),
+                latency.meanMillis(), latency.percentileMillis(0.50), latency.percentileMillis(0.95),
+                latency.percentileMillis(0.99), latency.maxMillis(), latency.buckets());
+    }
+
+    private <T> Mono<T> timeoutError(String name, Duration timeout) {
+        return Mono.error(() -> {
+            stages.get(name).timeouts.incrementAndGet();
+            return new IllegalStateException("Enrichment stage " + name + " timed out after " + timeout);
+        });
+    }
+
+    // Abbruch (z.B. weil die Geschwister-Stufe fehlgeschlagen ist) wird gezaehlt, aber nicht als Latenz erfasst;
+    // gemessen wird vor der Weitergabe nach unten, damit block() die Werte schon sieht
+    private <T> Mono<T> timed(String name, Mono<T> work) {
+        Stage stage = stages.get(name);
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            AtomicBoolean terminated = new AtomicBoolean();
+            return work
+                    .doOnError(e -> stage.failures.incrementAndGet())
+                    .doOnTerminate(() -> {
+                        terminated.set(true);
+                        stage.latency.record(System.nanoTime() - start);
+                    })
+                    .doOnCancel(() -> {
+                        if (!terminated.get()) {
+                            stage.cancelled.incrementAndGet();
+                        }
+                    });
+        });
+    }
+
+    private static final class Stage {
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLong failures = new AtomicLong();
+        private final AtomicLong timeouts = new AtomicLong();
+        private final AtomicLong cancelled = new AtomicLong();
+    }
+}
@@ -0,0 +1,270 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Unveraenderlicher Ortsindex ohne Objekt pro Eintrag: normalisierte Namen als UTF-8 in einem byte[],
+// sortiert, damit Praefixe zusammenhaengende Bereiche bilden (Binaersuche statt Knoten-Trie),
+// dazu eine Hashtabelle mit offener Adressierung fuer exakte Treffer und Koordinaten als int (1e-7 Grad)
+@Slf4j
+public final class GazetteerIndex {
+    public static final GazetteerIndex EMPTY = new Builder(0).build();
+
+    private static final double SCALE = 1e7;
+
+    private final byte[] names;
+    private final int[] offsets;
+    private final int[] lat;
+    private final int[] lon;
+    private final int[] table;
+
+    private GazetteerIndex(byte[] names, int[] offsets, int[] lat, int[] lon, int[] table) {
+        this.names = names;
+        this.offsets = offsets;
+        this.lat = lat;
+        this.lon = lon;
+        this.table = table;
+    }
+
+    // CSV oder TSV mit name, lat, lon; Kopfzeile und unlesbare Zeilen werden uebersprungen.
+    // Die Koordinaten stehen immer in den letzten beiden Spalten, Kommas im Namen brauchen daher keine Anfuehrungszeichen
+    public static GazetteerIndex load(Path file) throws IOException {
+        Builder builder = new Builder(1 << 16);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            char separator = file.toString().endsWith(".tsv") ? '\t' : ',';
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int lonAt = line.lastIndexOf(separator);
+                int latAt = lonAt > 0 ? line.lastIndexOf(separator, lonAt - 1) : -1;
+                if (latAt <= 0) {
+                    builder.skipped++;
+                    continue;
+                }
+                try {
+                    double latitude = Double.parseDouble(line.substring(latAt + 1, lonAt).trim());
+                    double longitude = Double.parseDouble(line.substring(lonAt + 1).trim());
+                    builder.add(unquote(line.substring(0, latAt)), latitude, longitude);
+                } catch (NumberFormatException e) {
+                    builder.skipped++;
+                }
+            }
+        }
+        if (builder.skipped > 0) {
+            log.info("Gazetteer {}: skipped {} unreadable lines", file, builder.skipped);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return lat.length;
+    }
+
+    // Speicherbedarf der Arrays (ohne Objekt-Header)
+    public long estimatedBytes() {
+        return names.length + 4L * (offsets.length + lat.length + lon.length + table.length);
+    }
+
+    // exakter Treffer auf den normalisierten Namen, sonst -1
+    public int find(String normalized) {
+        if (table.length == 0) {
+            return -1;
+        }
+        byte[] key = normalized.getBytes(StandardCharsets.UTF_8);
+        int mask = table.length - 1;
+        for (int slot = hash(key, 0, key.length) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (Arrays.equals(names, offsets[entry], offsets[entry + 1], key, 0, key.length)) {
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    // Bereich [from, to) aller Eintraege, deren normalisierter Name mit prefix beginnt
+    public int[] prefixRange(String normalizedPrefix) {
+        byte[] prefix = normalizedPrefix.getBytes(StandardCharsets.UTF_8);
+        int from = lowerBound(prefix, false);
+        int to = lowerBound(prefix, true);
+        return new int[]{from, to};
+    }
+
+    public List<String> prefixMatches(String normalizedPrefix, int limit) {
+        int[] range = prefixRange(normalizedPrefix);
+        List<String> result = new ArrayList<>(Math.min(limit, range[1] - range[0]));
+        for (int i = range[0]; i < range[1] && result.size() < limit; i++) {
+            result.add(name(i));
+        }
+        return result;
+    }
+
+    public String name(int entry) {
+        return new String(names, offsets[entry], offsets[entry + 1] - offsets[entry], StandardCharsets.UTF_8);
+    }
+
+    public double lat(int entry) {
+        return lat[entry] / SCALE;
+    }
+
+    public double lon(int entry) {
+        return lon[entry] / SCALE;
+    }
+
+    // erster Eintrag >= prefix bzw. (pastPrefix) erster Eintrag hinter allen Namen, die mit prefix beginnen
+    private int lowerBound(byte[] prefix, boolean pastPrefix) {
+        int lo = 0;
+        int hi = size();
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (before(mid, prefix, pastPrefix)) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private boolean before(int entry, byte[] prefix, boolean pastPrefix) {
+        int start = offsets[entry];
+        int end = offsets[entry + 1];
+        if (Arrays.compareUnsigned(names, start, end, prefix, 0, prefix.length) < 0) {
+            return true;
+        }
+        return pastPrefix && end - start >= prefix.length
+                && Arrays.equals(names, start, start + prefix.length, prefix, 0, prefix.length);
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 0x811c9dc5;
+        for (int i = from; i < to; i++) {
+            h = (h ^ (bytes[i] & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private static String unquote(String name) {
+        String trimmed = name.trim();
+        if (trimmed.length() >= 2 && trimmed.charAt(0) == '"' && trimmed.charAt(trimmed.length() - 1) == '"') {
+            return trimmed.substring(1, trimmed.length() - 1).replace("\"\"", "\"");
+        }
+        return trimmed;
+    }
+
+    public static final class Builder {
+        private byte[] names;
+        private int[] offsets;
+        private int[] lat;
+        private int[] lon;
+        private int size;
+        private int nameBytes;
+        private long skipped;
+
+        public Builder(int expectedEntries) {
+            int capacity = Math.max(expectedEntries, 16);
+            names = new byte[capacity * 16];
+            offsets = new int[capacity + 1];
+            lat = new int[capacity];
+            lon = new int[capacity];
+        }
+
+        public Builder add(String name, double latitude, double longitude) {
+            byte[] key = GeocodingCache.normalize(name).getBytes(StandardCharsets.UTF_8);
+            if (key.length == 0) {
+                skipped++;
+                return this;
+            }
+            if (size == lat.length) {
+                int capacity = lat.length * 2;
+                offsets = Arrays.copyOf(offsets, capacity + 1);
+                lat = Arrays.copyOf(lat, capacity);
+                lon = Arrays.copyOf(lon, capacity);
+            }
+            if (nameBytes + key.length > names.length) {
+                names = Arrays.copyOf(names, Math.max(names.length * 2, nameBytes + key.length));
+            }
+            System.arraycopy(key, 0, names, nameBytes, key.length);
+            offsets[size] = nameBytes;
+            lat[size] = (int) Math.round(latitude * SCALE);
+            lon[size] = (int) Math.round(longitude * SCALE);
+            nameBytes += key.length;
+            size++;
+            return this;
+        }
+
+        // sortiert nach Name (stabil, bei Duplikaten gewinnt die erste Zeile der Datei) und baut die Hashtabelle
+        public GazetteerIndex build() {
+            offsets[size] = nameBytes;
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = i;
+            }
+            mergeSort(order, new int[size], 0, size);
+
+            byte[] sortedNames = new byte[nameBytes];
+            int[] sortedOffsets = new int[size + 1];
+            int[] sortedLat = new int[size];
+            int[] sortedLon = new int[size];
+            int position = 0;
+            for (int i = 0; i < size; i++) {
+                int entry = order[i];
+                int length = offsets[entry + 1] - offsets[entry];
+                System.arraycopy(names, offsets[entry], sortedNames, position, length);
+                sortedOffsets[i] = position;
+                sortedLat[i] = lat[entry];
+                sortedLon[i] = lon[entry];
+                position += length;
+            }
+            sortedOffsets[size] = position;
+
+            // Fuellgrad hoechstens 2/3
+            int[] table = new int[size == 0 ? 0 : Integer.highestOneBit(size + size / 2) << 1];
+            int mask = table.length - 1;
+            for (int i = 0; i < size; i++) {
+                // gleiche Namen liegen direkt hintereinander, nur der erste kommt in die Tabelle
+                if (i > 0 && Arrays.equals(sortedNames, sortedOffsets[i - 1], sortedOffsets[i], sortedNames, sortedOffsets[i], sortedOffsets[i + 1])) {
+                    continue;
+                }
+                int slot = hash(sortedNames, sortedOffsets[i], sortedOffsets[i + 1]) & mask;
+                while (table[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                table[slot] = i + 1;
+            }
+            return new GazetteerIndex(sortedNames, sortedOffsets, sortedLat, sortedLon, table);
+        }
+
+        private void mergeSort(int[] order, int[] buffer, int from, int to) {
+            if (to - from < 2) {
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            mergeSort(order, buffer, from, mid);
+            mergeSort(order, buffer, mid, to);
+            if (compare(order[mid - 1], order[mid]) <= 0) {
+                return;
+            }
+            System.arraycopy(order, from, buffer, from, to - from);
+            int left = from;
+            int right = mid;
+            for (int i = from; i < to; i++) {
+                if (right >= to || (left < mid && compare(buffer[left], buffer[right]) <= 0)) {
+                    order[i] = buffer[left++];
+                } else {
+                    order[i] = buffer[right++];
+                }
+            }
+        }
+
+        private int compare(int a, int b) {
+            return Arrays.compareUnsigned(names, offsets[a], offsets[a + 1], names, offsets[b], offsets[b + 1]);
+        }
+    }
+}
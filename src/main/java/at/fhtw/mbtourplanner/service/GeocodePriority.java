@@ -0,0 +1,7 @@
+package at.fhtw.mbtourplanner.service;
+
+// Warteschlangen des NominatimSchedulers: INTERACTIVE (Benutzer wartet) wird vor BULK (Import) bedient
+public enum GeocodePriority {
+    INTERACTIVE,
+    BULK
+}
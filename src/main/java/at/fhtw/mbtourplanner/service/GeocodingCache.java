@@ -0,0 +1,208 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.GeocodeCacheEntity;
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.regex.Pattern;
+
+// Zweistufiger Cache fuer Nominatim-Ergebnisse: normalisierte Adresse -> Koordinaten (LRU im Speicher, Tabelle geocode_cache)
+@Component
+@Slf4j
+public class GeocodingCache {
+    static final int MAX_KEY_LENGTH = 512;
+
+    private static final Pattern COMMA = Pattern.compile("\\s*,\\s*");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+    private static final Pattern EDGE_PUNCTUATION = Pattern.compile("^[\\s,.;]+|[\\s,.;]+$");
+
+    private final GeocodeCacheRepository repository;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Duration negativeTtl;
+    private final Clock clock;
+    private final Map<String, Entry> memory;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong databaseHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public GeocodingCache(GeocodeCacheRepository repository,
+                          @Value("${tours.geocoding.cache.max-entries:10000}") int maxEntries,
+                          @Value("${tours.geocoding.cache.ttl:30d}") Duration ttl,
+                          @Value("${tours.geocoding.cache.negative-ttl:1d}") Duration negativeTtl) {
+        this(repository, maxEntries, ttl, negativeTtl, Clock.systemUTC());
+    }
+
+    GeocodingCache(GeocodeCacheRepository repository, int maxEntries, Duration ttl, Duration negativeTtl, Clock clock) {
+        this.repository = repository;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.negativeTtl = negativeTtl;
+        this.clock = clock;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                if (size() > GeocodingCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Geocoding cache (maxEntries={}, ttl={}, negativeTtl={})", maxEntries, ttl, negativeTtl);
+    }
+
+    // "  Stephansplatz ,Wien. " und "stephansplatz, wien" ergeben denselben Schluessel
+    public static String normalize(String address) {
+        if (address == null) {
+            return "";
+        }
+        String key = Normalizer.normalize(address, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        key = COMMA.matcher(key).replaceAll(", ");
+        key = WHITESPACE.matcher(key).replaceAll(" ");
+        return EDGE_PUNCTUATION.matcher(key).replaceAll("");
+    }
+
+    public Entry get(String key) {
+        long now = clock.millis();
+
+        lock.lock();
+        try {
+            Entry cached = memory.get(key);
+            if (cached != null) {
+                if (!isExpired(cached, now)) {
+                    memoryHits.incrementAndGet();
+                    countNegative(cached);
+                    return cached;
+                }
+                memory.remove(key);
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        if (key.length() <= MAX_KEY_LENGTH) {
+            try {
+                var stored = repository.findById(key).orElse(null);
+                if (stored != null) {
+                    Entry entry = toEntry(stored);
+                    if (!isExpired(entry, now)) {
+                        databaseHits.incrementAndGet();
+                        countNegative(entry);
+                        remember(key, entry);
+                        return entry;
+                    }
+                    evictions.incrementAndGet();
+                }
+            } catch (DataAccessException e) {
+                log.warn("Could not read geocode cache entry '{}': {}", key, e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public Entry put(String key, double lat, double lon) {
+        return store(key, new Entry(lat, lon, true, clock.millis()));
+    }
+
+    public Entry putNotFound(String key) {
+        return store(key, new Entry(0.0, 0.0, false, clock.millis()));
+    }
+
+    public CacheStats stats() {
+        int size;
+        lock.lock();
+        try {
+            size = memory.size();
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats("geocoding",
+                memoryHits.get() + databaseHits.get(), misses.get(), evictions.get(), size);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDatabaseHits() {
+        return databaseHits.get();
+    }
+
+    public long getNegativeHits() {
+        return negativeHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private Entry store(String key, Entry entry) {
+        if (key.length() <= MAX_KEY_LENGTH) {
+            try {
+                repository.save(GeocodeCacheEntity.builder()
+                        .addressKey(key)
+                        .latitude(entry.found() ? entry.lat() : null)
+                        .longitude(entry.found() ? entry.lon() : null)
+                        .found(entry.found())
+                        .fetchedAt(Instant.ofEpochMilli(entry.fetchedAt()))
+                        .build());
+            } catch (DataAccessException e) {
+                // DB-Fehler sind nicht fatal, der Eintrag bleibt zumindest im Speicher
+                log.warn("Could not write geocode cache entry '{}': {}", key, e.getMessage());
+            }
+        }
+        remember(key, entry);
+        return entry;
+    }
+
+    private void remember(String key, Entry entry) {
+        lock.lock();
+        try {
+            memory.put(key, entry);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void countNegative(Entry entry) {
+        if (!entry.found()) {
+            negativeHits.incrementAndGet();
+        }
+    }
+
+    private boolean isExpired(Entry entry, long now) {
+        return now - entry.fetchedAt() > (entry.found() ? ttl : negativeTtl).toMillis();
+    }
+
+    private static Entry toEntry(GeocodeCacheEntity stored) {
+        boolean found = stored.isFound() && stored.getLatitude() != null && stored.getLongitude() != null;
+        return new Entry(found ? stored.getLatitude() : 0.0, found ? stored.getLongitude() : 0.0,
+                found, stored.getFetchedAt().toEpochMilli());
+    }
+
+    public record Entry(double lat, double lon, boolean found, long fetchedAt) {
+        public double[] coordinates() {
+            return new double[]{lat, lon};
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.Optional;
+
+// Lokale Quelle fuer Koordinaten; GeocodingService fragt alle Provider vor Cache und Nominatim
+public interface GeocodingProvider {
+
+    // [lat, lon] oder leer, wenn der Provider die Adresse nicht kennt
+    Optional<double[]> geocode(String address);
+}
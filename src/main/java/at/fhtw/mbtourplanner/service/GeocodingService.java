@@ -1,18 +1,100 @@
 package at.fhtw.mbtourplanner.service;
 
 import com.fasterxml.jackson.databind.JsonNode;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 public class GeocodingService {
-    private final WebClient webClient = WebClient.create("https://nominatim.openstreetmap.org");
+    private final WebClient webClient;
+    private final GeocodingCache cache;
+    private final NominatimScheduler scheduler;
+    private final List<GeocodingProvider> providers;
+
+    public GeocodingService(GeocodingCache cache, NominatimScheduler scheduler, String baseUrl) {
+        this(cache, scheduler, List.of(), baseUrl);
+    }
+
+    @Autowired
+    public GeocodingService(GeocodingCache cache,
+                            NominatimScheduler scheduler,
+                            List<GeocodingProvider> providers,
+                            @Value("${tours.geocoding.base-url:https://nominatim.openstreetmap.org}") String baseUrl) {
+        this.cache = cache;
+        this.scheduler = scheduler;
+        this.providers = List.copyOf(providers);
+        this.webClient = WebClient.create(baseUrl);
+    }
+
     public double[] geocode(String address) {
-        var response = webClient.get()
+        return geocode(address, GeocodePriority.INTERACTIVE);
+    }
+
+    public double[] geocode(String address, GeocodePriority priority) {
+        Optional<double[]> local = local(address);
+        if (local.isPresent()) {
+            return local.get();
+        }
+        String key = GeocodingCache.normalize(address);
+        GeocodingCache.Entry cached = cache.get(key);
+        if (cached != null) {
+            log.debug("Geocoding cache hit for '{}'", key);
+            return coordinatesOf(cached, address);
+        }
+        // block() statt join(), damit Fehler wie bisher ohne CompletionException ankommen
+        return Mono.fromFuture(request(key, address, priority)).block();
+    }
+
+    public Mono<double[]> geocodeAsync(String address) {
+        return geocodeAsync(address, GeocodePriority.INTERACTIVE);
+    }
+
+    // nicht-blockierend: Cache (liest ggf. die Tabelle) auf boundedElastic, der HTTP-Aufruf ueber den NominatimScheduler
+    public Mono<double[]> geocodeAsync(String address, GeocodePriority priority) {
+        Optional<double[]> local = local(address);
+        if (local.isPresent()) {
+            return Mono.just(local.get());
+        }
+        String key = GeocodingCache.normalize(address);
+        return Mono.fromCallable(() -> Optional.ofNullable(cache.get(key)))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(cached -> cached.isPresent()
+                        ? Mono.fromCallable(() -> coordinatesOf(cached.get(), address))
+                        // Future wird evtl. mit anderen Aufrufern geteilt und darf beim Abbruch nicht storniert werden
+                        : Mono.fromFuture(() -> request(key, address, priority), true));
+    }
+
+    // lokale Provider (Gazetteer) liegen im Speicher und brauchen weder Cache noch Drosselung
+    private Optional<double[]> local(String address) {
+        for (GeocodingProvider provider : providers) {
+            Optional<double[]> coordinates = provider.geocode(address);
+            if (coordinates.isPresent()) {
+                log.debug("Geocoded '{}' locally via {}", address, provider.getClass().getSimpleName());
+                return coordinates;
+            }
+        }
+        return Optional.empty();
+    }
+
+    private CompletableFuture<double[]> request(String key, String address, GeocodePriority priority) {
+        return scheduler.submit(key, priority, () -> search(address)
+                .defaultIfEmpty(new JsonNode[0])
+                .publishOn(Schedulers.boundedElastic())
+                .map(response -> store(key, address, response)));
+    }
+
+    private Mono<JsonNode[]> search(String address) {
+        return webClient.get()
                 .uri(uriBuilder -> uriBuilder
                         .path("/search")
                         .queryParam("format","json")
@@ -20,13 +102,22 @@ public class GeocodingService {
                         .queryParam("q", address)
                         .build())
                 .retrieve()
-                .bodyToMono(JsonNode[].class)
-                .block();
+                .bodyToMono(JsonNode[].class);
+    }
 
+    // leere Antwort = Adresse unbekannt, wird negativ gecacht; HTTP-Fehler werfen vorher und bleiben ungecacht
+    private double[] store(String key, String address, JsonNode[] response) {
+        if (response == null || response.length == 0) {
+            return coordinatesOf(cache.putNotFound(key), address);
+        }
         JsonNode first = response[0];
-        return new double[]{
-                first.get("lat").asDouble(),
-                first.get("lon").asDouble()
-        };
+        return cache.put(key, first.get("lat").asDouble(), first.get("lon").asDouble()).coordinates();
+    }
+
+    private static double[] coordinatesOf(GeocodingCache.Entry entry, String address) {
+        if (!entry.found()) {
+            throw new RuntimeException("No geocoding result for '" + address + "'");
+        }
+        return entry.coordinates();
     }
 }
@@ -0,0 +1,178 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Einfacher invertierter Index: Term -> sortierte int-Postings, Praefixsuche ueber ein sortiertes Woerterbuch
+public class InvertedIndex {
+    private final NavigableMap<String, Postings> terms = new TreeMap<>();
+    private final Map<Integer, String[]> documentTerms = new HashMap<>();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public void put(int docId, String... fields) {
+        String[] tokens = distinctTokens(fields);
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+            for (String token : tokens) {
+                terms.computeIfAbsent(token, t -> new Postings()).add(docId);
+            }
+            documentTerms.put(docId, tokens);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int docId) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(docId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Alle Query-Tokens muessen (als Praefix eines Terms) vorkommen; Ergebnis aufsteigend nach docId
+    public int[] search(String query, int limit) {
+        List<String> tokens = tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return new int[0];
+        }
+
+        lock.readLock().lock();
+        BitSet result = null;
+        try {
+            for (String token : tokens) {
+                BitSet matches = new BitSet();
+                for (Postings postings : terms.subMap(token, true, token + Character.MAX_VALUE, false).values()) {
+                    postings.addTo(matches);
+                }
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.and(matches);
+                }
+                if (result.isEmpty()) {
+                    return new int[0];
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        int[] ids = new int[Math.min(limit, result.cardinality())];
+        int n = 0;
+        for (int id = result.nextSetBit(0); id >= 0 && n < ids.length; id = result.nextSetBit(id + 1)) {
+            ids[n++] = id;
+        }
+        return ids;
+    }
+
+    public int[] documentIds() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.keySet().stream().mapToInt(Integer::intValue).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTerms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            terms.clear();
+            documentTerms.clear();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static List<String> tokenize(String text) {
+        if (text == null || text.isEmpty()) {
+            return List.of();
+        }
+        List<String> tokens = new ArrayList<>();
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    private void removeInternal(int docId) {
+        String[] previous = documentTerms.remove(docId);
+        if (previous == null) {
+            return;
+        }
+        for (String token : previous) {
+            Postings postings = terms.get(token);
+            if (postings != null && postings.remove(docId) && postings.size == 0) {
+                terms.remove(token);
+            }
+        }
+    }
+
+    private static String[] distinctTokens(String... fields) {
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String field : fields) {
+            tokens.addAll(tokenize(field));
+        }
+        return tokens.toArray(String[]::new);
+    }
+
+    // Sortierte int-Liste ohne Boxing; Einfuegen am Ende ist der Normalfall (aufsteigende IDs)
+    private static final class Postings {
+        private int[] ids = new int[2];
+        private int size;
+
+        void add(int id) {
+            int pos = size == 0 || ids[size - 1] < id ? size : Arrays.binarySearch(ids, 0, size, id);
+            if (pos >= 0 && pos < size) {
+                return;
+            }
+            int insertAt = pos < 0 ? -pos - 1 : pos;
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+            ids[insertAt] = id;
+            size++;
+        }
+
+        boolean remove(int id) {
+            int pos = Arrays.binarySearch(ids, 0, size, id);
+            if (pos < 0) {
+                return false;
+            }
+            System.arraycopy(ids, pos + 1, ids, pos, size - pos - 1);
+            size--;
+            return true;
+        }
+
+        void addTo(BitSet bits) {
+            for (int i = 0; i < size; i++) {
+                bits.set(ids[i]);
+            }
+        }
+    }
+}
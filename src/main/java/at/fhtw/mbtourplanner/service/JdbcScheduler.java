@@ -0,0 +1,46 @@
+package at.fhtw.mbtourplanner.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.Callable;
+
+// Blockierende JPA-Aufrufe der reaktiven API laufen hier, nie auf dem Netty-Eventloop.
+// Nicht mehr Threads als JDBC-Verbindungen, sonst warten die Threads nur auf den Pool
+@Component
+@Slf4j
+public class JdbcScheduler {
+    private final Scheduler scheduler;
+
+    public JdbcScheduler(@Value("${tours.reactive.jdbc-threads:10}") int threads,
+                         @Value("${tours.reactive.jdbc-queue:10000}") int queuedTasks) {
+        this.scheduler = Schedulers.newBoundedElastic(threads, queuedTasks, "tour-jdbc");
+        log.info("JDBC scheduler for reactive API (threads={}, queue={})", threads, queuedTasks);
+    }
+
+    public <T> Mono<T> call(Callable<T> work) {
+        return Mono.fromCallable(work).subscribeOn(scheduler);
+    }
+
+    public Mono<Void> run(Work work) {
+        return Mono.<Void>fromCallable(() -> {
+            work.run();
+            return null;
+        }).subscribeOn(scheduler);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.dispose();
+    }
+
+    @FunctionalInterface
+    public interface Work {
+        void run() throws Exception;
+    }
+}
@@ -0,0 +1,69 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Latenz-Histogramm mit festen Buckets (ms), lock-frei; Perzentile werden auf die Bucket-Obergrenze gerundet
+public class LatencyHistogram {
+    static final long[] BOUNDS_MILLIS = {5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000, 10000, 30000};
+
+    private final AtomicLongArray buckets = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong totalNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public void record(long nanos) {
+        long millis = TimeUnit.NANOSECONDS.toMillis(nanos);
+        int bucket = 0;
+        while (bucket < BOUNDS_MILLIS.length && millis > BOUNDS_MILLIS[bucket]) {
+            bucket++;
+        }
+        buckets.incrementAndGet(bucket);
+        count.incrementAndGet();
+        totalNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+
+    public double meanMillis() {
+        long n = count.get();
+        return n == 0 ? 0.0 : totalNanos.get() / 1e6 / n;
+    }
+
+    public double maxMillis() {
+        return maxNanos.get() / 1e6;
+    }
+
+    // Obergrenze des Buckets, in dem das q-Quantil liegt; im Ueberlauf-Bucket das gemessene Maximum
+    public double percentileMillis(double q) {
+        long n = count.get();
+        if (n == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(q * n);
+        long seen = 0;
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            seen += buckets.get(i);
+            if (seen >= rank) {
+                return Math.min(BOUNDS_MILLIS[i], maxMillis());
+            }
+        }
+        return maxMillis();
+    }
+
+    // "<=5ms" -> Anzahl, ..., ">30000ms" -> Anzahl
+    public Map<String, Long> buckets() {
+        Map<String, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < BOUNDS_MILLIS.length; i++) {
+            result.put("<=" + BOUNDS_MILLIS[i] + "ms", buckets.get(i));
+        }
+        result.put(">" + BOUNDS_MILLIS[BOUNDS_MILLIS.length - 1] + "ms", buckets.get(BOUNDS_MILLIS.length));
+        return result;
+    }
+}
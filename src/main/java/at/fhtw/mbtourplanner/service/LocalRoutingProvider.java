@@ -0,0 +1,116 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Routing auf einem lokalen Strassengraphen (tours.routing.graph-file). Wegpunkte werden auf den naechsten Knoten
+// innerhalb von max-snap-meters gezogen; liegt einer ausserhalb oder ist das Ziel unerreichbar, uebernimmt ORS
+@Component
+@Slf4j
+public class LocalRoutingProvider implements RoutingProvider {
+    // Genauigkeit 6: Gitterzellen von ca. 1,2 x 0,6 km fuer die Suche nach dem naechsten Knoten
+    private static final int SNAP_PRECISION = 6;
+
+    private final RoadGraph graph;
+    private final RoadGraphRouter router;
+    private final SpatialIndex nodes;
+    private final double maxSnapKm;
+    private final AtomicLong routed = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public LocalRoutingProvider(@Value("${tours.routing.graph-file:}") String file,
+                                @Value("${tours.routing.max-snap-meters:500}") double maxSnapMeters) {
+        this(load(file), maxSnapMeters);
+    }
+
+    LocalRoutingProvider(RoadGraph graph, double maxSnapMeters) {
+        this.graph = graph;
+        this.router = graph != null ? new RoadGraphRouter(graph) : null;
+        this.maxSnapKm = maxSnapMeters / 1000;
+        this.nodes = new SpatialIndex(SNAP_PRECISION);
+        if (graph != null) {
+            for (int node = 0; node < graph.nodeCount(); node++) {
+                nodes.put(node, graph.lat(node), graph.lon(node));
+            }
+        }
+    }
+
+    @Override
+    public Optional<RouteCache.Route> route(String profile, List<List<Double>> coords) {
+        if (graph == null || coords.size() < 2) {
+            return Optional.empty();
+        }
+        int[] waypoints = new int[coords.size()];
+        for (int i = 0; i < waypoints.length; i++) {
+            long[] nearest = nodes.nearest(coords.get(i).get(1), coords.get(i).get(0), maxSnapKm, 1);
+            if (nearest.length == 0) {
+                fallbacks.incrementAndGet();
+                log.debug("Waypoint {} is not covered by the local road graph", coords.get(i));
+                return Optional.empty();
+            }
+            waypoints[i] = (int) nearest[0];
+        }
+
+        RoutePath.Builder path = new RoutePath.Builder();
+        double meters = 0;
+        for (int i = 0; i + 1 < waypoints.length; i++) {
+            RoadGraphRouter.Path leg = router.route(waypoints[i], waypoints[i + 1]);
+            if (leg == null) {
+                fallbacks.incrementAndGet();
+                log.debug("No local route between {} and {}", coords.get(i), coords.get(i + 1));
+                return Optional.empty();
+            }
+            // Zwischenziele nicht doppelt aufnehmen
+            for (int k = i == 0 ? 0 : 1; k < leg.nodes().length; k++) {
+                path.add(graph.lat(leg.nodes()[k]), graph.lon(leg.nodes()[k]));
+            }
+            meters += leg.meters();
+        }
+        routed.incrementAndGet();
+        return Optional.of(new RouteCache.Route(meters, meters / (speedKmh(profile) / 3.6), PolyLineEncoder.encode(path.build())));
+    }
+
+    public long getRouted() {
+        return routed.get();
+    }
+
+    public long getFallbacks() {
+        return fallbacks.get();
+    }
+
+    // der Graph kennt nur Laengen: Reisezeit ueber eine feste Geschwindigkeit pro ORS-Profil
+    static double speedKmh(String profile) {
+        if (profile.startsWith("driving")) {
+            return 50;
+        }
+        if (profile.startsWith("cycling")) {
+            return 15;
+        }
+        return 5;
+    }
+
+    private static RoadGraph load(String file) {
+        if (file == null || file.isBlank()) {
+            return null;
+        }
+        long start = System.nanoTime();
+        try {
+            RoadGraph graph = RoadGraph.load(Path.of(file));
+            log.info("Road graph {} loaded: {} nodes, {} edges in {} ms, ~{} MB",
+                    file, graph.nodeCount(), graph.edgeCount(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    graph.estimatedBytes() / (1024 * 1024));
+            return graph;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load road graph " + file, e);
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package at.fhtw.mbtourplanner.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Drosselt Anfragen an Nominatim (Usage Policy: 1 req/s) mit einem Token-Bucket.
+// Gleiche Adressen in der Warteschlange oder in Bearbeitung werden zu einer Anfrage zusammengefasst,
+// INTERACTIVE wird vor BULK abgearbeitet. Ein einzelner Dispatcher-Thread startet die Anfragen.
+@Component
+@Slf4j
+public class NominatimScheduler {
+    private static final long DEFAULT_RETRY_AFTER_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final long nanosPerToken;
+    private final int burst;
+    private final Duration requestTimeout;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final ArrayDeque<Request> interactive = new ArrayDeque<>();
+    private final ArrayDeque<Request> bulk = new ArrayDeque<>();
+    private final Map<String, Request> pending = new HashMap<>();
+    private final Thread dispatcher;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong throttled = new AtomicLong();
+
+    // nur vom Dispatcher-Thread benutzt
+    private double tokens;
+    private long lastRefill;
+    private volatile long pausedUntil;
+    private volatile boolean running = true;
+
+    // ratePerSecond <= 0 schaltet die Drosselung ab (Tests, eigener Nominatim-Server).
+    // requestTimeout begrenzt jede Anfrage, sonst bliebe der Schluessel bei einer haengenden Verbindung fuer immer in pending
+    public NominatimScheduler(@Value("${tours.geocoding.rate-limit:1}") double ratePerSecond,
+                              @Value("${tours.geocoding.burst:1}") int burst,
+                              @Value("${tours.geocoding.request-timeout:10s}") Duration requestTimeout,
+                              WorkerThreads workerThreads) {
+        this.nanosPerToken = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+        this.burst = Math.max(burst, 1);
+        this.requestTimeout = requestTimeout;
+        this.tokens = this.burst;
+        this.lastRefill = System.nanoTime();
+        this.dispatcher = workerThreads.factory("nominatim-dispatcher-").newThread(this::dispatch);
+        this.dispatcher.start();
+        log.info("Nominatim scheduler (rate={}/s, burst={}, timeout={})", ratePerSecond, this.burst, requestTimeout);
+    }
+
+    // call startet die eigentliche Anfrage und wird erst aufgerufen, wenn ein Token frei ist
+    public CompletableFuture<double[]> submit(String key, GeocodePriority priority, Supplier<Mono<double[]>> call) {
+        lock.lock();
+        try {
+            Request existing = pending.get(key);
+            if (existing != null) {
+                coalesced.incrementAndGet();
+                // wartende BULK-Anfrage zusaetzlich in die INTERACTIVE-Schlange stellen, der Dispatcher ueberspringt Duplikate
+                if (priority == GeocodePriority.INTERACTIVE && existing.priority == GeocodePriority.BULK && !existing.started) {
+                    existing.priority = GeocodePriority.INTERACTIVE;
+                    interactive.add(existing);
+                }
+                return existing.future;
+            }
+            Request request = new Request(key, priority, call);
+            pending.put(key, request);
+            (priority == GeocodePriority.INTERACTIVE ? interactive : bulk).add(request);
+            notEmpty.signal();
+            return request.future;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    public long getThrottled() {
+        return throttled.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        dispatcher.interrupt();
+    }
+
+    private void dispatch() {
+        while (running) {
+            try {
+                awaitWork();
+                awaitToken();
+                Request request = next();
+                if (request != null) {
+                    start(request);
+                } else if (nanosPerToken > 0) {
+                    // nur bereits gestartete Duplikate in der Schlange: Token zurueckgeben
+                    tokens += 1;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        failPending();
+    }
+
+    private void awaitWork() throws InterruptedException {
+        lock.lock();
+        try {
+            while (interactive.isEmpty() && bulk.isEmpty()) {
+                notEmpty.await();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Prioritaet erst nach dem Warten auf das Token entscheiden, damit spaete INTERACTIVE-Anfragen noch vorziehen
+    private Request next() {
+        lock.lock();
+        try {
+            Request request;
+            while ((request = interactive.poll()) != null || (request = bulk.poll()) != null) {
+                if (!request.started) {
+                    request.started = true;
+                    return request;
+                }
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void awaitToken() throws InterruptedException {
+        long pause = pausedUntil - System.nanoTime();
+        if (pause > 0) {
+            TimeUnit.NANOSECONDS.sleep(pause);
+        }
+        if (nanosPerToken == 0) {
+            return;
+        }
+        while (true) {
+            long now = System.nanoTime();
+            tokens = Math.min(burst, tokens + (double) (now - lastRefill) / nanosPerToken);
+            lastRefill = now;
+            if (tokens >= 1) {
+                tokens -= 1;
+                return;
+            }
+            TimeUnit.NANOSECONDS.sleep((long) ((1 - tokens) * nanosPerToken));
+        }
+    }
+
+    private void start(Request request) {
+        requests.incrementAndGet();
+        try {
+            request.call.get().timeout(requestTimeout).subscribe(
+                    result -> finish(request, result, null),
+                    error -> {
+                        onError(error);
+                        finish(request, null, error);
+                    },
+                    () -> finish(request, null, new IllegalStateException("Empty Nominatim response for '" + request.key + "'")));
+        } catch (RuntimeException e) {
+            finish(request, null, e);
+        }
+    }
+
+    // erst austragen, dann abschliessen: spaetere Aufrufer starten eine neue Anfrage statt ein fertiges Future zu teilen
+    private void finish(Request request, double[] result, Throwable error) {
+        lock.lock();
+        try {
+            pending.remove(request.key, request);
+        } finally {
+            lock.unlock();
+        }
+        if (error != null) {
+            request.future.completeExceptionally(error);
+        } else {
+            request.future.complete(result);
+        }
+    }
+
+    // 429: der Server gibt vor, wie lange wir warten sollen; bis dahin startet der Dispatcher nichts
+    private void onError(Throwable error) {
+        if (error instanceof WebClientResponseException response && response.getStatusCode().value() == 429) {
+            throttled.incrementAndGet();
+            long retryAfter = DEFAULT_RETRY_AFTER_NANOS;
+            String header = response.getHeaders().getFirst("Retry-After");
+            if (header != null) {
+                try {
+                    retryAfter = TimeUnit.SECONDS.toNanos(Long.parseLong(header.trim()));
+                } catch (NumberFormatException ignored) {
+                    // HTTP-Datum statt Sekunden: Standardpause
+                }
+            }
+            pausedUntil = System.nanoTime() + retryAfter;
+            log.warn("Nominatim rate limit hit, pausing for {} ms", TimeUnit.NANOSECONDS.toMillis(retryAfter));
+        }
+    }
+
+    private void failPending() {
+        lock.lock();
+        try {
+            IllegalStateException stopped = new IllegalStateException("Nominatim scheduler stopped");
+            pending.values().forEach(request -> {
+                if (!request.started) {
+                    request.future.completeExceptionally(stopped);
+                }
+            });
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Request {
+        private final String key;
+        private final Supplier<Mono<double[]>> call;
+        private final CompletableFuture<double[]> future = new CompletableFuture<>();
+        // nur unter lock gelesen und geschrieben
+        private GeocodePriority priority;
+        private boolean started;
+
+        private Request(String key, GeocodePriority priority, Supplier<Mono<double[]>> call) {
+            this.key = key;
+            this.priority = priority;
+            this.call = call;
+        }
+    }
+}
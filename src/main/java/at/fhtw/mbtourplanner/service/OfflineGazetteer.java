@@ -0,0 +1,90 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Ortsverzeichnis aus einer lokalen CSV/TSV-Datei (name, lat, lon), wird vor Nominatim gefragt.
+// Ohne tours.gazetteer.file bleibt der Index leer und jede Adresse geht wie bisher an Nominatim
+@Component
+@Slf4j
+public class OfflineGazetteer implements GeocodingProvider {
+    private final GazetteerIndex index;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public OfflineGazetteer(@Value("${tours.gazetteer.file:}") String file) {
+        this(load(file));
+    }
+
+    OfflineGazetteer(GazetteerIndex index) {
+        this.index = index;
+    }
+
+    // exakter Treffer, sonst ein eindeutiger Name mit Zusatz nach dem Suchbegriff ("wien" -> "wien, oesterreich").
+    // Der Praefix muss an einer Wortgrenze enden: "wien" ist nicht "wiener neustadt", "baden" nicht "baden-baden"
+    @Override
+    public Optional<double[]> geocode(String address) {
+        String key = GeocodingCache.normalize(address);
+        if (key.isEmpty() || index.size() == 0) {
+            return Optional.empty();
+        }
+        int entry = index.find(key);
+        if (entry < 0) {
+            entry = qualifiedMatch(key);
+        }
+        if (entry < 0) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(new double[]{index.lat(entry), index.lon(entry)});
+    }
+
+    // normalize() schreibt Kommas als ", ", ein Zusatz folgt also immer auf ',' oder ' '
+    private int qualifiedMatch(String key) {
+        int[] comma = index.prefixRange(key + ",");
+        int[] space = index.prefixRange(key + " ");
+        int commaCount = comma[1] - comma[0];
+        int spaceCount = space[1] - space[0];
+        if (commaCount + spaceCount != 1) {
+            return -1;
+        }
+        return commaCount == 1 ? comma[0] : space[0];
+    }
+
+    public int size() {
+        return index.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    private static GazetteerIndex load(String file) {
+        if (file == null || file.isBlank()) {
+            return GazetteerIndex.EMPTY;
+        }
+        long start = System.nanoTime();
+        try {
+            GazetteerIndex index = GazetteerIndex.load(Path.of(file));
+            log.info("Gazetteer {} loaded: {} entries in {} ms, ~{} MB",
+                    file, index.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start),
+                    index.estimatedBytes() / (1024 * 1024));
+            return index;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not load gazetteer " + file, e);
+        }
+    }
+}
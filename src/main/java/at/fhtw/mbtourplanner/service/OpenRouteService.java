@@ -1,25 +1,45 @@
 package at.fhtw.mbtourplanner.service;
 
-import com.fasterxml.jackson.databind.JsonNode;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Service
 @Slf4j
 public class OpenRouteService {
+    // Laenge der Spalte route_image_url
+    static final int MAX_STATIC_MAP_URL_LENGTH = 8192;
+
     private final WebClient webClient;
+    private final RouteCache routeCache;
+    private final List<RoutingProvider> providers;
+
+    public OpenRouteService(WebClient.Builder builder, RouteCache routeCache, String baseUrl, String apiKey) {
+        this(builder, routeCache, List.of(), baseUrl, apiKey);
+    }
 
+    @Autowired
     public OpenRouteService(WebClient.Builder builder,
+                            RouteCache routeCache,
+                            List<RoutingProvider> providers,
                             @Value("${tours.ors-base-url}") String baseUrl,
                             @Value("${tours.ors-api-key}") String apiKey) {
+        this.routeCache = routeCache;
+        this.providers = List.copyOf(providers);
         this.webClient = builder
                 .baseUrl(baseUrl)
                 .defaultHeader("Authorization", apiKey)
@@ -27,67 +47,116 @@ public class OpenRouteService {
     }
 
     public Map<String, Object> getRouteInfo(String profile, List<List<Double>> coords) {
-        log.info("ORS request for profile={} coords={}", profile, coords);
-        Map<String, Object> body = Map.of("coordinates", coords);
-
-        JsonNode root = webClient.post()
-                .uri("/" + profile + "/geojson")
-                .bodyValue(body)
-                .retrieve()
-                .bodyToMono(JsonNode.class)
-                .block();
-
-        JsonNode features = root.path("features").get(0);
-
-        JsonNode summary = features.path("properties").path("summary");
-        double distance = summary.path("distance").asDouble();
-        double duration = summary.path("duration").asDouble();
+        Optional<RouteCache.Route> local = local(profile, coords);
+        if (local.isPresent()) {
+            return toRouteInfo(local.get());
+        }
+        return toRouteInfo(routeCache.getOrLoad(profile, coords, () -> {
+            RouteCache.Route route = requestRoute(profile, coords).block();
+            if (route == null) {
+                throw new IllegalStateException("Empty ORS response for profile " + profile);
+            }
+            return route;
+        }));
+    }
 
-        List<List<Double>> line = new ArrayList<>();
+    // nicht-blockierende Variante fuer die reaktive API, teilt Cache und Single-Flight mit getRouteInfo
+    public Mono<Map<String, Object>> getRouteInfoAsync(String profile, List<List<Double>> coords) {
+        return Mono.defer(() -> local(profile, coords)
+                        .map(Mono::just)
+                        .orElseGet(() -> routeCache.getOrLoadAsync(profile, coords, () -> requestRoute(profile, coords)
+                                .switchIfEmpty(Mono.error(() -> new IllegalStateException("Empty ORS response for profile " + profile))))))
+                .map(OpenRouteService::toRouteInfo);
+    }
 
-        for(JsonNode coord : features.path("geometry").path("coordinates")) {
-            line.add(List.of(coord.get(1).asDouble(), coord.get(0).asDouble()));
+    // lokale Provider rechnen im Speicher und brauchen den Cache nicht
+    private Optional<RouteCache.Route> local(String profile, List<List<Double>> coords) {
+        for (RoutingProvider provider : providers) {
+            Optional<RouteCache.Route> route = provider.route(profile, coords);
+            if (route.isPresent()) {
+                log.debug("Routed {} locally via {}", coords, provider.getClass().getSimpleName());
+                return route;
+            }
         }
+        return Optional.empty();
+    }
 
-        log.info("ORS response: distance={} duration={} line={}", distance, duration, line);
+    private static Map<String, Object> toRouteInfo(RouteCache.Route route) {
+        return Map.of("distance", route.distance(),
+                       "duration", route.duration(),
+                       "route", PolyLineEncoder.decode(route.polyline()),
+                       "geometry", route.polyline());
+    }
 
-        return Map.of("distance", distance,
-                       "duration", duration,
-                       "route", line);
+    private Mono<RouteCache.Route> requestRoute(String profile, List<List<Double>> coords) {
+        log.info("ORS request for profile={} coords={}", profile, coords);
+        Map<String, Object> body = Map.of("coordinates", coords);
 
+        // Body als DataBuffer einsammeln und direkt streamend parsen, ohne String oder JsonNode-Baum
+        return DataBufferUtils.join(webClient.post()
+                        .uri("/" + profile + "/geojson")
+                        .bodyValue(body)
+                        .retrieve()
+                        .bodyToFlux(DataBuffer.class))
+                .map(OpenRouteService::parseRoute)
+                .map(route -> {
+                    log.info("ORS response: distance={} duration={} points={}", route.distance(), route.duration(), route.path().size());
+                    return new RouteCache.Route(route.distance(), route.duration(), PolyLineEncoder.encode(route.path()));
+                });
     }
 
-    public String getStaticRouteMapUrl(List<List<Double>> route, int width, int height, int zoom) {
-        double avgLat = route.stream().mapToDouble(pt -> pt.get(0)).average().orElse(0);
-        double avgLon = route.stream().mapToDouble(pt -> pt.get(1)).average().orElse(0);
+    private static OrsRouteParser.Result parseRoute(DataBuffer buffer) {
+        try (InputStream in = buffer.asInputStream(true)) {
+            return OrsRouteParser.parse(in);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not parse ORS response", e);
+        }
+    }
 
-        String rawPolyline = PolyLineEncoder.encode(route);
-        String encodedPolyline = URLEncoder.encode(rawPolyline, StandardCharsets.UTF_8);
+    // Polyline auf Zoom-Aufloesung vereinfacht; passt die URL dann noch nicht in route_image_url,
+    // wird die Toleranz verdoppelt, bis sie passt (Start und Ziel bleiben immer erhalten)
+    public String getStaticRouteMapUrl(RoutePath route, int width, int height, int zoom) {
+        double sumLat = 0, sumLon = 0;
+        for (int i = 0; i < route.size(); i++) {
+            sumLat += route.lat(i);
+            sumLon += route.lon(i);
+        }
+        double avgLat = route.isEmpty() ? 0 : sumLat / route.size();
+        double avgLon = route.isEmpty() ? 0 : sumLon / route.size();
 
         StringBuilder sb = new StringBuilder("https://openstreetmap.de");
         sb.append("?size=").append(width).append("x").append(height);
         sb.append("&center=").append(avgLat).append(",").append(avgLon);
         sb.append("&zoom=").append(zoom);
 
-        List<Double> start = route.get(0);
-        List<Double> end   = route.get(route.size() - 1);
+        int last = route.size() - 1;
         sb.append("&markers=")
-                .append(start.get(0)).append(",").append(start.get(1)).append(",blue1|")
-                .append(end.get(0)).append(",").append(end.get(1)).append(",red1");
-
-        sb.append("&path=enc:").append(encodedPolyline);
-
-        return sb.toString();
+                .append(route.lat(0)).append(",").append(route.lon(0)).append(",blue1|")
+                .append(route.lat(last)).append(",").append(route.lon(last)).append(",red1");
+
+        sb.append("&path=enc:");
+
+        int budget = MAX_STATIC_MAP_URL_LENGTH - sb.length();
+        RoutePath simplified;
+        String encodedPolyline;
+        double pixels = 1;
+        do {
+            simplified = RouteSimplifier.forZoom(route, zoom, pixels);
+            encodedPolyline = URLEncoder.encode(PolyLineEncoder.encode(simplified), StandardCharsets.UTF_8);
+            pixels *= 2;
+        } while (encodedPolyline.length() > budget && simplified.size() > 2);
+        log.debug("Static map path: {} of {} points, {} chars", simplified.size(), route.size(), encodedPolyline.length());
+
+        return sb.append(encodedPolyline).toString();
     }
 
     public String buildStaticMapUrl(
-            List<List<Double>> route,
+            RoutePath route,
             int width, int height,
             int zoom
     ) {
-        List<Double> start = route.get(0);
-        List<Double> end = route.get(route.size() - 1);
-        String routeParam = start.get(0) + "," + start.get(1) + ";" + end.get(0) + "," + end.get(1);
+        int last = route.size() - 1;
+        String routeParam = route.lat(0) + "," + route.lon(0) + ";" + route.lat(last) + "," + route.lon(last);
         String encodedParam = URLEncoder.encode(routeParam, StandardCharsets.UTF_8);
         return "https://www.openstreetmap.org/directions?engine=fossgis_osrm_foot&route=" + encodedParam;
     }
@@ -0,0 +1,111 @@
+package at.fhtw.mbtourplanner.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.io.NumberInput;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Liest eine ORS-GeoJSON-Antwort tokenweise: nur features[0].properties.summary und geometry.coordinates,
+// alles andere (segments, steps, metadata) wird uebersprungen, ohne einen JsonNode-Baum aufzubauen
+public final class OrsRouteParser {
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private OrsRouteParser() {
+    }
+
+    public static Result parse(InputStream in) throws IOException {
+        try (JsonParser parser = JSON.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IOException("ORS response is not a JSON object");
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String field = parser.currentName();
+                JsonToken value = parser.nextToken();
+                if ("features".equals(field) && value == JsonToken.START_ARRAY) {
+                    if (parser.nextToken() != JsonToken.START_OBJECT) {
+                        break;
+                    }
+                    // weitere Features (Alternativrouten) werden nicht gelesen
+                    return parseFeature(parser);
+                }
+                parser.skipChildren();
+            }
+            throw new IOException("ORS response contains no route");
+        }
+    }
+
+    private static Result parseFeature(JsonParser parser) throws IOException {
+        double distance = 0;
+        double duration = 0;
+        RoutePath path = RoutePath.EMPTY;
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if ("properties".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String property = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_OBJECT && "summary".equals(property)) {
+                        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                            String key = parser.currentName();
+                            parser.nextToken();
+                            if ("distance".equals(key)) {
+                                distance = readDouble(parser);
+                            } else if ("duration".equals(key)) {
+                                duration = readDouble(parser);
+                            } else {
+                                parser.skipChildren();
+                            }
+                        }
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else if ("geometry".equals(field) && value == JsonToken.START_OBJECT) {
+                while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                    String key = parser.currentName();
+                    if (parser.nextToken() == JsonToken.START_ARRAY && "coordinates".equals(key)) {
+                        path = parseCoordinates(parser);
+                    } else {
+                        parser.skipChildren();
+                    }
+                }
+            } else {
+                parser.skipChildren();
+            }
+        }
+        return new Result(distance, duration, path);
+    }
+
+    // GeoJSON-Positionen sind [lon, lat] oder [lon, lat, elevation]
+    private static RoutePath parseCoordinates(JsonParser parser) throws IOException {
+        RoutePath.Builder path = new RoutePath.Builder(256);
+        while (parser.nextToken() == JsonToken.START_ARRAY) {
+            parser.nextToken();
+            double lon = readDouble(parser);
+            parser.nextToken();
+            double lat = readDouble(parser);
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                parser.skipChildren();
+            }
+            path.add(lat, lon);
+        }
+        return path.build();
+    }
+
+    // Zahl direkt aus dem Zeichenpuffer des Parsers lesen; getValueAsDouble() legt pro Wert einen String an
+    private static double readDouble(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NUMBER_FLOAT || token == JsonToken.VALUE_NUMBER_INT) {
+            return NumberInput.parseDouble(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength(), true);
+        }
+        return parser.getValueAsDouble();
+    }
+
+    // Distanz in Metern, Dauer in Sekunden
+    public record Result(double distance, double duration, RoutePath path) {
+    }
+}
@@ -0,0 +1,116 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+
+@Service
+@Slf4j
+public class OsmTileService {
+    private final TileCache tileCache;
+    private final String tileTemplate;
+    private final int maxConcurrentPerHost;
+    private final Duration requestTimeout;
+    private final HttpClient httpClient;
+    private final Map<String, Semaphore> hostPermits = new ConcurrentHashMap<>();
+
+    public OsmTileService(TileCache tileCache,
+                          @Value("${tours.osm-tile-template:https://tile.openstreetmap.org/{z}/{x}/{y}.png}") String tileTemplate,
+                          @Value("${tours.osm-tile.max-concurrency-per-host:2}") int maxConcurrentPerHost,
+                          @Value("${tours.osm-tile.timeout:10s}") Duration requestTimeout) {
+        this.tileCache = tileCache;
+        this.tileTemplate = tileTemplate;
+        this.maxConcurrentPerHost = maxConcurrentPerHost;
+        this.requestTimeout = requestTimeout;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(requestTimeout)
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .build();
+    }
+
+    public BufferedImage getTile(int zoom, int x, int y) throws IOException, InterruptedException {
+        BufferedImage cached = tileCache.get(zoom, x, y);
+        if (cached != null) {
+            log.debug("Tile cache hit for {}/{}/{}", zoom, x, y);
+            return cached;
+        }
+        return tileCache.put(zoom, x, y, downloadTile(zoom, x, y));
+    }
+
+    // Laedt ein Raster von Tiles parallel; fehlgeschlagene Tiles bleiben null, damit der Report trotzdem entsteht
+    public BufferedImage[][] getTiles(int zoom, int minX, int minY, int width, int height) throws InterruptedException {
+        BufferedImage[][] tiles = new BufferedImage[width][height];
+        List<Future<BufferedImage>> futures = new ArrayList<>(width * height);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    int tileX = minX + x;
+                    int tileY = minY + y;
+                    futures.add(executor.submit(() -> getTile(zoom, tileX, tileY)));
+                }
+            }
+
+            int failed = 0;
+            for (int i = 0; i < futures.size(); i++) {
+                int x = i / height;
+                int y = i % height;
+                try {
+                    tiles[x][y] = futures.get(i).get();
+                } catch (ExecutionException e) {
+                    failed++;
+                    log.warn("Tile {}/{}/{} unavailable: {}", zoom, minX + x, minY + y, e.getCause().getMessage());
+                }
+            }
+            log.debug("Fetched {}x{} tile grid at zoom {} ({} failed)", width, height, zoom, failed);
+        }
+        return tiles;
+    }
+
+    private byte[] downloadTile(int zoom, int x, int y) throws IOException, InterruptedException {
+        String url = tileTemplate
+                .replace("{z}", String.valueOf(zoom))
+                .replace("{x}", String.valueOf(x))
+                .replace("{y}", String.valueOf(y));
+        URI uri = URI.create(url);
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(uri)
+                .timeout(requestTimeout)
+                .header("User-Agent", "mbtourplanner/1.0 (barisenyer@gmail.com)")
+                .build();
+
+        // OSM Tile Usage Policy: nur wenige gleichzeitige Verbindungen pro Host
+        Semaphore permits = hostPermits.computeIfAbsent(uri.getHost(), host -> new Semaphore(maxConcurrentPerHost));
+        permits.acquire();
+        HttpResponse<byte[]> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        } finally {
+            permits.release();
+        }
+
+        if (response.statusCode() != 200) {
+            throw new IOException("Failed to download tile: " + url + " (HTTP " + response.statusCode() + ")");
+        }
+        log.debug("Downloaded tile {} ({} bytes)", url, response.body().length);
+        return response.body();
+    }
+}
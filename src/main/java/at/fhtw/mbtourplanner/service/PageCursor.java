@@ -0,0 +1,27 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Opaker Cursor fuer Keyset-Paging: Sortierung, letzter Sortwert und letzte id, Base64url-kodiert
+public record PageCursor(String sort, String value, long id) {
+
+    public String encode() {
+        String raw = sort + "|" + value + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return new PageCursor(parts[0], parts[1], Long.parseLong(parts[2]));
+        } catch (IllegalArgumentException e) {
+            // NumberFormatException und Base64-Fehler sind ebenfalls IllegalArgumentExceptions
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
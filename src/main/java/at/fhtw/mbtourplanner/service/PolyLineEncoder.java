@@ -1,15 +1,13 @@
 package at.fhtw.mbtourplanner.service;
 
-import java.util.List;
-
 public class PolyLineEncoder {
-    public static String encode(List<List<Double>> path) {
-        StringBuilder result = new StringBuilder();
+    public static String encode(RoutePath path) {
+        StringBuilder result = new StringBuilder(path.size() * 8);
         long prevLat = 0, prevLon = 0;
 
-        for (List<Double> point : path) {
-            long lat = Math.round(point.get(0) * 1e5);
-            long lon = Math.round(point.get(1) * 1e5);
+        for (int i = 0; i < path.size(); i++) {
+            long lat = Math.round(path.lat(i) * 1e5);
+            long lon = Math.round(path.lon(i) * 1e5);
             long dLat = lat - prevLat;
             long dLon = lon - prevLon;
             encodeSignedNumber(dLat, result);
@@ -21,6 +19,38 @@ public class PolyLineEncoder {
         return result.toString();
     }
 
+    public static RoutePath decode(String polyline) {
+        if (polyline == null || polyline.isEmpty()) {
+            return RoutePath.EMPTY;
+        }
+        // grobe Schaetzung: ca. 8 Zeichen pro Punkt
+        RoutePath.Builder path = new RoutePath.Builder(polyline.length() / 8 + 1);
+        int index = 0, len = polyline.length();
+        long lat = 0, lon = 0;
+        while (index < len) {
+            long result = 0;
+            int shift = 0, b;
+            do {
+                b = polyline.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lat += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            result = 0;
+            shift = 0;
+            do {
+                b = polyline.charAt(index++) - 63;
+                result |= (long) (b & 0x1f) << shift;
+                shift += 5;
+            } while (b >= 0x20);
+            lon += (result & 1) != 0 ? ~(result >> 1) : (result >> 1);
+
+            path.add(lat / 1e5, lon / 1e5);
+        }
+        return path.build();
+    }
+
     private static void encodeSignedNumber(long num, StringBuilder sb) {
         long sgnNum = (num < 0) ? ~(num << 1) : (num << 1);
         encodeUnsignedNumber(sgnNum, sb);
@@ -33,4 +63,4 @@ public class PolyLineEncoder {
         }
         sb.append((char) (num + 63));
     }
-}
\ No newline at end of file
+}
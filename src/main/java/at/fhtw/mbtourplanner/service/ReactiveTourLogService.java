@@ -0,0 +1,40 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.CursorPage;
+import at.fhtw.mbtourplanner.model.TourLog;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Tour-Logs brauchen keine externen Dienste; die reaktive Variante verlagert nur die JPA-Aufrufe
+@Service
+@RequiredArgsConstructor
+public class ReactiveTourLogService {
+    private final TourLogService tourLogService;
+    private final JdbcScheduler jdbc;
+
+    public Mono<CursorPage<TourLog>> getLogPage(Long tourId, String cursor, int size) {
+        return jdbc.call(() -> tourLogService.getLogPage(tourId, cursor, size));
+    }
+
+    public Mono<TourLog> getLog(Long tourId, Long logId) {
+        return jdbc.call(() -> tourLogService.getLog(tourId, logId));
+    }
+
+    public Mono<TourLog> addLog(Long tourId, TourLog tourLog) {
+        return jdbc.call(() -> tourLogService.addLog(tourId, tourLog));
+    }
+
+    public Mono<TourLog> updateLog(Long tourId, Long logId, TourLog tourLog) {
+        return jdbc.call(() -> tourLogService.updateLog(tourId, logId, tourLog));
+    }
+
+    public Mono<Void> deleteLog(Long tourId, Long logId) {
+        return jdbc.run(() -> tourLogService.deleteLog(tourId, logId));
+    }
+
+    public Flux<TourLog> searchLogs(Long tourId, String q) {
+        return jdbc.call(() -> tourLogService.searchLogs(tourId, q)).flatMapIterable(logs -> logs);
+    }
+}
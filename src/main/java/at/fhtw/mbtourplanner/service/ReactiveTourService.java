@@ -0,0 +1,70 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.CursorPage;
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.model.Tour;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// Reaktive Variante von TourService: Nominatim und ORS ohne block(), JPA auf dem JdbcScheduler
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveTourService {
+    private final TourService tourService;
+    private final TourRepository tourRepository;
+    private final TourMapper tourMapper;
+    private final SearchIndexService searchIndexService;
+    private final JdbcScheduler jdbc;
+    private final SpatialIndexService spatialIndexService;
+
+    public Mono<CursorPage<Tour>> getTourPage(String sortProperty, boolean descending, String cursor, int size) {
+        return jdbc.call(() -> tourService.getTourPage(sortProperty, descending, cursor, size));
+    }
+
+    public Mono<Tour> getTourById(Long id) {
+        return jdbc.call(() -> tourService.getTourById(id));
+    }
+
+    public Flux<Tour> searchTours(String q, int page, int size) {
+        return jdbc.call(() -> tourService.searchTours(q, page, size)).flatMapIterable(tours -> tours);
+    }
+
+    public Mono<Tour> addTour(Tour tour) {
+        return Mono.fromCallable(() -> tourService.toNewEntity(tour))
+                .doOnNext(entity -> log.info("Adding new tour (reactive): {}", entity.getName()))
+                .flatMap(tourService::enrichAsync)
+                .flatMap(entity -> jdbc.call(() -> {
+                    entity.setEnrichmentStatus(EnrichmentStatus.DONE);
+                    var saved = tourRepository.save(entity);
+                    searchIndexService.indexTour(saved);
+                    spatialIndexService.indexTour(saved);
+                    return tourMapper.toDto(saved);
+                }));
+    }
+
+    public Mono<Tour> updateTour(Long id, Tour tour) {
+        return jdbc.call(() -> tourRepository.findById(id).orElseThrow(() -> new RuntimeException("Tour not found")))
+                .flatMap(existing -> TourService.applyUpdate(existing, tour)
+                        ? tourService.enrichAsync(existing).doOnNext(enriched -> {
+                            enriched.setEnrichmentStatus(EnrichmentStatus.DONE);
+                            enriched.setEnrichmentError(null);
+                        })
+                        : Mono.just(existing))
+                .flatMap(existing -> jdbc.call(() -> {
+                    var saved = tourService.saveEdited(existing);
+                    searchIndexService.indexTour(saved);
+                    spatialIndexService.indexTour(saved);
+                    return tourMapper.toDto(saved);
+                }));
+    }
+
+    public Mono<Void> deleteTour(Long id) {
+        return jdbc.run(() -> tourService.deleteTour(id));
+    }
+}
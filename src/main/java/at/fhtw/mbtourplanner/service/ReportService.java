@@ -1,9 +1,11 @@
 package at.fhtw.mbtourplanner.service;
 
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import at.fhtw.mbtourplanner.model.Tour;
 import at.fhtw.mbtourplanner.model.TourLog;
 import at.fhtw.mbtourplanner.repository.TourRepository;
 import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLogSummary;
 import com.itextpdf.io.font.constants.StandardFonts;
 import com.itextpdf.io.image.ImageData;
 import com.itextpdf.io.image.ImageDataFactory;
@@ -29,15 +31,11 @@ import java.awt.*;
 import java.awt.image.BufferedImage;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.net.URI;
+import java.io.OutputStream;
 import java.net.URL;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
 
 @Service
@@ -48,8 +46,21 @@ public class ReportService {
     private final TourLogService tourLogService;
     private final TourRepository tourRepository;
     private final OpenRouteService openRouteService;
+    private final OsmTileService osmTileService;
+
+    private static final int FLUSH_EVERY_ROWS = 100;
+
+    public record TourReport(Tour tour, TourEntity entity, RoutePath routeCoords, List<TourLog> logs) {
+    }
 
     public byte[] generateTourReportPDF(Long tourId) throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeTourReportPDF(loadTourReport(tourId), outputStream);
+        return outputStream.toByteArray();
+    }
+
+    // Laedt alle Daten vorab, damit Fehler (z.B. unbekannte Tour) auftreten, bevor der Response-Stream beginnt
+    public TourReport loadTourReport(Long tourId) throws Exception {
         log.info("Starting generation of tour report PDF for tourId={}", tourId);
         Tour tour = tourService.getTourById(tourId);
 
@@ -58,34 +69,29 @@ public class ReportService {
         }
 
 
-        var routeInfo = openRouteService.getRouteInfo("foot-walking",
-                List.of(
-                        List.of(tour.getFromLon(), tour.getFromLat()),
-                        List.of(tour.getToLon(), tour.getToLat())
-                ));
-
-        List<List<Double>> coords = (List<List<Double>>) routeInfo.get("route");
-
-        List<double[]> routeCoords = new ArrayList<>();
-
-        for(List<Double> coord : coords) {
-            routeCoords.add(new double[]{coord.get(0), coord.get(1)});
-        }
-
+        TourEntity entity = tourRepository.findById(tourId)
+                .orElseThrow(() -> new SQLException("Tour not found with ID: " + tourId));
+        RoutePath routeCoords = loadRouteCoords(entity);
 
         List<TourLog> tourlogs = tourLogService.getLogsForTour(tourId);
         log.debug("Fetched tour: {} with {} logs", tour, tourlogs.size());
+        return new TourReport(tour, entity, routeCoords, tourlogs);
+    }
+
+    public void writeTourReportPDF(TourReport report, OutputStream outputStream) throws Exception {
+        Tour tour = report.tour();
+        TourEntity entity = report.entity();
+        RoutePath routeCoords = report.routeCoords();
+        List<TourLog> tourlogs = report.logs();
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
         PdfDocument pdfDocument = new PdfDocument(writer);
         Document document = new Document(pdfDocument);
 
         document.setMargins(20, 20, 20, 20);
 
         // Image
-        TourEntity entity = tourRepository.findById(tourId)
-                .orElseThrow(() -> new SQLException("Tour not found with ID: " + tourId));
         byte[] imgData = getStitchedOSMTiles(
                 entity.getFromLat(), entity.getFromLon(),
                 entity.getToLat(), entity.getToLon(),
@@ -162,7 +168,7 @@ public class ReportService {
                 .setMarginTop(10);
         document.add(subtitle);
 
-        Table table = new Table(UnitValue.createPercentArray(new float[]{2, 4, 2, 2, 2, 2}))
+        Table table = new Table(UnitValue.createPercentArray(new float[]{2, 4, 2, 2, 2, 2}), true)
                 .useAllAvailableWidth();
 
         // Header
@@ -174,8 +180,11 @@ public class ReportService {
                     .setPadding(4));
         }
 
+        document.add(table);
+
         // Content
         DateTimeFormatter dtf = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+        int rows = 0;
         for (TourLog l : tourlogs) {
             table.addCell(new Cell()
                     .add(new Paragraph(l.getLogDateTime().format(dtf)))
@@ -194,22 +203,29 @@ public class ReportService {
                     .setPadding(3));
             table.addCell(new Cell().add(new Paragraph(String.valueOf(l.getRating()))).setPadding(3));
 
-
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                table.flush();
+            }
         }
 
-        document.add(table);
-        log.info("Generated tour report PDF for tourId={} ({} bytes)", tourId, outputStream.size());
+        table.complete();
         document.close();
-        return outputStream.toByteArray();
+        log.info("Generated tour report PDF for tourId={} ({} bytes)", tour.getId(), writer.getCurrentPos());
     }
 
     public byte[] generateSummaryReportPDF() throws Exception {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        writeSummaryReportPDF(outputStream);
+        return outputStream.toByteArray();
+    }
+
+    public void writeSummaryReportPDF(OutputStream outputStream) throws Exception {
         log.info("Starting generation of summary report PDF");
-        List<Tour> tours = tourService.getAllTours();
-        log.debug("Fetched {} tours for summary report", tours.size());
+        List<TourLogSummary> summaries = tourLogService.getTourLogSummaries();
+        log.debug("Fetched {} tour summaries for summary report", summaries.size());
 
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
         PdfWriter writer = new PdfWriter(outputStream);
+        writer.setCloseStream(false);
         PdfDocument pdfDocument = new PdfDocument(writer);
         Document document = new Document(pdfDocument);
 
@@ -221,26 +237,24 @@ public class ReportService {
         document.add(title);
         document.add(new Paragraph("\n"));
 
-        Table table = new Table(UnitValue.createPercentArray(new float[]{4, 4, 4, 4}))
+        // Large Table: fertige Zeilen werden laufend auf die Seiten geschrieben statt bis zum Ende gepuffert
+        Table table = new Table(UnitValue.createPercentArray(new float[]{4, 4, 4, 4}), true)
                 .useAllAvailableWidth();
 
         // Header
         for (String h : List.of("Tourname", "Average Time", "Average Distance", "Average Rating")){
             table.addHeaderCell(new Cell().add(new Paragraph(h)));
         }
+        document.add(table);
 
         // Rows
-        for (Tour tour : tours) {
-            List<TourLog> logs = tourLogService.getLogsForTour(tour.getId());
-
-            double avgDistance = logs.stream().mapToDouble(TourLog::getTotalDistance).average().orElse(0);
-            double avgRating = logs.stream().mapToDouble(TourLog::getRating).average().orElse(0);
-
-            long avgTimeMinutes = (long) logs.stream()
-                .mapToLong(log -> log.getTotalTime().toMinutes())
-                .average()
-                .orElse(0);
-            Duration avgTime = Duration.ofMinutes(avgTimeMinutes);
+        int rows = 0;
+        for (TourLogSummary summary : summaries) {
+            double avgDistance = summary.averageDistance() != null ? summary.averageDistance() : 0;
+            double avgRating = summary.averageRating() != null ? summary.averageRating() : 0;
+            Duration avgTime = Duration.ofSeconds(summary.averageTimeSeconds() != null
+                    ? Math.round(summary.averageTimeSeconds())
+                    : 0);
 
             String avgTimeFormatted = String.format("%02d:%02d:%02d",
                 avgTime.toHours(),
@@ -248,44 +262,62 @@ public class ReportService {
                 avgTime.toSecondsPart()
             );
 
-            table.addCell(new Cell().add(new Paragraph(tour.getName())));
+            table.addCell(new Cell().add(new Paragraph(summary.tourName())));
             table.addCell(new Cell().add(new Paragraph(avgTimeFormatted)));
             table.addCell(new Cell().add(new Paragraph(String.format("%.2f", avgDistance))));
             table.addCell(new Cell().add(new Paragraph(String.format("%.2f", avgRating))));
+
+            if (++rows % FLUSH_EVERY_ROWS == 0) {
+                table.flush();
+            }
         }
 
-        document.add(table);
-        log.info("Generated summary report PDF ({} bytes)", outputStream.size());
+        table.complete();
         document.close();
-        return outputStream.toByteArray();
+        log.info("Generated summary report PDF ({} bytes)", writer.getCurrentPos());
     }
 
-    private BufferedImage downloadTile(int zoom, int x, int y) throws IOException, InterruptedException {
-        String url = String.format("https://tile.openstreetmap.org/%d/%d/%d.png", zoom, x, y);
-        HttpClient client = HttpClient.newHttpClient();
-        HttpRequest request = HttpRequest.newBuilder()
-                .uri(URI.create(url))
-                .header("User-Agent", "mbtourplanner/1.0 (barisenyer@gmail.com)")
-                .build();
-        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
-        if (response.statusCode() != 200) {
-            throw new IOException("Failed to download tile: " + url + " (HTTP " + response.statusCode() + ")");
+    // Gespeicherte Geometrie verwenden; nur Touren ohne Geometrie (Altbestand) fragen ORS einmalig an
+    private RoutePath loadRouteCoords(TourEntity entity) {
+        if (entity.getRouteGeometry() != null && !entity.getRouteGeometry().isEmpty()) {
+            return PolyLineEncoder.decode(entity.getRouteGeometry());
         }
-        return ImageIO.read(new java.io.ByteArrayInputStream(response.body()));
-    }
+        // noch nicht angereichert: Koordinaten stehen auf 0,0, eine ORS-Anfrage waere sinnlos
+        if (entity.getEnrichmentStatus() != EnrichmentStatus.DONE) {
+            log.info("Tour id={} is not enriched yet ({}), drawing start and destination only", entity.getId(), entity.getEnrichmentStatus());
+            return RoutePath.of(entity.getFromLat(), entity.getFromLon(), entity.getToLat(), entity.getToLon());
+        }
+
+        log.info("Tour id={} has no stored route geometry, requesting it from ORS", entity.getId());
+        var routeInfo = openRouteService.getRouteInfo(TourService.ROUTE_PROFILE,
+                List.of(
+                        List.of(entity.getFromLon(), entity.getFromLat()),
+                        List.of(entity.getToLon(), entity.getToLat())
+                ));
 
+        RoutePath route = (RoutePath) routeInfo.get("route");
+        // ORS ohne Geometrie: nur Start und Ziel zeichnen, nichts speichern
+        if (route == null || route.isEmpty()) {
+            log.warn("ORS returned no route geometry for tour id={}, drawing start and destination only", entity.getId());
+            return RoutePath.of(entity.getFromLat(), entity.getFromLon(), entity.getToLat(), entity.getToLon());
+        }
+        RoutePath routeCoords = RouteSimplifier.forStorage(route);
+        entity.setRouteGeometry(PolyLineEncoder.encode(routeCoords));
+        tourRepository.updateRouteGeometry(entity.getId(), entity.getRouteGeometry());
+        return routeCoords;
+    }
 
-    private byte[] getStitchedOSMTiles(double fromLat, double fromLon, double toLat, double toLon, List<double[]> routeCoords) throws IOException, InterruptedException {
+    private byte[] getStitchedOSMTiles(double fromLat, double fromLon, double toLat, double toLon, RoutePath routeCoords) throws IOException, InterruptedException {
         int zoom = 14;
         int tileSize = 256;
 
         double minLat = Double.MAX_VALUE, maxLat = -Double.MAX_VALUE;
         double minLon = Double.MAX_VALUE, maxLon = -Double.MAX_VALUE;
-        for (double[] coord : routeCoords) {
-            minLat = Math.min(minLat, coord[0]);
-            maxLat = Math.max(maxLat, coord[0]);
-            minLon = Math.min(minLon, coord[1]);
-            maxLon = Math.max(maxLon, coord[1]);
+        for (int i = 0; i < routeCoords.size(); i++) {
+            minLat = Math.min(minLat, routeCoords.lat(i));
+            maxLat = Math.max(maxLat, routeCoords.lat(i));
+            minLon = Math.min(minLon, routeCoords.lon(i));
+            maxLon = Math.max(maxLon, routeCoords.lon(i));
         }
 
         int[] minTile = latLonToTileXY(minLat, minLon, zoom);
@@ -301,17 +333,24 @@ public class ReportService {
 
         BufferedImage stitched = new BufferedImage(tileWidth * tileSize, tileHeight * tileSize, BufferedImage.TYPE_INT_RGB);
         Graphics g = stitched.getGraphics();
+        g.setColor(Color.LIGHT_GRAY);
+        g.fillRect(0, 0, stitched.getWidth(), stitched.getHeight());
 
+        BufferedImage[][] tiles = osmTileService.getTiles(zoom, minX, minY, tileWidth, tileHeight);
         for (int x = 0; x < tileWidth; x++) {
             for (int y = 0; y < tileHeight; y++) {
-                BufferedImage tile = downloadTile(zoom, minX + x, minY + y);
-                g.drawImage(tile, x * tileSize, y * tileSize, null);
+                if (tiles[x][y] != null) {
+                    g.drawImage(tiles[x][y], x * tileSize, y * tileSize, null);
+                }
             }
         }
         g.dispose();
 
         if (routeCoords != null && !routeCoords.isEmpty()) {
-            drawRouteOnImage(stitched, routeCoords, zoom, minX, minY, tileSize);
+            // Abweichungen unter einem halben Pixel sind bei 4px Strichbreite unsichtbar
+            RoutePath visible = RouteSimplifier.forZoom(routeCoords, zoom, 0.5);
+            log.debug("Drawing {} of {} route points at zoom {}", visible.size(), routeCoords.size(), zoom);
+            drawRouteOnImage(stitched, visible, zoom, minX, minY, tileSize);
         }
 
         ByteArrayOutputStream baos = new ByteArrayOutputStream();
@@ -320,63 +359,34 @@ public class ReportService {
     }
 
     private int[] latLonToTileXY(double lat, double lon, int zoom) {
-        int x = (int) Math.floor((lon + 180) / 360 * (1 << zoom));
-        int y = (int) Math.floor((1 - Math.log(Math.tan(Math.toRadians(lat)) + 1 / Math.cos(Math.toRadians(lat))) / Math.PI) / 2 * (1 << zoom));
-        return new int[]{x, y};
+        return new int[]{(int) Math.floor(tileX(lon, zoom)), (int) Math.floor(tileY(lat, zoom))};
+    }
+
+    private static double tileX(double lon, int zoom) {
+        return (lon + 180) / 360 * (1 << zoom);
     }
 
-    private Point latLonToPixel(double lat, double lon, int zoom, int minX, int minY, int tileSize) {
-        double x = (lon + 180) / 360 * (1 << zoom);
-        double y = (1 - Math.log(Math.tan(Math.toRadians(lat)) + 1 / Math.cos(Math.toRadians(lat))) / Math.PI) / 2 * (1 << zoom);
-        int pixelX = (int) Math.round((x - minX) * tileSize);
-        int pixelY = (int) Math.round((y - minY) * tileSize);
-        return new Point(pixelX, pixelY);
+    private static double tileY(double lat, int zoom) {
+        return (1 - Math.log(Math.tan(Math.toRadians(lat)) + 1 / Math.cos(Math.toRadians(lat))) / Math.PI) / 2 * (1 << zoom);
     }
 
-    private void drawRouteOnImage(BufferedImage image, List<double[]> routeCoords, int zoom, int minX, int minY, int tileSize) {
+    // Pixel direkt berechnen statt einen Point pro Routenpunkt anzulegen
+    static void drawRouteOnImage(BufferedImage image, RoutePath routeCoords, int zoom, int minX, int minY, int tileSize) {
         Graphics2D g2 = image.createGraphics();
         g2.setColor(Color.BLUE);
         g2.setStroke(new BasicStroke(4f, BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
-        Point prev = null;
-        for (double[] coord : routeCoords) {
-            Point p = latLonToPixel(coord[0], coord[1], zoom, minX, minY, tileSize);
-            if (prev != null) {
-                g2.drawLine(prev.x, prev.y, p.x, p.y);
+        int prevX = 0, prevY = 0;
+        for (int i = 0; i < routeCoords.size(); i++) {
+            int x = (int) Math.round((tileX(routeCoords.lon(i), zoom) - minX) * tileSize);
+            int y = (int) Math.round((tileY(routeCoords.lat(i), zoom) - minY) * tileSize);
+            if (i > 0) {
+                g2.drawLine(prevX, prevY, x, y);
             }
-            prev = p;
+            prevX = x;
+            prevY = y;
         }
         g2.dispose();
     }
 
-    private List<double[]> decodePolyline(String polyline) {
-        List<double[]> coords = new java.util.ArrayList<>();
-        int index = 0, len = polyline.length();
-        int lat = 0, lng = 0;
-
-        while (index < len) {
-            int b, shift = 0, result = 0;
-            do {
-                b = polyline.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            int dlat = ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
-            lat += dlat;
-
-            shift = 0;
-            result = 0;
-            do {
-                b = polyline.charAt(index++) - 63;
-                result |= (b & 0x1f) << shift;
-                shift += 5;
-            } while (b >= 0x20);
-            int dlng = ((result & 1) != 0 ? ~(result >> 1) : (result >> 1));
-            lng += dlng;
-
-            coords.add(new double[]{lat / 1E5, lng / 1E5});
-        }
-        return coords;
-    }
-
 
 }
@@ -0,0 +1,218 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+// Unveraenderlicher Strassengraph im CSR-Format (Compressed Sparse Row): Kanten nach Startknoten sortiert in
+// primitiven Arrays, firstEdge[v]..firstEdge[v+1] sind die ausgehenden Kanten von v. Fuer die Rueckwaertssuche
+// gibt es dieselbe Struktur fuer eingehende Kanten. Koordinaten als int (1e-7 Grad), Laengen in Metern
+public final class RoadGraph {
+    private static final double SCALE = 1e7;
+
+    private final int[] lat;
+    private final int[] lon;
+    private final int[] firstEdge;
+    private final int[] edgeTarget;
+    private final float[] edgeLength;
+    private final int[] firstInEdge;
+    private final int[] inEdgeSource;
+    private final float[] inEdgeLength;
+
+    private RoadGraph(int[] lat, int[] lon, int[] firstEdge, int[] edgeTarget, float[] edgeLength,
+                      int[] firstInEdge, int[] inEdgeSource, float[] inEdgeLength) {
+        this.lat = lat;
+        this.lon = lon;
+        this.firstEdge = firstEdge;
+        this.edgeTarget = edgeTarget;
+        this.edgeLength = edgeLength;
+        this.firstInEdge = firstInEdge;
+        this.inEdgeSource = inEdgeSource;
+        this.inEdgeLength = inEdgeLength;
+    }
+
+    // Textformat angelehnt an DIMACS: "c ..." Kommentar, "v <id> <lat> <lon>" Knoten,
+    // "a <von> <nach> [meter]" Einbahn, "e <von> <nach> [meter]" beide Richtungen. Ohne Laenge gilt die Luftlinie
+    public static RoadGraph load(Path file) throws IOException {
+        Builder builder = new Builder(1 << 12, 1 << 13);
+        Map<Long, Integer> nodes = new HashMap<>();
+        int lineNumber = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                String[] parts = line.trim().split("\\s+");
+                if (parts[0].isEmpty() || parts[0].equals("c")) {
+                    continue;
+                }
+                try {
+                    switch (parts[0]) {
+                        case "v" -> {
+                            int node = builder.addNode(Double.parseDouble(parts[2]), Double.parseDouble(parts[3]));
+                            if (nodes.putIfAbsent(Long.parseLong(parts[1]), node) != null) {
+                                throw new IllegalArgumentException("duplicate node " + parts[1]);
+                            }
+                        }
+                        case "a", "e" -> {
+                            int from = node(nodes, parts[1]);
+                            int to = node(nodes, parts[2]);
+                            double meters = parts.length > 3 ? Double.parseDouble(parts[3]) : -1;
+                            builder.addEdge(from, to, meters);
+                            if (parts[0].equals("e")) {
+                                builder.addEdge(to, from, meters);
+                            }
+                        }
+                        default -> throw new IllegalArgumentException("unknown record type " + parts[0]);
+                    }
+                } catch (RuntimeException e) {
+                    throw new IllegalArgumentException("Invalid road graph " + file + " line " + lineNumber + ": " + e.getMessage(), e);
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    public int nodeCount() {
+        return lat.length;
+    }
+
+    public int edgeCount() {
+        return edgeTarget.length;
+    }
+
+    public long estimatedBytes() {
+        return 4L * (2L * lat.length + firstEdge.length + firstInEdge.length) + 8L * (edgeTarget.length + inEdgeSource.length);
+    }
+
+    public double lat(int node) {
+        return lat[node] / SCALE;
+    }
+
+    public double lon(int node) {
+        return lon[node] / SCALE;
+    }
+
+    int firstEdge(int node) {
+        return firstEdge[node];
+    }
+
+    int edgeEnd(int node) {
+        return firstEdge[node + 1];
+    }
+
+    int edgeTarget(int edge) {
+        return edgeTarget[edge];
+    }
+
+    float edgeLength(int edge) {
+        return edgeLength[edge];
+    }
+
+    int firstInEdge(int node) {
+        return firstInEdge[node];
+    }
+
+    int inEdgeEnd(int node) {
+        return firstInEdge[node + 1];
+    }
+
+    int inEdgeSource(int edge) {
+        return inEdgeSource[edge];
+    }
+
+    float inEdgeLength(int edge) {
+        return inEdgeLength[edge];
+    }
+
+    private static int node(Map<Long, Integer> nodes, String id) {
+        Integer node = nodes.get(Long.parseLong(id));
+        if (node == null) {
+            throw new IllegalArgumentException("unknown node " + id);
+        }
+        return node;
+    }
+
+    public static final class Builder {
+        private int[] lat;
+        private int[] lon;
+        private int nodes;
+        private int[] from;
+        private int[] to;
+        private float[] length;
+        private int edges;
+
+        public Builder(int expectedNodes, int expectedEdges) {
+            lat = new int[Math.max(expectedNodes, 16)];
+            lon = new int[lat.length];
+            from = new int[Math.max(expectedEdges, 16)];
+            to = new int[from.length];
+            length = new float[from.length];
+        }
+
+        public int addNode(double latitude, double longitude) {
+            if (!(latitude >= -90 && latitude <= 90) || !(longitude >= -180 && longitude <= 180)) {
+                throw new IllegalArgumentException("coordinates out of range: " + latitude + ", " + longitude);
+            }
+            if (nodes == lat.length) {
+                lat = Arrays.copyOf(lat, nodes * 2);
+                lon = Arrays.copyOf(lon, nodes * 2);
+            }
+            lat[nodes] = (int) Math.round(latitude * SCALE);
+            lon[nodes] = (int) Math.round(longitude * SCALE);
+            return nodes++;
+        }
+
+        // A* braucht Kanten, die nie kuerzer als die Luftlinie sind; kuerzere Angaben werden angehoben
+        public Builder addEdge(int source, int target, double meters) {
+            if (source < 0 || source >= nodes || target < 0 || target >= nodes) {
+                throw new IllegalArgumentException("edge " + source + " -> " + target + " references unknown node");
+            }
+            if (edges == from.length) {
+                from = Arrays.copyOf(from, edges * 2);
+                to = Arrays.copyOf(to, edges * 2);
+                length = Arrays.copyOf(length, edges * 2);
+            }
+            double straight = SpatialIndex.distanceKm(lat[source] / SCALE, lon[source] / SCALE, lat[target] / SCALE, lon[target] / SCALE) * 1000;
+            from[edges] = source;
+            to[edges] = target;
+            length[edges] = Math.nextUp((float) Math.max(meters, straight));
+            edges++;
+            return this;
+        }
+
+        // Counting Sort nach Start- bzw. Zielknoten, O(Knoten + Kanten)
+        public RoadGraph build() {
+            int[] firstEdge = new int[nodes + 1];
+            int[] edgeTarget = new int[edges];
+            float[] edgeLength = new float[edges];
+            int[] firstInEdge = new int[nodes + 1];
+            int[] inEdgeSource = new int[edges];
+            float[] inEdgeLength = new float[edges];
+            for (int e = 0; e < edges; e++) {
+                firstEdge[from[e] + 1]++;
+                firstInEdge[to[e] + 1]++;
+            }
+            for (int v = 0; v < nodes; v++) {
+                firstEdge[v + 1] += firstEdge[v];
+                firstInEdge[v + 1] += firstInEdge[v];
+            }
+            int[] out = Arrays.copyOf(firstEdge, nodes);
+            int[] in = Arrays.copyOf(firstInEdge, nodes);
+            for (int e = 0; e < edges; e++) {
+                int o = out[from[e]]++;
+                edgeTarget[o] = to[e];
+                edgeLength[o] = length[e];
+                int i = in[to[e]]++;
+                inEdgeSource[i] = from[e];
+                inEdgeLength[i] = length[e];
+            }
+            return new RoadGraph(Arrays.copyOf(lat, nodes), Arrays.copyOf(lon, nodes),
+                    firstEdge, edgeTarget, edgeLength, firstInEdge, inEdgeSource, inEdgeLength);
+        }
+    }
+}
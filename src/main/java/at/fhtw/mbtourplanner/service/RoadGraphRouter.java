@@ -0,0 +1,251 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+// Bidirektionaler A* mit gemitteltem Potential p(v) = (h(v, ziel) - h(v, start)) / 2, h = Luftlinie.
+// Vorwaerts- und Rueckwaertssuche laufen auf den reduzierten Gewichten l(v, w) - p(v) + p(w) >= 0 wie ein
+// bidirektionaler Dijkstra und stoppen, sobald die beiden kleinsten Schluessel zusammen den besten Treffpunkt erreichen.
+// Suchzustaende liegen in einem Pool statt in ThreadLocals (virtuelle Threads) und werden ueber Versionsnummern
+// statt Arrays.fill zurueckgesetzt
+public final class RoadGraphRouter {
+    private final RoadGraph graph;
+    private final Queue<SearchState> states = new ConcurrentLinkedQueue<>();
+
+    public RoadGraphRouter(RoadGraph graph) {
+        this.graph = graph;
+    }
+
+    // Knotenfolge und Laenge in Metern; null, wenn target von source aus nicht erreichbar ist
+    public Path route(int source, int target) {
+        if (source == target) {
+            return new Path(new int[]{source}, 0, 0);
+        }
+        SearchState s = states.poll();
+        if (s == null) {
+            s = new SearchState(graph);
+        }
+        try {
+            return search(s, source, target);
+        } finally {
+            states.offer(s);
+        }
+    }
+
+    private Path search(SearchState s, int source, int target) {
+        s.reset(source, target);
+        s.forward.relax(source, 0, -1);
+        s.backward.relax(target, 0, -1);
+
+        double best = Double.POSITIVE_INFINITY;
+        int meet = -1;
+        int settled = 0;
+        while (!s.forward.heap.isEmpty() && !s.backward.heap.isEmpty()) {
+            double topForward = s.forward.heap.peekKey();
+            double topBackward = s.backward.heap.peekKey();
+            if (topForward + topBackward >= best) {
+                break;
+            }
+            boolean forward = topForward <= topBackward;
+            Direction active = forward ? s.forward : s.backward;
+            Direction other = forward ? s.backward : s.forward;
+            double key = active.heap.peekKey();
+            int v = active.heap.pop();
+            if (key > active.dist(v)) {
+                // veralteter Heap-Eintrag
+                continue;
+            }
+            settled++;
+            double pv = s.potential(v);
+            int end = forward ? graph.edgeEnd(v) : graph.inEdgeEnd(v);
+            for (int e = forward ? graph.firstEdge(v) : graph.firstInEdge(v); e < end; e++) {
+                int w = forward ? graph.edgeTarget(e) : graph.inEdgeSource(e);
+                double length = forward ? graph.edgeLength(e) : graph.inEdgeLength(e);
+                // rueckwaerts ist das Potential -p, daher dasselbe Vorzeichen umgekehrt
+                double reduced = forward ? length - pv + s.potential(w) : length + pv - s.potential(w);
+                double candidate = key + Math.max(reduced, 0);
+                if (candidate < active.dist(w)) {
+                    active.relax(w, candidate, v);
+                    double total = candidate + other.dist(w);
+                    if (total < best) {
+                        best = total;
+                        meet = w;
+                    }
+                }
+            }
+        }
+        return meet < 0 ? null : s.path(meet, settled);
+    }
+
+    public record Path(int[] nodes, double meters, int settled) {
+    }
+
+    private static final class SearchState {
+        private final RoadGraph graph;
+        private final Direction forward;
+        private final Direction backward;
+        private final double[] potential;
+        private final int[] potentialVersion;
+        private int version;
+        private int source;
+        private int target;
+
+        private SearchState(RoadGraph graph) {
+            this.graph = graph;
+            forward = new Direction(graph.nodeCount());
+            backward = new Direction(graph.nodeCount());
+            potential = new double[graph.nodeCount()];
+            potentialVersion = new int[graph.nodeCount()];
+        }
+
+        private void reset(int source, int target) {
+            version++;
+            forward.reset(version);
+            backward.reset(version);
+            this.source = source;
+            this.target = target;
+        }
+
+        private double potential(int v) {
+            if (potentialVersion[v] != version) {
+                potentialVersion[v] = version;
+                potential[v] = (distanceMeters(v, target) - distanceMeters(v, source)) / 2;
+            }
+            return potential[v];
+        }
+
+        private double distanceMeters(int a, int b) {
+            return SpatialIndex.distanceKm(graph.lat(a), graph.lon(a), graph.lat(b), graph.lon(b)) * 1000;
+        }
+
+        private Path path(int meet, int settled) {
+            int forwardLength = 0;
+            for (int v = meet; v >= 0; v = forward.parent[v]) {
+                forwardLength++;
+            }
+            int backwardLength = 0;
+            for (int v = backward.parent[meet]; v >= 0; v = backward.parent[v]) {
+                backwardLength++;
+            }
+            int[] nodes = new int[forwardLength + backwardLength];
+            int i = forwardLength - 1;
+            for (int v = meet; v >= 0; v = forward.parent[v]) {
+                nodes[i--] = v;
+            }
+            i = forwardLength;
+            for (int v = backward.parent[meet]; v >= 0; v = backward.parent[v]) {
+                nodes[i++] = v;
+            }
+            // echte Laenge aus den Kanten, nicht aus den reduzierten Schluesseln
+            double meters = 0;
+            for (int k = 0; k + 1 < nodes.length; k++) {
+                meters += shortestEdge(nodes[k], nodes[k + 1]);
+            }
+            return new Path(nodes, meters, settled);
+        }
+
+        private double shortestEdge(int from, int to) {
+            double shortest = Double.POSITIVE_INFINITY;
+            for (int e = graph.firstEdge(from); e < graph.edgeEnd(from); e++) {
+                if (graph.edgeTarget(e) == to) {
+                    shortest = Math.min(shortest, graph.edgeLength(e));
+                }
+            }
+            return shortest;
+        }
+    }
+
+    private static final class Direction {
+        private final double[] dist;
+        private final int[] parent;
+        private final int[] seen;
+        private final MinHeap heap = new MinHeap();
+        private int version;
+
+        private Direction(int nodes) {
+            dist = new double[nodes];
+            parent = new int[nodes];
+            seen = new int[nodes];
+        }
+
+        private void reset(int version) {
+            this.version = version;
+            heap.clear();
+        }
+
+        private double dist(int v) {
+            return seen[v] == version ? dist[v] : Double.POSITIVE_INFINITY;
+        }
+
+        private void relax(int v, double distance, int from) {
+            seen[v] = version;
+            dist[v] = distance;
+            parent[v] = from;
+            heap.push(distance, v);
+        }
+    }
+
+    // Binaerer Min-Heap auf primitiven Arrays; Schluessel werden nicht verringert, sondern neu eingefuegt
+    private static final class MinHeap {
+        private double[] keys = new double[64];
+        private int[] values = new int[64];
+        private int size;
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+
+        private double peekKey() {
+            return keys[0];
+        }
+
+        private void push(double key, int value) {
+            if (size == keys.length) {
+                keys = Arrays.copyOf(keys, size * 2);
+                values = Arrays.copyOf(values, size * 2);
+            }
+            int i = size++;
+            while (i > 0) {
+                int parent = (i - 1) >>> 1;
+                if (keys[parent] <= key) {
+                    break;
+                }
+                keys[i] = keys[parent];
+                values[i] = values[parent];
+                i = parent;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+        private int pop() {
+            int top = values[0];
+            double key = keys[--size];
+            int value = values[size];
+            int i = 0;
+            while (true) {
+                int child = 2 * i + 1;
+                if (child >= size) {
+                    break;
+                }
+                if (child + 1 < size && keys[child + 1] < keys[child]) {
+                    child++;
+                }
+                if (keys[child] >= key) {
+                    break;
+                }
+                keys[i] = keys[child];
+                values[i] = values[child];
+                i = child;
+            }
+            keys[i] = key;
+            values[i] = value;
+            return top;
+        }
+    }
+}
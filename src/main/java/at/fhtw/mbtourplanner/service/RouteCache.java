@@ -0,0 +1,216 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// LRU-Cache fuer ORS-Routen, begrenzt ueber die geschaetzte Groesse in Bytes statt ueber die Anzahl
+@Component
+@Slf4j
+public class RouteCache {
+    // 1e-5 Grad ~ 1 m, gleiche Aufloesung wie die Encoded Polyline
+    static final double QUANTIZATION = 1e5;
+
+    private final long maxBytes;
+    private final LinkedHashMap<RouteKey, Route> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Map<RouteKey, CompletableFuture<Route>> inFlight = new ConcurrentHashMap<>();
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public RouteCache(@Value("${tours.route-cache.max-size:16MB}") DataSize maxSize) {
+        this(maxSize.toBytes());
+    }
+
+    RouteCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        log.info("Route cache (maxBytes={})", maxBytes);
+    }
+
+    // Single-Flight: gleichzeitige Anfragen fuer dieselbe Route warten auf den einen Upstream-Aufruf
+    public Route getOrLoad(String profile, List<List<Double>> coords, Supplier<Route> loader) {
+        RouteKey key = RouteKey.of(profile, coords);
+        Route cached = get(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        CompletableFuture<Route> mine = new CompletableFuture<>();
+        CompletableFuture<Route> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.incrementAndGet();
+            return await(running);
+        }
+
+        try {
+            Route loaded = loader.get();
+            put(key, loaded);
+            mine.complete(loaded);
+            return loaded;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    // wie getOrLoad, aber ohne zu blockieren. Der Upstream-Aufruf gehoert keinem Abonnenten:
+    // bricht einer ab (auch der erste), laeuft er fuer die uebrigen weiter
+    public Mono<Route> getOrLoadAsync(String profile, List<List<Double>> coords, Supplier<Mono<Route>> loader) {
+        return Mono.defer(() -> {
+            RouteKey key = RouteKey.of(profile, coords);
+            Route cached = get(key);
+            if (cached != null) {
+                return Mono.just(cached);
+            }
+
+            CompletableFuture<Route> mine = new CompletableFuture<>();
+            CompletableFuture<Route> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                coalesced.incrementAndGet();
+                return Mono.fromFuture(running, true);
+            }
+
+            Mono.defer(loader)
+                    .doOnNext(loaded -> put(key, loaded))
+                    .toFuture()
+                    .whenComplete((loaded, error) -> {
+                        inFlight.remove(key, mine);
+                        if (error != null) {
+                            mine.completeExceptionally(error);
+                        } else if (loaded == null) {
+                            mine.completeExceptionally(new IllegalStateException("Route request returned no route"));
+                        } else {
+                            mine.complete(loaded);
+                        }
+                    });
+            return Mono.fromFuture(mine, true);
+        });
+    }
+
+    public CacheStats stats() {
+        int size;
+        lock.lock();
+        try {
+            size = memory.size();
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats("ors-routes", hits.get(), misses.get(), evictions.get(), size);
+    }
+
+    public long getBytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    private Route get(RouteKey key) {
+        lock.lock();
+        try {
+            Route cached = memory.get(key);
+            if (cached != null) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        } finally {
+            lock.unlock();
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    private void put(RouteKey key, Route route) {
+        long size = key.estimatedBytes() + route.estimatedBytes();
+        if (size > maxBytes) {
+            return;
+        }
+        lock.lock();
+        try {
+            Route previous = memory.put(key, route);
+            if (previous != null) {
+                bytes -= key.estimatedBytes() + previous.estimatedBytes();
+            }
+            bytes += size;
+            Iterator<Map.Entry<RouteKey, Route>> eldest = memory.entrySet().iterator();
+            while (bytes > maxBytes && eldest.hasNext()) {
+                Map.Entry<RouteKey, Route> entry = eldest.next();
+                bytes -= entry.getKey().estimatedBytes() + entry.getValue().estimatedBytes();
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static Route await(CompletableFuture<Route> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    // Distanz in Metern, Dauer in Sekunden, Geometrie als Encoded Polyline (lat,lon)
+    public record Route(double distance, double duration, String polyline) {
+        long estimatedBytes() {
+            // Objekt-Header + zwei doubles + String mit byte[] (Latin-1)
+            return 32 + 40 + (polyline != null ? polyline.length() : 0);
+        }
+    }
+
+    private record RouteKey(String profile, long[] coords) {
+        static RouteKey of(String profile, List<List<Double>> coords) {
+            long[] quantized = new long[coords.size() * 2];
+            for (int i = 0; i < coords.size(); i++) {
+                quantized[2 * i] = Math.round(coords.get(i).get(0) * QUANTIZATION);
+                quantized[2 * i + 1] = Math.round(coords.get(i).get(1) * QUANTIZATION);
+            }
+            return new RouteKey(profile, quantized);
+        }
+
+        long estimatedBytes() {
+            return 32 + 16 + 8L * coords.length + profile.length();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof RouteKey other && profile.equals(other.profile) && Arrays.equals(coords, other.coords);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * profile.hashCode() + Arrays.hashCode(coords);
+        }
+    }
+}
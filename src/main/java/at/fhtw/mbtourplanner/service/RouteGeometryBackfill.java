@@ -0,0 +1,95 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Migration: ergaenzt route_geometry fuer Touren, die vor Einfuehrung der Spalte angelegt wurden.
+// Laeuft nach dem Start im Hintergrund; nur angereicherte Touren (PENDING/FAILED stehen noch auf 0,0)
+@Component
+@Slf4j
+public class RouteGeometryBackfill {
+    // markiert Touren, fuer die ORS keine Route liefert: kein erneuter Versuch beim naechsten Start,
+    // der Report laedt die Route bei Bedarf selbst nach
+    static final String NO_GEOMETRY = "";
+
+    private final TourRepository tourRepository;
+    private final OpenRouteService openRouteService;
+    private final WorkerThreads workerThreads;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public RouteGeometryBackfill(TourRepository tourRepository,
+                                 OpenRouteService openRouteService,
+                                 WorkerThreads workerThreads,
+                                 @Value("${tours.route-backfill.enabled:false}") boolean enabled,
+                                 @Value("${tours.route-backfill.batch-size:50}") int batchSize) {
+        this.tourRepository = tourRepository;
+        this.openRouteService = openRouteService;
+        this.workerThreads = workerThreads;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        workerThreads.factory("route-backfill-").newThread(() -> {
+            try {
+                backfill();
+            } catch (RuntimeException e) {
+                log.error("Route geometry backfill aborted", e);
+            }
+        }).start();
+    }
+
+    public int backfill() {
+        log.info("Starting route geometry backfill (batchSize={})", batchSize);
+        long lastId = 0;
+        int updated = 0;
+        int failed = 0;
+
+        List<TourEntity> batch;
+        do {
+            batch = tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(
+                    EnrichmentStatus.DONE, lastId, PageRequest.of(0, batchSize));
+            int enriched = 0;
+            for (TourEntity tour : batch) {
+                lastId = tour.getId();
+                String geometry;
+                try {
+                    var routeInfo = openRouteService.getRouteInfo(TourService.ROUTE_PROFILE,
+                            List.of(
+                                    List.of(tour.getFromLon(), tour.getFromLat()),
+                                    List.of(tour.getToLon(), tour.getToLat())
+                            ));
+                    geometry = TourService.encodeRouteGeometry(routeInfo);
+                } catch (RuntimeException e) {
+                    log.warn("Could not backfill route geometry for tour id={}: {}", tour.getId(), e.getMessage());
+                    geometry = null;
+                }
+                if (geometry != null) {
+                    enriched += tourRepository.updateRouteGeometry(tour.getId(), geometry);
+                } else {
+                    failed++;
+                    tourRepository.updateRouteGeometry(tour.getId(), NO_GEOMETRY);
+                }
+            }
+            updated += enriched;
+            log.debug("Backfilled batch up to tour id={} ({} rows)", lastId, enriched);
+        } while (batch.size() == batchSize);
+
+        log.info("Route geometry backfill finished: {} updated, {} failed", updated, failed);
+        return updated;
+    }
+}
@@ -0,0 +1,131 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.Arrays;
+import java.util.List;
+
+// Route als gepacktes double[] (lat0, lon0, lat1, lon1, ...) statt List<List<Double>>:
+// ein Array pro Route statt ca. 5 Objekten pro Punkt, Iteration ueber lat(i)/lon(i) ohne Allokation
+public final class RoutePath {
+    public static final RoutePath EMPTY = new RoutePath(new double[0], 0);
+
+    private final double[] coords;
+    private final int size;
+
+    private RoutePath(double[] coords, int size) {
+        this.coords = coords;
+        this.size = size;
+    }
+
+    public static RoutePath of(double... latLon) {
+        if (latLon.length % 2 != 0) {
+            throw new IllegalArgumentException("Coordinates must be lat/lon pairs");
+        }
+        return new RoutePath(latLon.clone(), latLon.length / 2);
+    }
+
+    public static RoutePath fromLatLonList(List<List<Double>> points) {
+        Builder builder = new Builder(points.size());
+        for (List<Double> point : points) {
+            builder.add(point.get(0), point.get(1));
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double lat(int index) {
+        return coords[checkIndex(index) * 2];
+    }
+
+    public double lon(int index) {
+        return coords[checkIndex(index) * 2 + 1];
+    }
+
+    public void forEach(PointConsumer consumer) {
+        for (int i = 0; i < size * 2; i += 2) {
+            consumer.accept(coords[i], coords[i + 1]);
+        }
+    }
+
+    // Kopie im alten Format fuer Stellen, die (noch) Listen erwarten, z.B. den ORS-Request-Body
+    public List<List<Double>> toLatLonList() {
+        Double[][] points = new Double[size][];
+        for (int i = 0; i < size; i++) {
+            points[i] = new Double[]{coords[2 * i], coords[2 * i + 1]};
+        }
+        return Arrays.stream(points).map(List::of).toList();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof RoutePath other
+                && Arrays.equals(coords, 0, size * 2, other.coords, 0, other.size * 2);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i = 0; i < size * 2; i++) {
+            hash = 31 * hash + Double.hashCode(coords[i]);
+        }
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return size == 0 ? "RoutePath[]"
+                : "RoutePath[" + size + " points, " + lat(0) + "," + lon(0) + " -> " + lat(size - 1) + "," + lon(size - 1) + "]";
+    }
+
+    private int checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Point " + index + " of " + size);
+        }
+        return index;
+    }
+
+    @FunctionalInterface
+    public interface PointConsumer {
+        void accept(double lat, double lon);
+    }
+
+    public static final class Builder {
+        private double[] coords;
+        private int size;
+
+        public Builder() {
+            this(16);
+        }
+
+        public Builder(int expectedPoints) {
+            this.coords = new double[Math.max(expectedPoints, 1) * 2];
+        }
+
+        public Builder add(double lat, double lon) {
+            if (size * 2 == coords.length) {
+                coords = Arrays.copyOf(coords, coords.length * 2);
+            }
+            coords[size * 2] = lat;
+            coords[size * 2 + 1] = lon;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        // uebernimmt den Puffer ohne Kopie; der Builder darf danach nicht weiterverwendet werden
+        public RoutePath build() {
+            RoutePath path = size == 0 ? EMPTY : new RoutePath(coords, size);
+            coords = null;
+            return path;
+        }
+    }
+}
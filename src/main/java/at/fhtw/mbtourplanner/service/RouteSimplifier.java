@@ -0,0 +1,115 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.Arrays;
+
+// Douglas-Peucker fuer RoutePath, iterativ mit eigenem Stack (50k-Punkte-Routen sprengen sonst den Call-Stack).
+// Die Toleranz ergibt sich aus Zoomstufe und Pixelgroesse: was auf der Karte weniger als einen Bruchteil
+// eines Pixels abweicht, wird weder gezeichnet noch in URLs oder der Datenbank gebraucht
+public final class RouteSimplifier {
+    // Web-Mercator: Meter pro Pixel am Aequator bei Zoom 0 und 256er Kacheln
+    static final double EQUATOR_METERS_PER_PIXEL = 2 * Math.PI * 6_378_137 / 256;
+    // gespeicherte Geometrie bleibt bis Zoom 18 pixelgenau, also unter der Polyline-Aufloesung von 1e-5 Grad
+    static final int STORAGE_ZOOM = 18;
+
+    private RouteSimplifier() {
+    }
+
+    public static RoutePath forStorage(RoutePath path) {
+        return forZoom(path, STORAGE_ZOOM, 1);
+    }
+
+    // Toleranz fuer die polnaechste Breite der Route, dort ist ein Pixel am kleinsten
+    public static RoutePath forZoom(RoutePath path, int zoom, double pixels) {
+        if (path.size() < 3) {
+            return path;
+        }
+        double maxAbsLat = 0;
+        for (int i = 0; i < path.size(); i++) {
+            maxAbsLat = Math.max(maxAbsLat, Math.abs(path.lat(i)));
+        }
+        return simplify(path, metersPerPixel(maxAbsLat, zoom) * pixels);
+    }
+
+    public static double metersPerPixel(double lat, int zoom) {
+        return EQUATOR_METERS_PER_PIXEL * Math.cos(Math.toRadians(lat)) / (1L << zoom);
+    }
+
+    // Start und Ziel bleiben immer erhalten; kein Punkt der Eingabe liegt weiter als toleranceMeters vom Ergebnis entfernt
+    public static RoutePath simplify(RoutePath path, double toleranceMeters) {
+        int n = path.size();
+        if (n < 3 || !(toleranceMeters > 0)) {
+            return path;
+        }
+
+        // lokale equirektangulare Projektion in Metern um die mittlere Breite
+        double meanLat = 0;
+        for (int i = 0; i < n; i++) {
+            meanLat += path.lat(i);
+        }
+        double metersPerDegree = Math.PI * SpatialIndex.EARTH_RADIUS_KM * 1000 / 180;
+        double xScale = metersPerDegree * Math.cos(Math.toRadians(meanLat / n));
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = path.lon(i) * xScale;
+            y[i] = path.lat(i) * metersPerDegree;
+        }
+
+        boolean[] keep = new boolean[n];
+        keep[0] = true;
+        keep[n - 1] = true;
+        int kept = 2;
+        double tolerance2 = toleranceMeters * toleranceMeters;
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = n - 1;
+        while (top > 0) {
+            int last = stack[--top];
+            int first = stack[--top];
+            double max = tolerance2;
+            int index = -1;
+            for (int i = first + 1; i < last; i++) {
+                double d = segmentDistance2(x[i], y[i], x[first], y[first], x[last], y[last]);
+                if (d > max) {
+                    max = d;
+                    index = i;
+                }
+            }
+            if (index < 0) {
+                continue;
+            }
+            keep[index] = true;
+            kept++;
+            if (top + 4 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            stack[top++] = first;
+            stack[top++] = index;
+            stack[top++] = index;
+            stack[top++] = last;
+        }
+
+        if (kept == n) {
+            return path;
+        }
+        RoutePath.Builder simplified = new RoutePath.Builder(kept);
+        for (int i = 0; i < n; i++) {
+            if (keep[i]) {
+                simplified.add(path.lat(i), path.lon(i));
+            }
+        }
+        return simplified.build();
+    }
+
+    // quadrierter Abstand von p zur Strecke a-b (nicht zur Geraden, sonst gingen Wendepunkte verloren)
+    private static double segmentDistance2(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double length2 = dx * dx + dy * dy;
+        double t = length2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / length2));
+        double ex = px - (ax + t * dx);
+        double ey = py - (ay + t * dy);
+        return ex * ex + ey * ey;
+    }
+}
@@ -0,0 +1,11 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.List;
+import java.util.Optional;
+
+// Lokale Routenberechnung; OpenRouteService fragt alle Provider vor Cache und ORS
+public interface RoutingProvider {
+
+    // coords wie bei ORS als [lon, lat]; leer, wenn der Provider die Strecke nicht abdeckt
+    Optional<RouteCache.Route> route(String profile, List<List<Double>> coords);
+}
@@ -0,0 +1,190 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLogEntity;
+import at.fhtw.mbtourplanner.repository.TourLogRepository;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+// In-Memory-Suche fuer Deployments ohne PostgreSQL-Volltextindex (tours.search.engine=memory)
+@Service
+@Slf4j
+public class SearchIndexService {
+    private static final int LOAD_BATCH_SIZE = 1000;
+
+    private final TourRepository tourRepository;
+    private final TourLogRepository tourLogRepository;
+    private final boolean enabled;
+
+    private volatile Indexes indexes = new Indexes();
+    // Schreibzugriffe waehrend eines Neuaufbaus, werden danach auf dem neuen Index nachgespielt (guarded by this)
+    private List<Consumer<Indexes>> pendingWrites;
+
+    public SearchIndexService(TourRepository tourRepository,
+                              TourLogRepository tourLogRepository,
+                              @Value("${tours.search.engine:database}") String engine) {
+        this.tourRepository = tourRepository;
+        this.tourLogRepository = tourLogRepository;
+        this.enabled = "memory".equalsIgnoreCase(engine);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // baut einen neuen Index per Keyset-Paging auf und tauscht ihn erst danach aus; bis dahin antwortet der alte
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+        Indexes fresh = new Indexes();
+
+        List<TourEntity> tours = tourRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, LOAD_BATCH_SIZE));
+        while (!tours.isEmpty()) {
+            tours.forEach(fresh::putTour);
+            Long last = tours.get(tours.size() - 1).getId();
+            tours = tourRepository.findByIdGreaterThanOrderByIdAsc(last, PageRequest.of(0, LOAD_BATCH_SIZE));
+        }
+
+        List<TourLogEntity> logs = tourLogRepository.findByIdGreaterThanOrderByIdAsc(0L, PageRequest.of(0, LOAD_BATCH_SIZE));
+        while (!logs.isEmpty()) {
+            logs.forEach(fresh::putLog);
+            Long last = logs.get(logs.size() - 1).getId();
+            logs = tourLogRepository.findByIdGreaterThanOrderByIdAsc(last, PageRequest.of(0, LOAD_BATCH_SIZE));
+        }
+
+        // waehrend des Ladens committete Aenderungen koennen von der Seite schon ueberholt sein: in Commit-Reihenfolge nachspielen
+        synchronized (this) {
+            pendingWrites.forEach(write -> write.accept(fresh));
+            pendingWrites = null;
+            indexes = fresh;
+        }
+        log.info("Built in-memory search index with {} tours and {} logs in {} ms",
+                fresh.tours.size(), fresh.logTour.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void indexTour(TourEntity tour) {
+        if (enabled) {
+            afterCommit(() -> write(target -> target.putTour(tour)));
+        }
+    }
+
+    public void removeTour(Long tourId) {
+        if (enabled) {
+            int id = Math.toIntExact(tourId);
+            afterCommit(() -> write(target -> target.removeTour(id)));
+        }
+    }
+
+    public void indexLog(TourLogEntity tourLog) {
+        if (enabled) {
+            afterCommit(() -> write(target -> target.putLog(tourLog)));
+        }
+    }
+
+    public void removeLog(Long logId) {
+        if (enabled) {
+            int id = Math.toIntExact(logId);
+            afterCommit(() -> write(target -> target.removeLog(id)));
+        }
+    }
+
+    public List<Long> searchTourIds(String query, int page, int size) {
+        // long rechnen: (page + 1) * size laeuft bei grossen Seitennummern ueber
+        int limit = (int) Math.min((page + 1L) * size, Integer.MAX_VALUE);
+        int[] ids = indexes.tours.search(query, limit);
+        return Arrays.stream(ids).skip((long) page * size).mapToObj(id -> (long) id).toList();
+    }
+
+    public List<Long> searchLogIds(Long tourId, String query) {
+        InvertedIndex logs = indexes.logsByTour.get(Math.toIntExact(tourId));
+        if (logs == null) {
+            return List.of();
+        }
+        return Arrays.stream(logs.search(query, Integer.MAX_VALUE)).mapToObj(id -> (long) id).toList();
+    }
+
+    private synchronized void write(Consumer<Indexes> change) {
+        change.accept(indexes);
+        if (pendingWrites != null) {
+            pendingWrites.add(change);
+        }
+    }
+
+    // Index erst nach erfolgreichem Commit anpassen, damit ein Rollback keine Phantom-Treffer hinterlaesst
+    static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static final class Indexes {
+        private final InvertedIndex tours = new InvertedIndex();
+        // Logs werden nur innerhalb einer Tour gesucht: ein Index pro Tour, logTour fuehrt zum richtigen Index
+        private final Map<Integer, InvertedIndex> logsByTour = new ConcurrentHashMap<>();
+        private final Map<Integer, Integer> logTour = new ConcurrentHashMap<>();
+
+        private void putTour(TourEntity tour) {
+            tours.put(Math.toIntExact(tour.getId()),
+                    tour.getName(), tour.getDescription(), tour.getFromLocation(), tour.getToLocation(), tour.getTransportType());
+        }
+
+        private void removeTour(int id) {
+            tours.remove(id);
+            // Logs werden per Cascade mitgeloescht
+            InvertedIndex logs = logsByTour.remove(id);
+            if (logs != null) {
+                for (int logId : logs.documentIds()) {
+                    logTour.remove(logId, id);
+                }
+            }
+        }
+
+        private void putLog(TourLogEntity tourLog) {
+            int id = Math.toIntExact(tourLog.getId());
+            int tour = Math.toIntExact(tourLog.getTour().getId());
+            Integer previous = logTour.put(id, tour);
+            if (previous != null && previous != tour) {
+                InvertedIndex previousLogs = logsByTour.get(previous);
+                if (previousLogs != null) {
+                    previousLogs.remove(id);
+                }
+            }
+            logsByTour.computeIfAbsent(tour, t -> new InvertedIndex()).put(id, tourLog.getComment());
+        }
+
+        private void removeLog(int id) {
+            Integer tour = logTour.remove(id);
+            InvertedIndex logs = tour != null ? logsByTour.get(tour) : null;
+            if (logs != null) {
+                logs.remove(id);
+            }
+        }
+    }
+}
@@ -0,0 +1,278 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.Geohash;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// Gitter ueber die Geohash-Zellen einer festen Genauigkeit: Zelle -> Slots, Koordinaten pro Slot in int-Arrays (1e-7 Grad).
+// Jede Tour-id bekommt einen kompakten Slot; frei gewordene Slots werden wiederverwendet, Luecken in den ids kosten nichts
+public class SpatialIndex {
+    public static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final double SCALE = 1e7;
+
+    private final int precision;
+    private final long columns;
+    private final Map<Long, Cell> cells = new HashMap<>();
+    private final Map<Long, Integer> slots = new HashMap<>();
+    private final IntBuffer freeSlots = new IntBuffer();
+    private long[] ids = new long[0];
+    private int[] lat = new int[0];
+    private int[] lon = new int[0];
+    private int usedSlots;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SpatialIndex(int precision) {
+        this.precision = precision;
+        this.columns = Math.round(360 / Geohash.cellWidth(precision));
+    }
+
+    public void put(long id, double latitude, double longitude) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+            int slot = freeSlots.size > 0 ? freeSlots.removeLast() : newSlot();
+            slots.put(id, slot);
+            ids[slot] = id;
+            lat[slot] = (int) Math.round(latitude * SCALE);
+            lon[slot] = (int) Math.round(longitude * SCALE);
+            cells.computeIfAbsent(cellOf(latitude, longitude), c -> new Cell()).add(slot);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            removeInternal(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ids im Rechteck, aufsteigend; minLon > maxLon bedeutet ueber die Datumsgrenze
+    public long[] within(double minLat, double minLon, double maxLat, double maxLon, int limit) {
+        LongBuffer result = new LongBuffer();
+        lock.readLock().lock();
+        try {
+            forEachCandidate(minLat, minLon, maxLat, maxLon, slot -> {
+                if (contains(minLat, minLon, maxLat, maxLon, lat(slot), lon(slot))) {
+                    result.add(ids[slot]);
+                }
+            });
+        } finally {
+            lock.readLock().unlock();
+        }
+        long[] found = Arrays.copyOf(result.values, result.size);
+        Arrays.sort(found);
+        return found.length > limit ? Arrays.copyOf(found, limit) : found;
+    }
+
+    // ids im Umkreis, nach Entfernung aufsteigend
+    public long[] nearest(double latitude, double longitude, double radiusKm, int limit) {
+        double[] box = boundingBox(latitude, longitude, radiusKm);
+        LongBuffer hits = new LongBuffer();
+        lock.readLock().lock();
+        try {
+            forEachCandidate(box[0], box[1], box[2], box[3], slot -> {
+                double distance = distanceKm(latitude, longitude, lat(slot), lon(slot));
+                if (distance <= radiusKm) {
+                    // positive floats sortieren als Bits wie als Zahl: Entfernung oben, Slot unten
+                    hits.add((long) Float.floatToIntBits((float) distance) << 32 | slot);
+                }
+            });
+            long[] sorted = Arrays.copyOf(hits.values, hits.size);
+            Arrays.sort(sorted);
+            long[] found = new long[Math.min(limit, sorted.length)];
+            for (int i = 0; i < found.length; i++) {
+                found[i] = ids[(int) sorted[i]];
+            }
+            return found;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return slots.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            cells.clear();
+            slots.clear();
+            freeSlots.size = 0;
+            ids = new long[0];
+            lat = new int[0];
+            lon = new int[0];
+            usedSlots = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // [minLat, minLon, maxLat, maxLon]; an den Polen alle Laengen, ueber die Datumsgrenze mit minLon > maxLon
+    public static double[] boundingBox(double latitude, double longitude, double radiusKm) {
+        double dLat = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double minLat = latitude - dLat;
+        double maxLat = latitude + dLat;
+        if (minLat <= -90 || maxLat >= 90) {
+            return new double[]{Math.max(minLat, -90), -180, Math.min(maxLat, 90), 180};
+        }
+        double dLon = Math.toDegrees(Math.asin(Math.min(1, Math.sin(radiusKm / EARTH_RADIUS_KM) / Math.cos(Math.toRadians(latitude)))));
+        if (dLon >= 180) {
+            return new double[]{minLat, -180, maxLat, 180};
+        }
+        return new double[]{minLat, wrap(longitude - dLon), maxLat, wrap(longitude + dLon)};
+    }
+
+    public static boolean contains(double minLat, double minLon, double maxLat, double maxLon, double latitude, double longitude) {
+        if (latitude < minLat || latitude > maxLat) {
+            return false;
+        }
+        return minLon <= maxLon
+                ? longitude >= minLon && longitude <= maxLon
+                : longitude >= minLon || longitude <= maxLon;
+    }
+
+    // Haversine
+    public static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static double wrap(double longitude) {
+        return longitude < -180 ? longitude + 360 : longitude > 180 ? longitude - 360 : longitude;
+    }
+
+    // Zellen des Rechtecks einzeln nachschlagen; ueberdeckt es mehr Zellen als belegt sind, stattdessen alle belegten pruefen
+    private void forEachCandidate(double minLat, double minLon, double maxLat, double maxLon, SlotConsumer consumer) {
+        long fromRow = Geohash.latIndex(minLat, precision);
+        long toRow = Geohash.latIndex(maxLat, precision);
+        long fromColumn = Geohash.lonIndex(minLon, precision);
+        long toColumn = Geohash.lonIndex(maxLon, precision);
+        long span = minLon <= maxLon ? toColumn - fromColumn + 1 : Math.min(columns, columns - fromColumn + toColumn + 1);
+        if ((toRow - fromRow + 1) * span > cells.size()) {
+            cells.values().forEach(cell -> cell.forEach(consumer));
+            return;
+        }
+        for (long row = fromRow; row <= toRow; row++) {
+            for (long i = 0; i < span; i++) {
+                Cell cell = cells.get(row << 32 | (fromColumn + i) % columns);
+                if (cell != null) {
+                    cell.forEach(consumer);
+                }
+            }
+        }
+    }
+
+    private void removeInternal(long id) {
+        Integer slot = slots.remove(id);
+        if (slot == null) {
+            return;
+        }
+        long key = cellOf(lat(slot), lon(slot));
+        Cell cell = cells.get(key);
+        if (cell != null && cell.remove(slot) && cell.size == 0) {
+            cells.remove(key);
+        }
+        freeSlots.add(slot);
+    }
+
+    private int newSlot() {
+        if (usedSlots == lat.length) {
+            int capacity = Math.max(16, lat.length + (lat.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            lat = Arrays.copyOf(lat, capacity);
+            lon = Arrays.copyOf(lon, capacity);
+        }
+        return usedSlots++;
+    }
+
+    private long cellOf(double latitude, double longitude) {
+        return Geohash.latIndex(latitude, precision) << 32 | Geohash.lonIndex(longitude, precision);
+    }
+
+    private double lat(int slot) {
+        return lat[slot] / SCALE;
+    }
+
+    private double lon(int slot) {
+        return lon[slot] / SCALE;
+    }
+
+    @FunctionalInterface
+    private interface SlotConsumer {
+        void accept(int slot);
+    }
+
+    // Slots einer Zelle, Reihenfolge egal (Entfernen tauscht mit dem letzten Eintrag)
+    private static final class Cell {
+        private int[] slots = new int[4];
+        private int size;
+
+        private void add(int slot) {
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+
+        private boolean remove(int slot) {
+            for (int i = 0; i < size; i++) {
+                if (slots[i] == slot) {
+                    slots[i] = slots[--size];
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void forEach(SlotConsumer consumer) {
+            for (int i = 0; i < size; i++) {
+                consumer.accept(slots[i]);
+            }
+        }
+    }
+
+    private static final class IntBuffer {
+        private int[] values = new int[16];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        private int removeLast() {
+            return values[--size];
+        }
+    }
+
+    private static final class LongBuffer {
+        private long[] values = new long[16];
+        private int size;
+
+        private void add(long value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.repository.Geohash;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLocation;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Umkreis- und Rechtecksuche ueber die Startpunkte der Touren. Antwortet aus dem In-Memory-Gitter;
+// bis es nach dem Start aufgebaut ist, fragt es die Datenbank ueber die Spalte from_geohash
+@Service
+@Slf4j
+public class SpatialIndexService {
+    private static final int LOAD_BATCH_SIZE = 5000;
+    // Obergrenze fuer OR-verknuepfte Geohash-Praefixe einer Datenbankabfrage
+    private static final int MAX_DB_PREFIXES = 16;
+
+    private final TourRepository tourRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int precision;
+    private volatile SpatialIndex index;
+    private volatile boolean ready;
+    // Schreibzugriffe waehrend eines Neuaufbaus, werden danach auf dem neuen Index nachgespielt (guarded by this)
+    private List<Consumer<SpatialIndex>> pendingWrites;
+
+    public SpatialIndexService(TourRepository tourRepository,
+                               TransactionTemplate transactionTemplate,
+                               @Value("${tours.spatial.precision:5}") int precision) {
+        this.tourRepository = tourRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.precision = precision;
+        this.index = new SpatialIndex(precision);
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // baut einen neuen Index auf und tauscht ihn erst danach aus; bis dahin antwortet der alte
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        synchronized (this) {
+            pendingWrites = new ArrayList<>();
+        }
+        SpatialIndex fresh = new SpatialIndex(precision);
+        long backfilled = 0;
+        List<TourLocation> page = tourRepository.findLocationsAfter(0L, EnrichmentStatus.DONE, PageRequest.of(0, LOAD_BATCH_SIZE));
+        while (!page.isEmpty()) {
+            List<TourLocation> missing = new ArrayList<>();
+            for (TourLocation location : page) {
+                if (location.fromLat() == 0 && location.fromLon() == 0) {
+                    continue;
+                }
+                fresh.put(location.id(), location.fromLat(), location.fromLon());
+                if (location.fromGeohash() == null) {
+                    missing.add(location);
+                }
+            }
+            if (!missing.isEmpty()) {
+                transactionTemplate.executeWithoutResult(status -> missing.forEach(location -> tourRepository.updateFromGeohash(
+                        location.id(), Geohash.encode(location.fromLat(), location.fromLon(), Geohash.MAX_PRECISION))));
+                backfilled += missing.size();
+            }
+            Long last = page.get(page.size() - 1).id();
+            page = tourRepository.findLocationsAfter(last, EnrichmentStatus.DONE, PageRequest.of(0, LOAD_BATCH_SIZE));
+        }
+        // waehrend des Ladens committete Aenderungen koennen von der Seite schon ueberholt sein: in Commit-Reihenfolge nachspielen
+        synchronized (this) {
+            pendingWrites.forEach(write -> write.accept(fresh));
+            pendingWrites = null;
+            index = fresh;
+        }
+        ready = true;
+        log.info("Built spatial index with {} tours in {} ms ({} geohashes backfilled)",
+                fresh.size(), (System.nanoTime() - start) / 1_000_000, backfilled);
+    }
+
+    // nach dem Speichern aufrufen; Touren ohne Koordinaten (Anreicherung offen/fehlgeschlagen) fliegen raus
+    public void indexTour(TourEntity tour) {
+        long id = tour.getId();
+        boolean located = tour.hasStartLocation();
+        double lat = tour.getFromLat();
+        double lon = tour.getFromLon();
+        SearchIndexService.afterCommit(() -> write(target -> {
+            if (located) {
+                target.put(id, lat, lon);
+            } else {
+                target.remove(id);
+            }
+        }));
+    }
+
+    public void removeTour(Long tourId) {
+        long id = tourId;
+        SearchIndexService.afterCommit(() -> write(target -> target.remove(id)));
+    }
+
+    // ids nach Entfernung aufsteigend
+    public List<Long> findNear(double lat, double lon, double radiusKm, int limit) {
+        if (ready) {
+            return toIds(index.nearest(lat, lon, radiusKm, limit));
+        }
+        double[] box = SpatialIndex.boundingBox(lat, lon, radiusKm);
+        return fromDatabase(box).stream()
+                .filter(l -> SpatialIndex.distanceKm(lat, lon, l.fromLat(), l.fromLon()) <= radiusKm)
+                .sorted(Comparator.comparingDouble(l -> SpatialIndex.distanceKm(lat, lon, l.fromLat(), l.fromLon())))
+                .limit(limit)
+                .map(TourLocation::id)
+                .toList();
+    }
+
+    // ids aufsteigend
+    public List<Long> findWithin(double minLat, double minLon, double maxLat, double maxLon, int limit) {
+        if (ready) {
+            return toIds(index.within(minLat, minLon, maxLat, maxLon, limit));
+        }
+        return fromDatabase(new double[]{minLat, minLon, maxLat, maxLon}).stream()
+                .filter(l -> SpatialIndex.contains(minLat, minLon, maxLat, maxLon, l.fromLat(), l.fromLon()))
+                .limit(limit)
+                .map(TourLocation::id)
+                .toList();
+    }
+
+    private synchronized void write(Consumer<SpatialIndex> change) {
+        change.accept(index);
+        if (pendingWrites != null) {
+            pendingWrites.add(change);
+        }
+    }
+
+    private List<TourLocation> fromDatabase(double[] box) {
+        List<String> prefixes = Geohash.covering(box[0], box[1], box[2], box[3], MAX_DB_PREFIXES);
+        log.debug("Spatial index not ready, querying {} geohash prefixes", prefixes.size());
+        return tourRepository.findLocationsByGeohashPrefixes(prefixes, box[0], box[2]);
+    }
+
+    private static List<Long> toIds(long[] ids) {
+        return Arrays.stream(ids).boxed().toList();
+    }
+}
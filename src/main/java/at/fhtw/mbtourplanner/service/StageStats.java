@@ -0,0 +1,8 @@
+package at.fhtw.mbtourplanner.service;
+
+import java.util.Map;
+
+public record StageStats(String stage, long count, long failures, long timeouts, long cancelled,
+                         double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis,
+                         Map<String, Long> buckets) {
+}
@@ -0,0 +1,179 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Zweistufiger Cache fuer OSM-Tiles: dekodierte Bilder im Speicher (LRU), PNG-Dateien auf der Platte
+@Component
+@Slf4j
+public class TileCache {
+    private final Path directory;
+    private final int maxEntries;
+    private final Duration ttl;
+    private final Clock clock;
+    private final Map<TileKey, CachedTile> memory;
+    // Lock statt synchronized, damit virtuelle Threads ihren Carrier nicht blockieren (Pinning unter Java 21)
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public TileCache(@Value("${tours.tile-cache.dir:${java.io.tmpdir}/mbtourplanner/tiles}") String directory,
+                     @Value("${tours.tile-cache.max-entries:256}") int maxEntries,
+                     @Value("${tours.tile-cache.ttl:7d}") Duration ttl) {
+        this(Paths.get(directory), maxEntries, ttl, Clock.systemUTC());
+    }
+
+    TileCache(Path directory, int maxEntries, Duration ttl, Clock clock) {
+        this.directory = directory;
+        this.maxEntries = maxEntries;
+        this.ttl = ttl;
+        this.clock = clock;
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<TileKey, CachedTile> eldest) {
+                if (size() > TileCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+        log.info("Tile cache at {} (maxEntries={}, ttl={})", directory, maxEntries, ttl);
+    }
+
+    public BufferedImage get(int zoom, int x, int y) {
+        TileKey key = new TileKey(zoom, x, y);
+        long now = clock.millis();
+
+        lock.lock();
+        try {
+            CachedTile cached = memory.get(key);
+            if (cached != null) {
+                if (!isExpired(cached.fetchedAt(), now)) {
+                    memoryHits.incrementAndGet();
+                    return cached.image();
+                }
+                memory.remove(key);
+                evictions.incrementAndGet();
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        Path file = tileFile(key);
+        try {
+            if (Files.isRegularFile(file)) {
+                long fetchedAt = Files.getLastModifiedTime(file).toMillis();
+                if (!isExpired(fetchedAt, now)) {
+                    BufferedImage image = ImageIO.read(file.toFile());
+                    if (image != null) {
+                        diskHits.incrementAndGet();
+                        remember(key, image, fetchedAt);
+                        return image;
+                    }
+                }
+                Files.deleteIfExists(file);
+                evictions.incrementAndGet();
+            }
+        } catch (IOException e) {
+            log.warn("Could not read cached tile {}: {}", file, e.getMessage());
+        }
+
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public BufferedImage put(int zoom, int x, int y, byte[] png) throws IOException {
+        TileKey key = new TileKey(zoom, x, y);
+        BufferedImage image = ImageIO.read(new ByteArrayInputStream(png));
+        if (image == null) {
+            throw new IOException("Tile " + key + " is not a readable image");
+        }
+
+        Path file = tileFile(key);
+        try {
+            Files.createDirectories(file.getParent());
+            Path tmp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+            Files.write(tmp, png);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            // Plattenfehler sind nicht fatal, das Tile bleibt zumindest im Speicher
+            log.warn("Could not write tile {} to disk cache: {}", file, e.getMessage());
+        }
+
+        remember(key, image, clock.millis());
+        return image;
+    }
+
+    public CacheStats stats() {
+        int size;
+        lock.lock();
+        try {
+            size = memory.size();
+        } finally {
+            lock.unlock();
+        }
+        return new CacheStats("osm-tiles",
+                memoryHits.get() + diskHits.get(), misses.get(), evictions.get(), size);
+    }
+
+    public long getMemoryHits() {
+        return memoryHits.get();
+    }
+
+    public long getDiskHits() {
+        return diskHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    private void remember(TileKey key, BufferedImage image, long fetchedAt) {
+        lock.lock();
+        try {
+            memory.put(key, new CachedTile(image, fetchedAt));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isExpired(long fetchedAt, long now) {
+        return now - fetchedAt > ttl.toMillis();
+    }
+
+    private Path tileFile(TileKey key) {
+        return directory.resolve(String.valueOf(key.zoom()))
+                .resolve(String.valueOf(key.x()))
+                .resolve(key.y() + ".png");
+    }
+
+    private record TileKey(int zoom, int x, int y) {
+    }
+
+    private record CachedTile(BufferedImage image, long fetchedAt) {
+    }
+}
@@ -0,0 +1,78 @@
+package at.fhtw.mbtourplanner.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Begrenzter Worker-Pool fuer die Anreicherung; der Auftrag selbst steht persistent als PENDING in der tours-Tabelle
+@Component
+@Slf4j
+public class TourEnrichmentQueue {
+    private final boolean async;
+    private final int maxAttempts;
+    private final Duration retryBackoff;
+    private final ScheduledExecutorService executor;
+
+    public TourEnrichmentQueue(@Value("${tours.enrichment.async:true}") boolean async,
+                               @Value("${tours.enrichment.workers:4}") int workers,
+                               @Value("${tours.enrichment.max-attempts:3}") int maxAttempts,
+                               @Value("${tours.enrichment.retry-backoff:30s}") Duration retryBackoff,
+                               WorkerThreads workerThreads) {
+        this.async = async;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoff = retryBackoff;
+        this.executor = workerThreads.newScheduledExecutor("tour-enrichment-", workers);
+    }
+
+    public boolean isAsync() {
+        return async;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    // exponentiell: backoff, 2*backoff, 4*backoff, ...
+    public Duration backoffFor(int attempt) {
+        return retryBackoff.multipliedBy(1L << Math.min(Math.max(attempt - 1, 0), 10));
+    }
+
+    public void submit(Runnable task) {
+        submit(task, Duration.ZERO);
+    }
+
+    // erst nach dem Commit einplanen, damit der Worker den gespeicherten Zustand sieht
+    public void submit(Runnable task, Duration delay) {
+        Runnable schedule = () -> executor.schedule(() -> {
+            try {
+                task.run();
+            } catch (RuntimeException e) {
+                log.error("Enrichment task failed", e);
+            }
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    schedule.run();
+                }
+            });
+        } else {
+            schedule.run();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        // offene Auftraege bleiben PENDING und werden beim naechsten Start fortgesetzt
+        executor.shutdownNow();
+    }
+}
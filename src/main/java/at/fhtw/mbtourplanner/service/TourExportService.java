@@ -0,0 +1,76 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.opencsv.CSVWriter;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class TourExportService {
+    // der CSV-Import liest die Spalten ueber den Header; Koordinaten erlauben einen Re-Import ohne Geocoding
+    static final String[] CSV_HEADER = {"id", "name", "description", "fromLocation", "toLocation", "transportType",
+            "distance", "estimatedTime", "routeImageURL", "popularity", "childFriendliness",
+            "fromLat", "fromLon", "toLat", "toLon"};
+
+    private final TourRepository tourRepository;
+    private final EntityManager entityManager;
+
+    // Schreibt alle Touren zeilenweise; der Speicherbedarf haengt nicht von der Tabellengroesse ab
+    @Transactional(readOnly = true)
+    public int writeToursCsv(OutputStream out) throws IOException {
+        CSVWriter csv = new CSVWriter(new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8)));
+        csv.writeNext(CSV_HEADER, false);
+
+        int rows = 0;
+        try (Stream<TourEntity> tours = tourRepository.streamAllOrderedById()) {
+            Iterator<TourEntity> it = tours.iterator();
+            while (it.hasNext()) {
+                TourEntity tour = it.next();
+                csv.writeNext(toRow(tour), false);
+                // bereits geschriebene Entities nicht im Persistence Context ansammeln
+                entityManager.detach(tour);
+                rows++;
+            }
+        }
+        csv.flush();
+        if (csv.checkError()) {
+            throw new IOException("Could not write CSV export", csv.getException());
+        }
+        log.debug("Exported {} tours as CSV", rows);
+        return rows;
+    }
+
+    private static String[] toRow(TourEntity tour) {
+        return new String[]{
+                String.valueOf(tour.getId()),
+                tour.getName(),
+                tour.getDescription(),
+                tour.getFromLocation(),
+                tour.getToLocation(),
+                tour.getTransportType(),
+                String.valueOf(tour.getDistance()),
+                tour.getEstimatedTime() != null ? tour.getEstimatedTime().toString() : null,
+                tour.getRouteImageUrl(),
+                String.valueOf(tour.getPopularity()),
+                String.valueOf(tour.getChildFriendliness()),
+                String.valueOf(tour.getFromLat()),
+                String.valueOf(tour.getFromLon()),
+                String.valueOf(tour.getToLat()),
+                String.valueOf(tour.getToLon())
+        };
+    }
+}
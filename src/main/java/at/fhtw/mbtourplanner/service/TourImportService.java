@@ -0,0 +1,341 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.CsvImportReport;
+import at.fhtw.mbtourplanner.model.ImportChunkError;
+import at.fhtw.mbtourplanner.model.ImportReport;
+import at.fhtw.mbtourplanner.model.ImportRowResult;
+import at.fhtw.mbtourplanner.model.Tour;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvException;
+import com.opencsv.exceptions.CsvMalformedLineException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+// Bulk-Import (JSON und CSV): liest die Eingabe streamend, reichert Touren parallel an und speichert sie chunkweise als JDBC-Batch
+@Service
+@Slf4j
+public class TourImportService {
+    private static final List<String> REQUIRED_CSV_COLUMNS = List.of("name", "description", "fromlocation", "tolocation", "transporttype");
+
+    private final TourRepository tourRepository;
+    private final TourService tourService;
+    private final TourMapper tourMapper;
+    private final SearchIndexService searchIndexService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int batchSize;
+    private final int parallelism;
+    private final WorkerThreads workerThreads;
+    private final SpatialIndexService spatialIndexService;
+
+    public TourImportService(TourRepository tourRepository,
+                             TourService tourService,
+                             TourMapper tourMapper,
+                             SearchIndexService searchIndexService,
+                             Validator validator,
+                             TransactionTemplate transactionTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${tours.import.batch-size:100}") int batchSize,
+                             @Value("${tours.import.parallelism:4}") int parallelism,
+                             WorkerThreads workerThreads,
+                             SpatialIndexService spatialIndexService) {
+        this.tourRepository = tourRepository;
+        this.tourService = tourService;
+        this.tourMapper = tourMapper;
+        this.searchIndexService = searchIndexService;
+        this.validator = validator;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.parallelism = parallelism;
+        this.workerThreads = workerThreads;
+        this.spatialIndexService = spatialIndexService;
+    }
+
+    public ImportReport importJson(InputStream in) throws IOException {
+        log.info("Starting bulk JSON import (batchSize={}, parallelism={})", batchSize, parallelism);
+        List<ImportRowResult> results = new ArrayList<>();
+
+        try (JsonParser parser = objectMapper.getFactory().createParser(in);
+             ExecutorService executor = workerThreads.newExecutor("tour-import-", parallelism)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("Expected a JSON array of tours");
+            }
+
+            List<JsonNode> chunk = new ArrayList<>(batchSize);
+            int row = 0;
+            try {
+                while (parser.nextToken() == JsonToken.START_OBJECT) {
+                    chunk.add(objectMapper.readTree(parser));
+                    if (chunk.size() == batchSize) {
+                        results.addAll(importChunk(row, chunk, executor));
+                        row += chunk.size();
+                        chunk.clear();
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                // Syntaxfehler: bereits gelesene Zeilen noch speichern, danach abbrechen
+                results.addAll(importChunk(row, chunk, executor));
+                row += chunk.size();
+                results.add(ImportRowResult.failed(row, null, "Malformed JSON: " + e.getOriginalMessage()));
+                log.warn("Bulk import stopped at row {}: {}", row, e.getOriginalMessage());
+                return ImportReport.of(results);
+            }
+            results.addAll(importChunk(row, chunk, executor));
+        }
+
+        ImportReport report = ImportReport.of(results);
+        log.info("Bulk JSON import finished: {} imported, {} failed", report.imported(), report.failed());
+        return report;
+    }
+
+    private List<ImportRowResult> importChunk(int firstRow, List<JsonNode> chunk, ExecutorService executor) {
+        List<String> names = chunk.stream().map(node -> node.path("name").asText(null)).toList();
+        List<Callable<TourEntity>> tasks = chunk.stream().<Callable<TourEntity>>map(node -> () -> prepare(node)).toList();
+        return List.of(importChunk(firstRow, names, tasks, executor));
+    }
+
+    // Fuehrt die Vorbereitung (Parsen, Validieren, Anreichern) parallel aus und speichert den Chunk in einer Transaktion
+    private ImportRowResult[] importChunk(int firstRow, List<String> names, List<Callable<TourEntity>> tasks, ExecutorService executor) {
+        if (tasks.isEmpty()) {
+            return new ImportRowResult[0];
+        }
+
+        List<Future<TourEntity>> futures;
+        try {
+            futures = executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        }
+
+        ImportRowResult[] results = new ImportRowResult[tasks.size()];
+        List<TourEntity> toSave = new ArrayList<>();
+        List<Integer> toSaveRows = new ArrayList<>();
+        for (int i = 0; i < futures.size(); i++) {
+            try {
+                toSave.add(futures.get(i).get());
+                toSaveRows.add(i);
+            } catch (ExecutionException e) {
+                results[i] = ImportRowResult.failed(firstRow + i, names.get(i), rootMessage(e.getCause()));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Import interrupted", e);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> tourRepository.saveAll(toSave));
+            for (int j = 0; j < toSave.size(); j++) {
+                TourEntity saved = toSave.get(j);
+                int i = toSaveRows.get(j);
+                results[i] = ImportRowResult.imported(firstRow + i, saved.getName(), saved.getId());
+                searchIndexService.indexTour(saved);
+                spatialIndexService.indexTour(saved);
+            }
+        } catch (RuntimeException e) {
+            // der Chunk wird als Ganzes zurueckgerollt
+            log.warn("Could not save import rows {}..{}: {}", firstRow, firstRow + tasks.size() - 1, rootMessage(e));
+            for (int j = 0; j < toSave.size(); j++) {
+                int i = toSaveRows.get(j);
+                results[i] = ImportRowResult.failed(firstRow + i, toSave.get(j).getName(), rootMessage(e));
+            }
+        }
+        log.debug("Imported chunk starting at row {}: {} saved, {} failed", firstRow, toSave.size(), tasks.size() - toSave.size());
+        return results;
+    }
+
+    public CsvImportReport importCsv(InputStream in, boolean trustSupplied, int chunkSize) throws IOException {
+        log.info("Starting CSV import (chunkSize={}, trustSupplied={}, parallelism={})", chunkSize, trustSupplied, parallelism);
+        long start = System.nanoTime();
+        List<ImportChunkError> chunkErrors = new ArrayList<>();
+        int total = 0;
+        int imported = 0;
+        int chunks = 0;
+
+        try (CSVReader reader = new CSVReader(new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8)));
+             ExecutorService executor = workerThreads.newExecutor("tour-import-", parallelism)) {
+            Map<String, Integer> columns = readHeader(reader);
+
+            List<String> names = new ArrayList<>(chunkSize);
+            List<Callable<TourEntity>> tasks = new ArrayList<>(chunkSize);
+            boolean eof = false;
+            while (!eof) {
+                String[] line = null;
+                String malformed = null;
+                try {
+                    line = reader.readNext();
+                    eof = line == null;
+                } catch (CsvException e) {
+                    // kaputte Zeile als Fehler melden, Import laeuft weiter
+                    malformed = e.getMessage();
+                } catch (CsvMalformedLineException e) {
+                    // nicht geschlossenes Anfuehrungszeichen: der Rest der Datei ist nicht mehr lesbar
+                    malformed = e.getMessage();
+                    eof = true;
+                }
+                if (malformed != null) {
+                    String message = "Malformed CSV: " + malformed;
+                    names.add(null);
+                    tasks.add(() -> {
+                        throw new IllegalArgumentException(message);
+                    });
+                } else if (line != null && !(line.length == 1 && line[0].isBlank())) {
+                    String[] row = line;
+                    names.add(column(row, columns, "name"));
+                    tasks.add(() -> prepareCsvRow(row, columns, trustSupplied));
+                }
+
+                if (tasks.size() == chunkSize || (eof && !tasks.isEmpty())) {
+                    ImportRowResult[] results = importChunk(total, names, tasks, executor);
+                    List<ImportRowResult> errors = Arrays.stream(results).filter(r -> !r.success()).toList();
+                    if (!errors.isEmpty()) {
+                        chunkErrors.add(new ImportChunkError(chunks, total, results.length, errors));
+                    }
+                    imported += results.length - errors.size();
+                    total += results.length;
+                    chunks++;
+                    names.clear();
+                    tasks.clear();
+                }
+            }
+        }
+
+        long durationMillis = (System.nanoTime() - start) / 1_000_000;
+        double rowsPerSecond = durationMillis > 0 ? total * 1000.0 / durationMillis : total;
+        log.info("CSV import finished: {} rows in {} chunks, {} imported, {} failed, {} rows/s",
+                total, chunks, imported, total - imported, Math.round(rowsPerSecond));
+        return new CsvImportReport(total, imported, total - imported, chunks, durationMillis, rowsPerSecond, chunkErrors);
+    }
+
+    private static Map<String, Integer> readHeader(CSVReader reader) throws IOException {
+        String[] header;
+        try {
+            header = reader.readNext();
+        } catch (CsvException e) {
+            throw new IllegalArgumentException("Invalid CSV header: " + e.getMessage());
+        }
+        if (header == null) {
+            throw new IllegalArgumentException("CSV file is empty");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : REQUIRED_CSV_COLUMNS) {
+            if (!columns.containsKey(required)) {
+                throw new IllegalArgumentException("CSV header is missing column " + required);
+            }
+        }
+        return columns;
+    }
+
+    private TourEntity prepareCsvRow(String[] row, Map<String, Integer> columns, boolean trustSupplied) throws Exception {
+        String distance = column(row, columns, "distance");
+        String estimatedTime = column(row, columns, "estimatedtime");
+        String fromLat = column(row, columns, "fromlat");
+        String fromLon = column(row, columns, "fromlon");
+        String toLat = column(row, columns, "tolat");
+        String toLon = column(row, columns, "tolon");
+        Tour tour = Tour.builder()
+                .name(column(row, columns, "name"))
+                .description(column(row, columns, "description"))
+                .fromLocation(column(row, columns, "fromlocation"))
+                .toLocation(column(row, columns, "tolocation"))
+                .transportType(column(row, columns, "transporttype"))
+                .distance(distance != null ? Double.parseDouble(distance) : 0.0)
+                .estimatedTime(estimatedTime != null ? Duration.parse(estimatedTime) : null)
+                .routeImageUrl(column(row, columns, "routeimageurl"))
+                .fromLat(parseCoordinate(fromLat))
+                .fromLon(parseCoordinate(fromLon))
+                .toLat(parseCoordinate(toLat))
+                .toLon(parseCoordinate(toLon))
+                .build();
+        validate(tour);
+
+        TourEntity entity = toNewEntity(tour);
+        if (!trustSupplied) {
+            tourService.enrich(entity, GeocodePriority.BULK);
+        } else if (distance == null || estimatedTime == null) {
+            throw new IllegalArgumentException("distance and estimatedTime are required when supplied values are trusted");
+        } else if (fromLat == null || fromLon == null || toLat == null || toLon == null) {
+            // sonst als DONE mit (0, 0) gespeichert: nie angereichert und im Umkreis-Index ausgeblendet
+            throw new IllegalArgumentException("fromLat, fromLon, toLat and toLon are required when supplied values are trusted");
+        }
+        return entity;
+    }
+
+    private static String column(String[] row, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if (index == null || index >= row.length) {
+            return null;
+        }
+        String value = row[index].trim();
+        return value.isEmpty() || value.equals("null") ? null : value;
+    }
+
+    private static double parseCoordinate(String value) {
+        return value != null ? Double.parseDouble(value) : 0.0;
+    }
+
+    private TourEntity prepare(JsonNode node) throws Exception {
+        Tour tour = objectMapper.treeToValue(node, Tour.class);
+        validate(tour);
+        TourEntity entity = toNewEntity(tour);
+        tourService.enrich(entity, GeocodePriority.BULK);
+        return entity;
+    }
+
+    private void validate(Tour tour) {
+        var violations = validator.validate(tour);
+        if (!violations.isEmpty()) {
+            throw new IllegalArgumentException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining(", ")));
+        }
+    }
+
+    private TourEntity toNewEntity(Tour tour) throws SQLException {
+        return TourService.asNewEntity(tourMapper.toEntity(tour));
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable root = e;
+        while (root.getCause() != null && root.getCause() != root) {
+            root = root.getCause();
+        }
+        return root.getMessage() != null ? root.getMessage() : root.getClass().getSimpleName();
+    }
+}
@@ -1,26 +1,37 @@
 package at.fhtw.mbtourplanner.service;
 
 import lombok.extern.slf4j.Slf4j;
+import at.fhtw.mbtourplanner.model.CursorPage;
 import at.fhtw.mbtourplanner.model.TourLog;
 import at.fhtw.mbtourplanner.repository.TourEntity;
 import at.fhtw.mbtourplanner.repository.TourLogEntity;
 import at.fhtw.mbtourplanner.repository.TourLogRepository;
+import at.fhtw.mbtourplanner.repository.TourLogSummary;
+import at.fhtw.mbtourplanner.repository.TourLogTotals;
 import at.fhtw.mbtourplanner.repository.TourRepository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class TourLogService {
 
+    private static final String LOG_SORT_KEY = "id:asc";
+
     private final TourLogRepository tourLogRepository;
     private final TourRepository tourRepository;
     private final TourLogMapper mapper;
+    private final SearchIndexService searchIndexService;
 
     public List<TourLog> getLogsForTour(Long tourId) throws SQLException {
         log.info("Fetching all logs for tourId={}", tourId);
@@ -32,9 +43,43 @@ public class TourLogService {
         return mapper.toDto(ents);
     }
 
+    public CursorPage<TourLog> getLogPage(Long tourId, String cursor, int size) throws SQLException {
+        log.info("Fetching log page for tourId={} cursor={} size={}", tourId, cursor, size);
+        if (!tourRepository.existsById(tourId)) {
+            throw new RuntimeException("Tour not found");
+        }
+        long afterId = 0;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor decoded = PageCursor.decode(cursor);
+            if (!decoded.sort().equals(LOG_SORT_KEY)) {
+                throw new IllegalArgumentException("Cursor was issued for sort " + decoded.sort());
+            }
+            afterId = decoded.id();
+        }
+
+        List<TourLogEntity> ents = tourLogRepository.findByTourIdAndIdGreaterThanOrderByIdAsc(tourId, afterId, PageRequest.of(0, size + 1));
+        String nextCursor = null;
+        if (ents.size() > size) {
+            ents = ents.subList(0, size);
+            long lastId = ents.get(size - 1).getId();
+            nextCursor = new PageCursor(LOG_SORT_KEY, String.valueOf(lastId), lastId).encode();
+        }
+        log.debug("Returning {} logs for tourId={}, hasNext={}", ents.size(), tourId, nextCursor != null);
+        return new CursorPage<>(mapper.toDto(ents), nextCursor);
+    }
+
+    public List<TourLogSummary> getTourLogSummaries() {
+        log.info("Fetching aggregated log statistics for all tours");
+        List<TourLogSummary> summaries = tourLogRepository.findTourLogSummaries();
+        log.debug("Aggregated log statistics for {} tours", summaries.size());
+        return summaries;
+    }
+
     public List<TourLog> searchLogs(Long tourId, String q) throws SQLException {
         log.info("Searching logs for tourId={} with query='{}'", tourId, q);
-        List<TourLogEntity> ents = tourLogRepository.searchLogs(tourId, q);
+        List<TourLogEntity> ents = searchIndexService.isEnabled()
+                ? tourLogRepository.findAllById(searchIndexService.searchLogIds(tourId, q))
+                : tourLogRepository.searchLogs(tourId, q);
         log.debug("Search returned {} entries for tourId={} and query='{}'", ents.size(), tourId, q);
         return mapper.toDto(ents);
     }
@@ -49,87 +94,168 @@ public class TourLogService {
         return mapper.toDto(tourLogEntity);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public TourLog addLog(Long tourId, TourLog tourLog) throws SQLException {
         log.info("Adding TourLog for tourId={} with data={}", tourId, tourLog);
-        TourEntity tour = tourRepository.findById(tourId).orElseThrow(() -> new RuntimeException("Tour not found"));
+        TourEntity tour = tourRepository.findByIdForUpdate(tourId).orElseThrow(() -> new RuntimeException("Tour not found"));
         TourLogEntity tourLogEntity = mapper.toEntity(tourLog);
         tourLogEntity.setTour(tour);
+        validateTourLog(tourLogEntity);
+        ensureRunningSums(tour);
+
         tourLogRepository.save(tourLogEntity);
+        searchIndexService.indexLog(tourLogEntity);
         log.debug("Saved TourLogEntity with id={} for tourId={}", tourLogEntity.getId(), tourId);
 
-        validateTourLog(tourLogEntity);
-        updateTourStats(tour, tourId);
+        applyLogDelta(tour, tourLogEntity, 1);
+        tourRepository.save(tour);
 
         return mapper.toDto(tourLogEntity);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public TourLog updateLog(Long tourId, Long logId, TourLog dto) throws SQLException {
         log.info("Updating TourLog id={} for tourId={} with data={}", logId, tourId, dto);
-        TourEntity tour = tourRepository.findById(tourId)
+        TourEntity tour = tourRepository.findByIdForUpdate(tourId)
                 .orElseThrow(() -> new RuntimeException("Tour not found"));
         TourLogEntity existing = tourLogRepository.findById(logId)
                 .orElseThrow(() -> new RuntimeException("Log not found"));
         if (!existing.getTour().getId().equals(tourId))
             throw new RuntimeException("Log does not belong to tour");
+        ensureRunningSums(tour);
+
+        // alten Beitrag abziehen, bevor die Felder ueberschrieben werden
+        applyLogDelta(tour, existing, -1);
         existing.setLogDateTime(dto.getLogDateTime());
         existing.setComment(dto.getComment());
         existing.setDifficulty(dto.getDifficulty());
         existing.setTotalDistance(dto.getTotalDistance());
         existing.setTotalTime(dto.getTotalTime());
         existing.setRating(dto.getRating());
+        validateTourLog(existing);
+
         TourLogEntity saved = tourLogRepository.save(existing);
+        searchIndexService.indexLog(saved);
         log.debug("Updated TourLogEntity: {}", saved);
 
-        validateTourLog(existing);
-        updateTourStats(tour, tourId);
+        applyLogDelta(tour, saved, 1);
+        tourRepository.save(tour);
 
         return mapper.toDto(saved);
     }
 
+    @Transactional(rollbackFor = Exception.class)
     public void deleteLog(Long tourId, Long logId) throws SQLException {
         log.info("Deleting TourLog id={} for tourId={}", logId, tourId);
-        TourEntity tour = tourRepository.findById(tourId)
+        TourEntity tour = tourRepository.findByIdForUpdate(tourId)
                 .orElseThrow(() -> new RuntimeException("Tour not found"));
         TourLogEntity tourLogEntity = tourLogRepository.findById(logId).orElseThrow(() -> new RuntimeException("TourLog not found"));
         if (!tourLogEntity.getTour().getId().equals(tourId)) {
             throw new RuntimeException("TourLog does not belong to the specified Tour");
         }
-
-        updateTourStats(tour, tourId);
+        ensureRunningSums(tour);
 
         tourLogRepository.delete(tourLogEntity);
+        searchIndexService.removeLog(logId);
         log.debug("Deleted TourLogEntity id={} for tourId={}", logId, tourId);
+
+        applyLogDelta(tour, tourLogEntity, -1);
+        tourRepository.save(tour);
     }
 
+    // Berechnet die Statistik einer Tour komplett neu (ein Aggregat-Query statt alle Logs zu laden)
+    @Transactional(rollbackFor = Exception.class)
     public void updateTourStats(TourEntity tour, Long tourId) throws SQLException {
-        log.info("Updating stats for tourId={}", tourId);
-        int popularity = tourLogRepository.countByTourId(tour.getId());
-        double childFriendliness = computeChildFriendliness(tour);
-        log.debug("Computed stats popularity={} and childFriendliness={} for tourId={}", popularity, childFriendliness, tourId);
-        tour.setPopularity(popularity);
-        tour.setChildFriendliness(childFriendliness);
+        log.info("Recomputing stats for tourId={}", tourId);
+        applyTotals(tour, tourLogRepository.findTotalsByTourId(tour.getId()).orElse(null));
         tourRepository.save(tour);
     }
 
+    // Reparatur eines Batches (TourStatsRepairJob): Touren nach id gesperrt laden und aus den Logs neu aufbauen,
+    // falls die laufenden Summen auseinandergelaufen sind
+    @Transactional(rollbackFor = Exception.class)
+    public StatsRepair repairTourStatsBatch(long afterId, int batchSize) {
+        List<TourEntity> tours = tourRepository.findBatchForUpdate(afterId, PageRequest.of(0, batchSize));
+        if (tours.isEmpty()) {
+            return new StatsRepair(afterId, 0, 0);
+        }
+        Map<Long, TourLogTotals> totalsByTour = new HashMap<>();
+        for (TourLogTotals totals : tourLogRepository.findTotalsByTourIds(tours.stream().map(TourEntity::getId).toList())) {
+            totalsByTour.put(totals.tourId(), totals);
+        }
+
+        List<TourEntity> repaired = new ArrayList<>();
+        for (TourEntity tour : tours) {
+            int popularity = tour.getPopularity();
+            long difficultySum = tour.getDifficultySum();
+            long timeSecondsSum = tour.getTimeSecondsSum();
+            double distanceSum = tour.getDistanceSum();
+
+            applyTotals(tour, totalsByTour.get(tour.getId()));
+            if (popularity != tour.getPopularity() || difficultySum != tour.getDifficultySum()
+                    || timeSecondsSum != tour.getTimeSecondsSum() || Math.abs(distanceSum - tour.getDistanceSum()) > 1e-6) {
+                repaired.add(tour);
+                log.warn("Repaired drifted stats for tourId={}", tour.getId());
+            }
+        }
+        tourRepository.saveAll(repaired);
+        return new StatsRepair(tours.get(tours.size() - 1).getId(), tours.size(), repaired.size());
+    }
+
+    public record StatsRepair(long lastId, int tours, int repaired) {
+    }
+
+    // Migration: Touren, deren Logs vor den laufenden Summen angelegt wurden (Summen 0, popularity > 0)
+    public boolean hasToursWithoutRunningSums() {
+        return tourRepository.existsByPopularityGreaterThanAndDifficultySum(0, 0);
+    }
+
+    // Delta auf Summen von 0 wuerde childFriendliness verfaelschen: solche Touren vorher aus den Logs aufbauen.
+    // Faengt auch Aenderungen ab, die vor dem Nachtragen beim Start (TourStatsRepairJob) eintreffen
+    private void ensureRunningSums(TourEntity tour) {
+        if (tour.getPopularity() > 0 && tour.getDifficultySum() == 0) {
+            log.info("Building running stat sums for tourId={} from its logs", tour.getId());
+            applyTotals(tour, tourLogRepository.findTotalsByTourId(tour.getId()).orElse(null));
+        }
+    }
+
+    private void applyLogDelta(TourEntity tour, TourLogEntity tourLog, int sign) {
+        tour.setPopularity(tour.getPopularity() + sign);
+        tour.setDifficultySum(tour.getDifficultySum() + (long) sign * tourLog.getDifficulty());
+        tour.setTimeSecondsSum(tour.getTimeSecondsSum() + sign * tourLog.getTotalTime().getSeconds());
+        tour.setDistanceSum(tour.getDistanceSum() + sign * tourLog.getTotalDistance());
+        tour.setChildFriendliness(computeChildFriendliness(tour));
+        log.debug("Applied log delta {} to tourId={}: popularity={} childFriendliness={}",
+                sign, tour.getId(), tour.getPopularity(), tour.getChildFriendliness());
+    }
+
+    private void applyTotals(TourEntity tour, TourLogTotals totals) {
+        tour.setPopularity(totals != null ? totals.logCount().intValue() : 0);
+        tour.setDifficultySum(totals != null && totals.difficultySum() != null ? totals.difficultySum() : 0);
+        tour.setTimeSecondsSum(totals != null && totals.timeSecondsSum() != null ? totals.timeSecondsSum() : 0);
+        tour.setDistanceSum(totals != null && totals.distanceSum() != null ? totals.distanceSum() : 0);
+        tour.setChildFriendliness(computeChildFriendliness(tour));
+    }
+
     // Berechnet einen einfachen ChildFrindliness-Wert aus Difficulty und Zeit und Distance
-    private double computeChildFriendliness(TourEntity tourEntity) {
-        List<TourLogEntity> logs = tourLogRepository.findAllByTour(tourEntity);
-        if(logs.isEmpty()){
+    static double computeChildFriendliness(TourEntity tourEntity) {
+        int count = tourEntity.getPopularity();
+        if(count <= 0){
             return 0.0;
         }
 
         // Durchschnittlicher Schwierigkeitsgrad
-        double averageDifficulty = logs.stream().mapToInt(TourLogEntity::getDifficulty).average().orElse(0);
+        double averageDifficulty = (double) tourEntity.getDifficultySum() / count;
         double differenceScore = 6 - averageDifficulty; // Bereich: [1, 5]
 
         // Durchschnittliche Zeit in Sekunden
-        double averageTimeInSeconds = logs.stream().mapToDouble(tourLogEntity -> tourLogEntity.getTotalTime().getSeconds()).average().orElse(0);
+        double averageTimeInSeconds = (double) tourEntity.getTimeSecondsSum() / count;
         double averegeTimeInHours = averageTimeInSeconds / 3600.00;
         // Kürzere Tour = höherer Score, z.B. max 10h = Score bis ~10,
         double timeScore = Math.max(0, 10.0 - averegeTimeInHours); // Bereich: [0, 10]
 
         // Durchschnittliche Distanz in Metern
-        double averageDistance = logs.stream().mapToDouble(TourLogEntity::getTotalDistance).average().orElse(0);
+        double averageDistance = tourEntity.getDistanceSum() / count;
         // Kürzere Strecke = höherer Score, z.B. max 10 km → Score bis ~10
         double distanceScore =  Math.max(0, 10.0 - averageDistance);
 
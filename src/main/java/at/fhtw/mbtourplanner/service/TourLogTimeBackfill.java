@@ -0,0 +1,59 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.TourLogEntity;
+import at.fhtw.mbtourplanner.repository.TourLogRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// Migration: fuellt total_time_seconds fuer Logs, die vor Einfuehrung der Spalte gespeichert wurden
+@Component
+@Slf4j
+@Order(1)
+public class TourLogTimeBackfill implements ApplicationRunner {
+    private final TourLogRepository tourLogRepository;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public TourLogTimeBackfill(TourLogRepository tourLogRepository,
+                               @Value("${tours.log-time-backfill.enabled:true}") boolean enabled,
+                               @Value("${tours.log-time-backfill.batch-size:500}") int batchSize) {
+        this.tourLogRepository = tourLogRepository;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (enabled) {
+            backfill();
+        }
+    }
+
+    public int backfill() {
+        long lastId = 0;
+        int updated = 0;
+
+        List<TourLogEntity> batch;
+        do {
+            batch = tourLogRepository.findByTotalTimeSecondsIsNullAndIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, batchSize));
+            for (TourLogEntity tourLog : batch) {
+                lastId = tourLog.getId();
+                tourLog.syncTotalTimeSeconds();
+            }
+            tourLogRepository.saveAll(batch);
+            updated += batch.size();
+        } while (batch.size() == batchSize);
+
+        if (updated > 0) {
+            log.info("Backfilled total_time_seconds for {} tour logs", updated);
+        }
+        return updated;
+    }
+}
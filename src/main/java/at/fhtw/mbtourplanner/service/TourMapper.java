@@ -27,6 +27,8 @@ public class TourMapper extends AbstractMapper<TourEntity, Tour> {
                 .toLon(entity.getToLon())
                 .popularity(entity.getPopularity())
                 .childFriendliness(entity.getChildFriendliness())
+                .enrichmentStatus(entity.getEnrichmentStatus())
+                .enrichmentError(entity.getEnrichmentError())
                 .build();
     }
 
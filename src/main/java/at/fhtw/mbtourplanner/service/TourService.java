@@ -1,18 +1,28 @@
 package at.fhtw.mbtourplanner.service;
 
+import at.fhtw.mbtourplanner.model.CursorPage;
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import at.fhtw.mbtourplanner.model.Tour;
 import at.fhtw.mbtourplanner.repository.TourEntity;
 import at.fhtw.mbtourplanner.repository.TourRepository;
-import jakarta.transaction.Transactional;
+import at.fhtw.mbtourplanner.repository.TourSort;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import reactor.core.publisher.Mono;
 
 import java.io.IOException;
 import java.sql.SQLException;
 import java.time.Duration;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 @Slf4j
@@ -22,6 +32,13 @@ public class TourService {
     private final TourMapper tourMapper;
     private final GeocodingService geocodingService;
     private final OpenRouteService openRouteService;
+    private final SearchIndexService searchIndexService;
+    private final TourEnrichmentQueue enrichmentQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final EnrichmentStages enrichmentStages;
+    private final SpatialIndexService spatialIndexService;
+
+    static final String ROUTE_PROFILE = "foot-walking";
 
     public List<Tour> getAllTours() throws SQLException {
         log.info("Fetching all tours");
@@ -31,31 +48,222 @@ public class TourService {
         return tours;
     }
 
-    public List<Tour> searchTours(String q) {
-        log.info("Searching tours with query={}", q);
-        var entities = tourRepository.searchTours(q);
+    public CursorPage<Tour> getTourPage(String sortProperty, boolean descending, String cursor, int size) {
+        log.info("Fetching tour page sort={} descending={} cursor={} size={}", sortProperty, descending, cursor, size);
+        TourSort sort = TourSort.fromProperty(sortProperty);
+        String sortKey = sort.getProperty() + (descending ? ":desc" : ":asc");
+
+        Object afterValue = null;
+        Long afterId = null;
+        if (cursor != null && !cursor.isBlank()) {
+            PageCursor decoded = PageCursor.decode(cursor);
+            if (!decoded.sort().equals(sortKey)) {
+                throw new IllegalArgumentException("Cursor was issued for sort " + decoded.sort());
+            }
+            afterValue = sort.parse(decoded.value());
+            afterId = decoded.id();
+        }
+
+        // eine Zeile mehr laden, um zu wissen, ob es eine naechste Seite gibt
+        List<TourEntity> entities = tourRepository.findPage(sort, descending, afterValue, afterId, size + 1);
+        String nextCursor = null;
+        if (entities.size() > size) {
+            entities = entities.subList(0, size);
+            TourEntity last = entities.get(size - 1);
+            nextCursor = new PageCursor(sortKey, String.valueOf(sort.valueOf(last)), last.getId()).encode();
+        }
+        log.debug("Returning {} tours, hasNext={}", entities.size(), nextCursor != null);
+        return new CursorPage<>(tourMapper.toDto(entities), nextCursor);
+    }
+
+    public List<Tour> searchTours(String q, int page, int size) {
+        log.info("Searching tours with query={} page={} size={}", q, page, size);
+        var entities = searchIndexService.isEnabled()
+                ? findAllInOrder(searchIndexService.searchTourIds(q, page, size))
+                : tourRepository.searchRanked(q, page, size);
         log.debug("Found {} tours for query='{}'", entities.size(), q);
         return tourMapper.toDto(entities);
     }
 
+    // Touren, deren Startpunkt hoechstens radiusKm entfernt liegt, die naechste zuerst
+    public List<Tour> findNear(double lat, double lon, double radiusKm, int size) {
+        log.info("Finding tours near lat={} lon={} radiusKm={} size={}", lat, lon, radiusKm, size);
+        checkCoordinates(lat, lon);
+        if (!(radiusKm > 0)) {
+            throw new IllegalArgumentException("radiusKm must be positive");
+        }
+        var entities = findAllInOrder(spatialIndexService.findNear(lat, lon, radiusKm, size));
+        log.debug("Found {} tours within {} km", entities.size(), radiusKm);
+        return tourMapper.toDto(entities);
+    }
+
+    // Touren mit Startpunkt im Rechteck; minLon > maxLon fuer Rechtecke ueber die Datumsgrenze
+    public List<Tour> findWithin(double minLat, double minLon, double maxLat, double maxLon, int size) {
+        log.info("Finding tours within [{}, {}]..[{}, {}] size={}", minLat, minLon, maxLat, maxLon, size);
+        checkCoordinates(minLat, minLon);
+        checkCoordinates(maxLat, maxLon);
+        if (minLat > maxLat) {
+            throw new IllegalArgumentException("minLat must not be greater than maxLat");
+        }
+        var entities = findAllInOrder(spatialIndexService.findWithin(minLat, minLon, maxLat, maxLon, size));
+        log.debug("Found {} tours in bounding box", entities.size());
+        return tourMapper.toDto(entities);
+    }
+
+    private static void checkCoordinates(double lat, double lon) {
+        if (!(lat >= -90 && lat <= 90) || !(lon >= -180 && lon <= 180)) {
+            throw new IllegalArgumentException("Coordinates out of range: " + lat + ", " + lon);
+        }
+    }
+
+    private List<TourEntity> findAllInOrder(List<Long> ids) {
+        Map<Long, TourEntity> byId = new HashMap<>();
+        tourRepository.findAllById(ids).forEach(e -> byId.put(e.getId(), e));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
     public void addTour(Tour tour) throws SQLException {
         log.info("Adding new tour: {}", tour.getName());
-        var entity = tourMapper.toEntity(tour);
+        var entity = toNewEntity(tour);
+
+        if (enrichmentQueue.isAsync()) {
+            // sofort speichern, Geocoding und Routing laufen im Hintergrund
+            entity.setEnrichmentStatus(EnrichmentStatus.PENDING);
+            tourRepository.save(entity);
+            searchIndexService.indexTour(entity);
+            spatialIndexService.indexTour(entity);
+            Long id = entity.getId();
+            enrichmentQueue.submit(() -> enrichPending(id));
+            log.debug("Saved tour id={} pending enrichment", id);
+            return;
+        }
+
+        enrich(entity);
+        entity.setEnrichmentStatus(EnrichmentStatus.DONE);
+
+        tourRepository.save(entity);
+        searchIndexService.indexTour(entity);
+        spatialIndexService.indexTour(entity);
+        log.debug("Saved enriched tour id={} distance={} km time={}", entity.getId(), entity.getDistance(), entity.getEstimatedTime());
+    }
+
+    TourEntity toNewEntity(Tour tour) throws SQLException {
+        return asNewEntity(tourMapper.toEntity(tour));
+    }
+
+    // ids (z.B. aus einem Export) werden nicht uebernommen; Statistiken entstehen erst durch Logs
+    // und werden von TourLogService gepflegt
+    static TourEntity asNewEntity(TourEntity entity) {
+        entity.setId(null);
+        entity.setPopularity(0);
+        entity.setChildFriendliness(0.0);
+        return entity;
+    }
+
+    // Worker-Schritt: externe Aufrufe ausserhalb der Transaktion, Ergebnis danach unter Zeilensperre uebernehmen
+    public void enrichPending(Long id) {
+        TourEntity snapshot = tourRepository.findById(id).orElse(null);
+        if (snapshot == null || snapshot.getEnrichmentStatus() != EnrichmentStatus.PENDING) {
+            return;
+        }
+        log.info("Enriching tour id={} (attempt {})", id, snapshot.getEnrichmentAttempts() + 1);
+
+        try {
+            enrich(snapshot);
+        } catch (RuntimeException e) {
+            log.warn("Enrichment of tour id={} failed: {}", id, e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> tourRepository.findByIdForUpdate(id).ifPresent(locked -> {
+                if (locked.getEnrichmentStatus() != EnrichmentStatus.PENDING) {
+                    return;
+                }
+                int attempts = locked.getEnrichmentAttempts() + 1;
+                locked.setEnrichmentAttempts(attempts);
+                locked.setEnrichmentError(truncate(e.getMessage(), 1000));
+                if (attempts >= enrichmentQueue.getMaxAttempts()) {
+                    locked.setEnrichmentStatus(EnrichmentStatus.FAILED);
+                } else {
+                    enrichmentQueue.submit(() -> enrichPending(id), enrichmentQueue.backoffFor(attempts));
+                }
+                tourRepository.save(locked);
+            }));
+            return;
+        }
+
+        transactionTemplate.executeWithoutResult(status -> tourRepository.findByIdForUpdate(id).ifPresent(locked -> {
+            // in der Zwischenzeit geaendert (updateTour reichert selbst an): Ergebnis verwerfen
+            if (locked.getEnrichmentStatus() != EnrichmentStatus.PENDING
+                    || !Objects.equals(locked.getFromLocation(), snapshot.getFromLocation())
+                    || !Objects.equals(locked.getToLocation(), snapshot.getToLocation())) {
+                return;
+            }
+            copyEnrichment(snapshot, locked);
+            locked.setEnrichmentStatus(EnrichmentStatus.DONE);
+            locked.setEnrichmentError(null);
+            tourRepository.save(locked);
+            spatialIndexService.indexTour(locked);
+        }));
+        log.debug("Enriched tour id={}", id);
+    }
+
+    // nach einem Neustart alle noch offenen Auftraege wieder einplanen
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePendingEnrichment() {
+        if (!enrichmentQueue.isAsync()) {
+            return;
+        }
+        List<Long> pending = tourRepository.findIdsByEnrichmentStatus(EnrichmentStatus.PENDING);
+        pending.forEach(id -> enrichmentQueue.submit(() -> enrichPending(id)));
+        if (!pending.isEmpty()) {
+            log.info("Resumed enrichment for {} pending tours", pending.size());
+        }
+    }
 
-        double[] from = geocodingService.geocode(entity.getFromLocation());
-        double[] to   = geocodingService.geocode(entity.getToLocation());
+    // Geocoding und Routing fuer eine neue Tour (Koordinaten, Distanz, Dauer, Karte, Geometrie)
+    public void enrich(TourEntity entity) {
+        enrich(entity, GeocodePriority.INTERACTIVE);
+    }
+
+    // Bulk-Import: GeocodePriority.BULK, damit interaktive Anfragen bei Nominatim vorgezogen werden
+    public void enrich(TourEntity entity, GeocodePriority priority) {
+        enrichAsync(entity, priority).block();
+    }
+
+    public Mono<TourEntity> enrichAsync(TourEntity entity) {
+        return enrichAsync(entity, GeocodePriority.INTERACTIVE);
+    }
+
+    // Start und Ziel parallel geocodieren, Routing sobald beide vorliegen;
+    // schlaegt eine Seite fehl oder laeuft in den Timeout, bricht zip die andere ab
+    public Mono<TourEntity> enrichAsync(TourEntity entity, GeocodePriority priority) {
+        return enrichmentStages.total(Mono.zip(
+                        enrichmentStages.geocode(EnrichmentStages.GEOCODE_FROM, geocodingService.geocodeAsync(entity.getFromLocation(), priority)),
+                        enrichmentStages.geocode(EnrichmentStages.GEOCODE_TO, geocodingService.geocodeAsync(entity.getToLocation(), priority)))
+                .flatMap(coords -> {
+                    applyCoordinates(entity, coords.getT1(), coords.getT2());
+                    return enrichmentStages.route(openRouteService.getRouteInfoAsync(ROUTE_PROFILE, routeWaypoints(entity)));
+                })
+                .map(routeInfo -> {
+                    applyRoute(entity, routeInfo);
+                    return entity;
+                }));
+    }
+
+    static void applyCoordinates(TourEntity entity, double[] from, double[] to) {
         entity.setFromLat(from[0]);
         entity.setFromLon(from[1]);
         entity.setToLat(to[0]);
         entity.setToLon(to[1]);
+    }
 
-        var routeInfo = openRouteService.getRouteInfo(
-            "foot-walking",
-            List.of(
-                List.of(entity.getFromLon(), entity.getFromLat()),
-                List.of(entity.getToLon(),   entity.getToLat())
-            )
+    // ORS erwartet [lon, lat]
+    static List<List<Double>> routeWaypoints(TourEntity entity) {
+        return List.of(
+            List.of(entity.getFromLon(), entity.getFromLat()),
+            List.of(entity.getToLon(),   entity.getToLat())
         );
+    }
+
+    void applyRoute(TourEntity entity, Map<String, Object> routeInfo) {
         log.error("Route info: {}", routeInfo);
         String staticMapUrl = (String) routeInfo.get("staticMapUrl");
         Number distance = (Number) routeInfo.get("distance");
@@ -66,8 +274,7 @@ public class TourService {
             entity.setDistance(distance.doubleValue() / 1000.0);
             entity.setEstimatedTime(Duration.ofSeconds(duration.longValue()));
         } else {
-            @SuppressWarnings("unchecked")
-            List<List<Double>> coords = (List<List<Double>>) routeInfo.get("route");
+            RoutePath coords = (RoutePath) routeInfo.get("route");
             if (coords == null || coords.isEmpty()) {
                 throw new RuntimeException("No route coordinates found in route info");
             }
@@ -76,9 +283,7 @@ public class TourService {
             entity.setDistance(distance != null ? distance.doubleValue() / 1000.0 : 0.0);
             entity.setEstimatedTime(duration != null ? Duration.ofSeconds(duration.longValue()) : Duration.ZERO);
         }
-
-        tourRepository.save(entity);
-        log.debug("Saved enriched tour id={} distance={} km time={}", entity.getId(), entity.getDistance(), entity.getEstimatedTime());
+        entity.setRouteGeometry(encodeRouteGeometry(routeInfo));
     }
 
     public Tour getTourById(Long id) throws SQLException {
@@ -94,56 +299,78 @@ public class TourService {
         log.info("Updating tour id={} with data={}", id, tour.getName());
         var existing = tourRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Tour not found"));
+        if (applyUpdate(existing, tour)) {
+            enrich(existing);
+            existing.setEnrichmentStatus(EnrichmentStatus.DONE);
+            existing.setEnrichmentError(null);
+        } else {
+            log.debug("Locations of tour id={} unchanged, skipping geocoding and routing", id);
+        }
+
+        var saved = saveEdited(existing);
+        searchIndexService.indexTour(saved);
+        spatialIndexService.indexTour(saved);
+        var dto = tourMapper.toDto(saved);
+        log.debug("Updated tour: {}", dto);
+        return dto;
+    }
+
+    // uebernimmt die editierbaren Felder; true, wenn Koordinaten und Route neu berechnet werden muessen.
+    // Beide haengen nur von Start/Ziel ab: bei unveraenderten Orten bleiben die gespeicherten Werte
+    static boolean applyUpdate(TourEntity existing, Tour tour) {
+        boolean locationsChanged = !Objects.equals(existing.getFromLocation(), tour.getFromLocation())
+                || !Objects.equals(existing.getToLocation(), tour.getToLocation());
         existing.setName(tour.getName());
         existing.setDescription(tour.getDescription());
         existing.setFromLocation(tour.getFromLocation());
         existing.setToLocation(tour.getToLocation());
         existing.setTransportType(tour.getTransportType());
-        existing.setDistance(tour.getDistance());
-        existing.setEstimatedTime(tour.getEstimatedTime());
-        existing.setRouteImageUrl(tour.getRouteImageUrl());
-        existing.setPopularity(tour.getPopularity());
-        existing.setChildFriendliness(tour.getChildFriendliness());
-
-        double[] from = geocodingService.geocode(existing.getFromLocation());
-        double[] to   = geocodingService.geocode(existing.getToLocation());
-        existing.setFromLat(from[0]);
-        existing.setFromLon(from[1]);
-        existing.setToLat(to[0]);
-        existing.setToLon(to[1]);
-
-        var routeInfo = openRouteService.getRouteInfo(
-            "foot-walking",
-            List.of(
-                List.of(existing.getFromLon(), existing.getFromLat()),
-                List.of(existing.getToLon(),   existing.getToLat())
-            )
-        );
+        return locationsChanged || existing.getEnrichmentStatus() != EnrichmentStatus.DONE;
+    }
 
-        String staticMapUrl = (String) routeInfo.get("staticMapUrl");
-        Number distance = (Number) routeInfo.get("distance");
-        Number duration = (Number) routeInfo.get("duration");
+    // Ergebnis von updateTour unter Zeilensperre uebernehmen: waehrend der Anreicherung kann TourLogService
+    // popularity, childFriendliness und die laufenden Summen geaendert haben, die bleiben unangetastet
+    TourEntity saveEdited(TourEntity edited) {
+        AtomicReference<TourEntity> saved = new AtomicReference<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            var locked = tourRepository.findByIdForUpdate(edited.getId())
+                    .orElseThrow(() -> new RuntimeException("Tour not found"));
+            locked.setName(edited.getName());
+            locked.setDescription(edited.getDescription());
+            locked.setFromLocation(edited.getFromLocation());
+            locked.setToLocation(edited.getToLocation());
+            locked.setTransportType(edited.getTransportType());
+            copyEnrichment(edited, locked);
+            locked.setEnrichmentStatus(edited.getEnrichmentStatus());
+            locked.setEnrichmentError(edited.getEnrichmentError());
+            saved.set(tourRepository.save(locked));
+        });
+        return saved.get();
+    }
 
-        if (staticMapUrl != null && distance != null && duration != null) {
-            existing.setRouteImageUrl(staticMapUrl);
-            existing.setDistance(distance.doubleValue() / 1000.0);
-            existing.setEstimatedTime(Duration.ofSeconds(duration.longValue()));
-        } else {
-            @SuppressWarnings("unchecked")
-            List<List<Double>> coords = (List<List<Double>>) routeInfo.get("route");
-            if (coords == null || coords.isEmpty()) {
-                throw new RuntimeException("No route coordinates found in route info");
-            }
-            String staticMapUrlFallback = openRouteService.buildStaticMapUrl(coords, 600, 400, 14);
-            existing.setRouteImageUrl(staticMapUrlFallback);
-            existing.setDistance(distance != null ? distance.doubleValue() / 1000.0 : 0.0);
-            existing.setEstimatedTime(duration != null ? Duration.ofSeconds(duration.longValue()) : Duration.ZERO);
-        }
+    private static void copyEnrichment(TourEntity from, TourEntity to) {
+        to.setFromLat(from.getFromLat());
+        to.setFromLon(from.getFromLon());
+        to.setToLat(from.getToLat());
+        to.setToLon(from.getToLon());
+        to.setDistance(from.getDistance());
+        to.setEstimatedTime(from.getEstimatedTime());
+        to.setRouteImageUrl(from.getRouteImageUrl());
+        to.setRouteGeometry(from.getRouteGeometry());
+    }
 
-        var saved = tourRepository.save(existing);
-        var dto = tourMapper.toDto(saved);
-        log.debug("Updated tour: {}", dto);
-        return dto;
+    private static String truncate(String s, int max) {
+        return s != null && s.length() > max ? s.substring(0, max) : s;
+    }
+
+    // vereinfacht gespeichert (RouteSimplifier.forStorage): ORS liefert auf geraden Strecken viele kollineare Punkte
+    static String encodeRouteGeometry(Map<String, Object> routeInfo) {
+        RoutePath coords = routeInfo.get("route") instanceof RoutePath route ? route
+                : routeInfo.get("geometry") instanceof String geometry ? PolyLineEncoder.decode(geometry) : null;
+        if (coords == null || coords.isEmpty()) {
+            return null;
+        }
+        return PolyLineEncoder.encode(RouteSimplifier.forStorage(coords));
     }
 
     public void deleteTour(Long id) throws SQLException {
@@ -151,6 +378,8 @@ public class TourService {
         var entity = tourRepository.findById(id)
             .orElseThrow(() -> new RuntimeException("Tour not found"));
         tourRepository.delete(entity);
+        searchIndexService.removeTour(id);
+        spatialIndexService.removeTour(id);
         log.debug("Deleted tour with id={}", id);
     }
 }
\ No newline at end of file
@@ -0,0 +1,57 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+// eine Transaktion pro Batch: nur batch-size Touren gleichzeitig im Speicher und gesperrt.
+// Beim Start einmalig, falls Touren noch keine laufenden Summen haben (nach TourLogTimeBackfill, die Zeitsumme braucht total_time_seconds)
+@Component
+@Slf4j
+@Order(2)
+public class TourStatsRepairJob implements ApplicationRunner {
+    private final TourLogService tourLogService;
+    private final int batchSize;
+
+    public TourStatsRepairJob(TourLogService tourLogService,
+                              @Value("${tours.stats-repair.batch-size:500}") int batchSize) {
+        this.tourLogService = tourLogService;
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (tourLogService.hasToursWithoutRunningSums()) {
+            log.info("Backfilling running stat sums for tours created before they existed");
+            repairAll();
+        }
+    }
+
+    @Scheduled(cron = "${tours.stats-repair.cron:-}")
+    public void repair() {
+        int repaired = repairAll();
+        if (repaired > 0) {
+            log.warn("Tour stats repair job corrected {} tours", repaired);
+        }
+    }
+
+    public int repairAll() {
+        log.info("Recomputing stats for all tours (batchSize={})", batchSize);
+        long afterId = 0;
+        int tours = 0;
+        int repaired = 0;
+        TourLogService.StatsRepair batch;
+        do {
+            batch = tourLogService.repairTourStatsBatch(afterId, batchSize);
+            afterId = batch.lastId();
+            tours += batch.tours();
+            repaired += batch.repaired();
+        } while (batch.tours() == batchSize);
+        log.info("Recomputed stats for {} tours ({} repaired)", tours, repaired);
+        return repaired;
+    }
+}
@@ -0,0 +1,42 @@
+package at.fhtw.mbtourplanner.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+
+// Thread-Modell fuer ausgehende Arbeit (Anreicherung, Import); derselbe Schalter stellt Tomcat auf virtuelle Threads um
+@Component
+@Slf4j
+public class WorkerThreads {
+    private final boolean virtual;
+
+    public WorkerThreads(@Value("${spring.threads.virtual.enabled:false}") boolean virtual) {
+        this.virtual = virtual;
+        log.info("Worker threads: {}", virtual ? "virtual" : "platform");
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    public ThreadFactory factory(String prefix) {
+        return virtual
+                ? Thread.ofVirtual().name(prefix, 0).factory()
+                : Thread.ofPlatform().name(prefix, 0).daemon(true).factory();
+    }
+
+    // Die Anzahl bleibt in beiden Modi die Obergrenze fuer parallele Aufrufe bei Nominatim/ORS;
+    // virtuelle Threads geben ihren Carrier aber waehrend blockierender I/O frei
+    public ExecutorService newExecutor(String prefix, int threads) {
+        return Executors.newFixedThreadPool(threads, factory(prefix));
+    }
+
+    public ScheduledExecutorService newScheduledExecutor(String prefix, int threads) {
+        return Executors.newScheduledThreadPool(threads, factory(prefix));
+    }
+}
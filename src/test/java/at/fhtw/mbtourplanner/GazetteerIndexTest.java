@@ -0,0 +1,172 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+class GazetteerIndexTest {
+    private static final Logger log = LoggerFactory.getLogger(GazetteerIndexTest.class);
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void load_csvWithHeaderQuotedNamesAndBrokenLines() throws IOException {
+        Path file = write("places.csv",
+                "name,lat,lon",
+                "Wien,48.2082,16.3738",
+                "\"Stephansplatz, Wien\",48.2085,16.3731",
+                "Graz, Steiermark,47.0707,15.4395",
+                "kaputt,abc,16.0",
+                "",
+                "Wien,0,0");
+
+        GazetteerIndex index = GazetteerIndex.load(file);
+
+        assertThat(index.size()).isEqualTo(4);
+        int wien = index.find("wien");
+        // bei doppelten Namen gewinnt die erste Zeile
+        assertThat(index.lat(wien)).isEqualTo(48.2082);
+        assertThat(index.lon(wien)).isEqualTo(16.3738);
+        assertThat(index.find("stephansplatz, wien")).isNotNegative();
+        assertThat(index.lat(index.find("graz, steiermark"))).isEqualTo(47.0707);
+        assertThat(index.find("linz")).isEqualTo(-1);
+    }
+
+    @Test
+    void load_tsv() throws IOException {
+        Path file = write("places.tsv", "Linz, Oberösterreich\t48.3069\t14.2858");
+
+        GazetteerIndex index = GazetteerIndex.load(file);
+
+        assertThat(index.name(index.find("linz, oberösterreich"))).isEqualTo("linz, oberösterreich");
+        assertThat(index.lon(0)).isEqualTo(14.2858);
+    }
+
+    @Test
+    void prefixMatches_returnsSortedRange() {
+        GazetteerIndex index = new GazetteerIndex.Builder(4)
+                .add("Wiener Neustadt", 47.81, 16.24)
+                .add("Wien", 48.21, 16.37)
+                .add("Wels", 48.16, 14.03)
+                .add("Wiener Neudorf", 48.08, 16.31)
+                .add("Villach", 46.61, 13.85)
+                .build();
+
+        assertThat(index.prefixMatches("wien", 10)).containsExactly("wien", "wiener neudorf", "wiener neustadt");
+        assertThat(index.prefixMatches("wiener ", 1)).containsExactly("wiener neudorf");
+        assertThat(index.prefixMatches("w", 10)).hasSize(4);
+        assertThat(index.prefixMatches("x", 10)).isEmpty();
+        assertThat(index.prefixMatches("", 10)).hasSize(5);
+    }
+
+    @Test
+    void offlineGazetteer_exactOrUniqueQualifiedName() {
+        OfflineGazetteer gazetteer = new OfflineGazetteer(new GazetteerIndex.Builder(4)
+                .add("Wien, Österreich", 48.21, 16.37)
+                .add("Wiener Neustadt", 47.81, 16.24)
+                .add("Villach", 46.61, 13.85)
+                .add("Linz Donau", 48.31, 14.29)
+                .build());
+
+        assertThat(gazetteer.geocode("  VILLACH ")).hasValueSatisfying(c -> assertThat(c).containsExactly(46.61, 13.85));
+        assertThat(gazetteer.geocode("Wien,Österreich")).hasValueSatisfying(c -> assertThat(c).containsExactly(48.21, 16.37));
+        assertThat(gazetteer.geocode("Wien")).hasValueSatisfying(c -> assertThat(c).containsExactly(48.21, 16.37));
+        assertThat(gazetteer.geocode("Linz")).hasValueSatisfying(c -> assertThat(c).containsExactly(48.31, 14.29));
+        // Praefix mitten im Wort oder mehrdeutig: lieber Nominatim fragen
+        assertThat(gazetteer.geocode("Wiener N")).isEmpty();
+        assertThat(gazetteer.geocode("Wie")).isEmpty();
+        assertThat(gazetteer.geocode("Salzburg")).isEmpty();
+        assertThat(gazetteer.getHits()).isEqualTo(4);
+        assertThat(gazetteer.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    void offlineGazetteer_prefixAcrossWordBoundaryIsNoMatch() {
+        OfflineGazetteer gazetteer = new OfflineGazetteer(new GazetteerIndex.Builder(2)
+                .add("Wiener Neustadt", 47.81, 16.24)
+                .add("Baden-Baden", 48.76, 8.24)
+                .build());
+
+        assertThat(gazetteer.geocode("Wien")).isEmpty();
+        assertThat(gazetteer.geocode("Baden")).isEmpty();
+        assertThat(gazetteer.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void geocodingService_triesProvidersBeforeCacheAndNominatim() {
+        GeocodeCacheRepository repository = mock(GeocodeCacheRepository.class);
+        NominatimScheduler scheduler = mock(NominatimScheduler.class);
+        OfflineGazetteer gazetteer = new OfflineGazetteer(new GazetteerIndex.Builder(1).add("Graz", 47.07, 15.44).build());
+        GeocodingService service = new GeocodingService(
+                new GeocodingCache(repository, 100, Duration.ofDays(30), Duration.ofDays(1)),
+                scheduler, List.of(gazetteer), "http://localhost:1");
+
+        assertThat(service.geocode("graz")).containsExactly(47.07, 15.44);
+        assertThat(service.geocodeAsync("GRAZ", GeocodePriority.BULK).block()).containsExactly(47.07, 15.44);
+        verifyNoInteractions(repository, scheduler);
+    }
+
+    @Test
+    void load_largeFileStaysCompact() throws IOException {
+        loadGenerated(200_000);
+    }
+
+    // ./gradlew test --tests '*GazetteerIndexTest' -Dtours.gazetteer.large-test=true (braucht ca. 2 GB Heap)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.gazetteer.large-test", matches = "true")
+    void load_fiveMillionEntries() throws IOException {
+        log.info(loadGenerated(5_000_000));
+    }
+
+    // liefert die Messwerte als Text, geloggt wird nur im grossen Lauf
+    private String loadGenerated(int entries) throws IOException {
+        Path file = tempDir.resolve("gazetteer.tsv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (int i = 0; i < entries; i++) {
+                writer.write("Ort " + Long.toString(i * 7919L % entries, 36) + ", Region " + (i % 97) + "\t"
+                        + (46 + i % 2000 / 1000.0) + "\t" + (9 + i % 8000 / 1000.0) + "\n");
+            }
+        }
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long heapBefore = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        GazetteerIndex index = GazetteerIndex.load(file);
+        long loadMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        long heapAfter = runtime.totalMemory() - runtime.freeMemory();
+
+        assertThat(index.size()).isEqualTo(entries);
+        long lookupStart = System.nanoTime();
+        for (int i = 0; i < 100_000; i++) {
+            int n = i % entries;
+            assertThat(index.find("ort " + Long.toString(n * 7919L % entries, 36) + ", region " + (n % 97))).isNotNegative();
+        }
+        long lookupNanos = (System.nanoTime() - lookupStart) / 100_000;
+        assertThat(index.estimatedBytes()).isLessThan(64L * entries);
+        return String.format("Gazetteer: %d entries loaded in %d ms, index ~%d MB (heap delta ~%d MB), exact lookup ~%d ns",
+                entries, loadMillis, index.estimatedBytes() >> 20, Math.max(heapAfter - heapBefore, 0) >> 20, lookupNanos);
+    }
+
+    private Path write(String name, String... lines) throws IOException {
+        Path file = tempDir.resolve(name);
+        Files.write(file, List.of(lines), StandardCharsets.UTF_8);
+        return file;
+    }
+}
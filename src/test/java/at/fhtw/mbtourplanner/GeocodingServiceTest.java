@@ -0,0 +1,175 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.GeocodeCacheEntity;
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class GeocodingServiceTest {
+
+    private HttpServer server;
+    private AtomicInteger requests;
+    private String baseUrl;
+    private MutableClock clock;
+    private GeocodeCacheRepository repository;
+    private NominatimScheduler scheduler;
+
+    @BeforeEach
+    void startStubNominatim() throws IOException {
+        requests = new AtomicInteger();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/search", exchange -> {
+            requests.incrementAndGet();
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            String body = query.toLowerCase().contains("stephansplatz")
+                    ? "[{\"lat\":\"48.2085\",\"lon\":\"16.3731\"}]"
+                    : "[]";
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, bytes.length);
+            exchange.getResponseBody().write(bytes);
+            exchange.close();
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+        clock = new MutableClock(Instant.now());
+        repository = mock(GeocodeCacheRepository.class);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        scheduler = new NominatimScheduler(0, 1, Duration.ofSeconds(10), new WorkerThreads(false));
+    }
+
+    @AfterEach
+    void stopStubNominatim() {
+        scheduler.shutdown();
+        server.stop(0);
+    }
+
+    @Test
+    void normalize_collapsesCaseWhitespaceAndPunctuation() {
+        assertThat(GeocodingCache.normalize("  Stephansplatz ,Wien. "))
+                .isEqualTo(GeocodingCache.normalize("stephansplatz,   WIEN"))
+                .isEqualTo("stephansplatz, wien");
+    }
+
+    @Test
+    void geocode_equivalentAddressesHitNominatimOnce() {
+        GeocodingCache cache = new GeocodingCache(repository, 16, Duration.ofDays(30), Duration.ofDays(1), clock);
+        GeocodingService service = new GeocodingService(cache, scheduler, baseUrl);
+
+        double[] first = service.geocode("Stephansplatz, Wien");
+        double[] second = service.geocode("  stephansplatz ,WIEN ");
+
+        assertThat(first).containsExactly(48.2085, 16.3731);
+        assertThat(second).containsExactly(first);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(cache.stats().hitRatio()).isEqualTo(0.5);
+        verify(repository).save(any(GeocodeCacheEntity.class));
+    }
+
+    @Test
+    void geocode_unknownAddressIsCachedNegativelyUntilNegativeTtl() {
+        GeocodingCache cache = new GeocodingCache(repository, 16, Duration.ofDays(30), Duration.ofHours(1), clock);
+        GeocodingService service = new GeocodingService(cache, scheduler, baseUrl);
+
+        assertThatThrownBy(() -> service.geocode("Nirgendwo 1")).hasMessageContaining("No geocoding result");
+        assertThatThrownBy(() -> service.geocode("nirgendwo 1")).hasMessageContaining("No geocoding result");
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(cache.getNegativeHits()).isEqualTo(1);
+
+        clock.advance(Duration.ofHours(2));
+        assertThatThrownBy(() -> service.geocode("Nirgendwo 1")).hasMessageContaining("No geocoding result");
+        assertThat(requests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void geocode_persistentTierIsUsedAfterRestart() {
+        GeocodingService first = new GeocodingService(
+                new GeocodingCache(repository, 16, Duration.ofDays(30), Duration.ofDays(1), clock), scheduler, baseUrl);
+        first.geocode("Stephansplatz, Wien");
+
+        ArgumentCaptor<GeocodeCacheEntity> saved = ArgumentCaptor.forClass(GeocodeCacheEntity.class);
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getAddressKey()).isEqualTo("stephansplatz, wien");
+        when(repository.findById("stephansplatz, wien")).thenReturn(Optional.of(saved.getValue()));
+
+        GeocodingCache fresh = new GeocodingCache(repository, 16, Duration.ofDays(30), Duration.ofDays(1), clock);
+        double[] result = new GeocodingService(fresh, scheduler, baseUrl).geocode("Stephansplatz, Wien");
+
+        assertThat(result).containsExactly(48.2085, 16.3731);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(fresh.getDatabaseHits()).isEqualTo(1);
+    }
+
+    @Test
+    void geocode_expiredEntriesAreFetchedAgain() {
+        GeocodingCache cache = new GeocodingCache(repository, 16, Duration.ofDays(30), Duration.ofDays(1), clock);
+        GeocodingService service = new GeocodingService(cache, scheduler, baseUrl);
+
+        service.geocode("Stephansplatz, Wien");
+        clock.advance(Duration.ofDays(31));
+        service.geocode("Stephansplatz, Wien");
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    void geocode_memoryTierIsBoundedLru() {
+        GeocodingCache cache = new GeocodingCache(repository, 1, Duration.ofDays(30), Duration.ofDays(1), clock);
+
+        cache.put("a", 1.0, 1.0);
+        cache.put("b", 2.0, 2.0);
+
+        assertThat(cache.stats().size()).isEqualTo(1);
+        assertThat(cache.stats().evictions()).isEqualTo(1);
+        assertThat(cache.get("a")).isNull();
+        assertThat(cache.get("b").lat()).isEqualTo(2.0);
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
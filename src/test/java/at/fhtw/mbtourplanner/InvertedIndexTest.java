@@ -0,0 +1,55 @@
+package at.fhtw.mbtourplanner.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InvertedIndexTest {
+
+    @Test
+    void tokenize_lowercasesAndSplitsOnNonAlphanumerics() {
+        assertThat(InvertedIndex.tokenize("Wien-Süd, Donauinsel 2025!"))
+                .containsExactly("wien", "süd", "donauinsel", "2025");
+        assertThat(InvertedIndex.tokenize("  ")).isEmpty();
+        assertThat(InvertedIndex.tokenize(null)).isEmpty();
+    }
+
+    @Test
+    void search_matchesPrefixesAndRequiresAllTokens() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(1, "Donau Radweg", "Wien");
+        index.put(2, "Donauinsel Runde", "Wien");
+        index.put(3, "Kahlenberg", "Wien");
+
+        assertThat(index.search("don", 10)).containsExactly(1, 2);
+        assertThat(index.search("DONAU wien", 10)).containsExactly(1, 2);
+        assertThat(index.search("don kahl", 10)).isEmpty();
+        assertThat(index.search("wien", 2)).containsExactly(1, 2);
+        assertThat(index.search("", 10)).isEmpty();
+    }
+
+    @Test
+    void put_replacesPreviousTermsAndRemoveDropsDocument() {
+        InvertedIndex index = new InvertedIndex();
+        index.put(7, "Graz Schlossberg");
+        index.put(7, "Linz Poestlingberg");
+
+        assertThat(index.search("graz", 10)).isEmpty();
+        assertThat(index.search("linz", 10)).containsExactly(7);
+
+        index.remove(7);
+        assertThat(index.search("linz", 10)).isEmpty();
+        assertThat(index.size()).isZero();
+    }
+
+    @Test
+    void search_handlesOutOfOrderInsertsAndDuplicateTokens() {
+        InvertedIndex index = new InvertedIndex();
+        for (int id = 100; id > 0; id--) {
+            index.put(id, "tour tour", id % 2 == 0 ? "even" : "odd");
+        }
+
+        assertThat(index.search("tour", 1000)).hasSize(100).startsWith(1, 2, 3);
+        assertThat(index.search("even", 1000)).hasSize(50).doesNotContain(1, 99);
+    }
+}
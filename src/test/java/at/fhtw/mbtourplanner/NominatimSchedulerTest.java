@@ -0,0 +1,186 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class NominatimSchedulerTest {
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private List<Long> requestTimes;
+    private List<String> requestedAddresses;
+    private volatile int responseDelayMs;
+    private String baseUrl;
+    private NominatimScheduler scheduler;
+
+    @BeforeEach
+    void startStubNominatim() throws IOException {
+        requestTimes = new CopyOnWriteArrayList<>();
+        requestedAddresses = new CopyOnWriteArrayList<>();
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 256);
+        server.setExecutor(serverExecutor);
+        server.createContext("/search", exchange -> {
+            requestTimes.add(System.nanoTime());
+            String query = URLDecoder.decode(exchange.getRequestURI().getRawQuery(), StandardCharsets.UTF_8);
+            String address = query.substring(query.indexOf("q=") + 2);
+            requestedAddresses.add(address);
+            try {
+                Thread.sleep(responseDelayMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (address.startsWith("busy")) {
+                exchange.getResponseHeaders().add("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                exchange.close();
+                return;
+            }
+            byte[] body = "[{\"lat\":\"48.2\",\"lon\":\"16.37\"}]".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (var out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        baseUrl = "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @AfterEach
+    void stopStubNominatim() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void geocode_throughputStaysAtConfiguredCeiling() {
+        GeocodingService service = service(20, 1);
+        int addresses = 30;
+
+        List<double[]> results = Flux.range(0, addresses)
+                .flatMap(i -> service.geocodeAsync("Strasse " + i, GeocodePriority.BULK), addresses)
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(results).hasSize(addresses);
+        assertThat(requestTimes).hasSize(addresses);
+        // 20/s bei Burst 1: in keinem 1-s-Fenster mehr als 21 Anfragen, insgesamt mindestens 29 x 50 ms
+        List<Long> times = new ArrayList<>(requestTimes);
+        times.sort(null);
+        for (int i = 0; i + 21 < times.size(); i++) {
+            assertThat(times.get(i + 21) - times.get(i)).isGreaterThanOrEqualTo(Duration.ofMillis(1000).toNanos());
+        }
+        long elapsedMillis = (times.get(times.size() - 1) - times.get(0)) / 1_000_000;
+        assertThat(elapsedMillis).isBetween(29 * 50L * 9 / 10, 3000L);
+    }
+
+    @Test
+    void geocode_duplicateAddressesInFlightAreCoalesced() {
+        responseDelayMs = 300;
+        GeocodingService service = service(0, 1);
+
+        List<double[]> results = Flux.range(0, 20)
+                .flatMap(i -> service.geocodeAsync(i % 2 == 0 ? "Stephansplatz, Wien" : "  stephansplatz ,WIEN "), 20)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        assertThat(results).hasSize(20).allSatisfy(coords -> assertThat(coords).containsExactly(48.2, 16.37));
+        assertThat(requestedAddresses).hasSize(1);
+        assertThat(scheduler.getCoalesced()).isEqualTo(19);
+    }
+
+    @Test
+    void geocode_interactiveRequestsOvertakeQueuedBulkRequests() {
+        GeocodingService service = service(5, 1);
+        List<Mono<double[]>> calls = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            calls.add(service.geocodeAsync("Import " + i, GeocodePriority.BULK).cache());
+        }
+        calls.forEach(Mono::subscribe);
+        // warten, bis die BULK-Anfragen in der Schlange stehen
+        waitUntil(() -> scheduler.getQueued() == 8);
+
+        service.geocode("Interaktiv 1");
+
+        // hoechstens die bereits gestartete BULK-Anfrage und eine weitere kommen davor
+        assertThat(requestedAddresses.indexOf("Interaktiv 1")).isLessThanOrEqualTo(2);
+        Flux.merge(calls).blockLast(Duration.ofSeconds(5));
+        assertThat(requestedAddresses).hasSize(9);
+    }
+
+    @Test
+    void geocode_rateLimitResponseFailsWithoutNullPointerAndPausesScheduler() {
+        GeocodingService service = service(0, 1);
+
+        assertThatThrownBy(() -> service.geocode("busy 1"))
+                .isInstanceOf(WebClientResponseException.TooManyRequests.class);
+        long throttledAt = System.nanoTime();
+        service.geocode("Stephansplatz, Wien");
+
+        assertThat(scheduler.getThrottled()).isEqualTo(1);
+        // Retry-After: 1 wird eingehalten
+        assertThat(requestTimes.get(1) - throttledAt).isGreaterThan(Duration.ofMillis(900).toNanos());
+        // 429 wird nicht negativ gecacht
+        assertThatThrownBy(() -> service.geocode("busy 1")).isInstanceOf(WebClientResponseException.class);
+        assertThat(requestedAddresses).containsExactly("busy 1", "Stephansplatz, Wien", "busy 1");
+    }
+
+    @Test
+    void submit_hungRequestTimesOutAndReleasesItsKey() throws Exception {
+        scheduler = new NominatimScheduler(0, 1, Duration.ofMillis(200), new WorkerThreads(false));
+
+        CompletableFuture<double[]> hung = scheduler.submit("stephansplatz, wien", GeocodePriority.INTERACTIVE, Mono::never);
+
+        assertThatThrownBy(() -> hung.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TimeoutException.class);
+        assertThat(scheduler.getQueued()).isZero();
+        CompletableFuture<double[]> retry = scheduler.submit("stephansplatz, wien", GeocodePriority.INTERACTIVE,
+                () -> Mono.just(new double[]{48.2, 16.37}));
+        assertThat(retry.get(5, TimeUnit.SECONDS)).containsExactly(48.2, 16.37);
+    }
+
+    private GeocodingService service(double ratePerSecond, int burst) {
+        GeocodeCacheRepository repository = mock(GeocodeCacheRepository.class);
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+        scheduler = new NominatimScheduler(ratePerSecond, burst, Duration.ofSeconds(10), new WorkerThreads(false));
+        return new GeocodingService(new GeocodingCache(repository, 1000, Duration.ofDays(30), Duration.ofDays(1)), scheduler, baseUrl);
+    }
+
+    private static void waitUntil(java.util.function.BooleanSupplier condition) {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("condition not reached").isLessThan(deadline);
+            Thread.onSpinWait();
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package at.fhtw.mbtourplanner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OrsRouteParserTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @Test
+    void parse_readsSummaryAndGeometryOfRecordedResponse() throws IOException {
+        byte[] body = fixture("foot-walking-vienna.json");
+
+        OrsRouteParser.Result result = OrsRouteParser.parse(new ByteArrayInputStream(body));
+        OrsRouteParser.Result expected = parseTree(body);
+
+        assertThat(result.distance()).isEqualTo(7154.2);
+        assertThat(result.duration()).isEqualTo(5150.9);
+        assertThat(result.path().size()).isEqualTo(1200);
+        assertThat(result.path()).isEqualTo(expected.path());
+        assertThat(result.path().lat(0)).isLessThan(49).isGreaterThan(48);
+    }
+
+    @Test
+    void parse_ignoresElevationInThreeDimensionalPositions() throws IOException {
+        byte[] body = fixture("cycling-elevation.json");
+
+        OrsRouteParser.Result result = OrsRouteParser.parse(new ByteArrayInputStream(body));
+
+        assertThat(result.path()).isEqualTo(parseTree(body).path());
+    }
+
+    @Test
+    void parse_rejectsResponseWithoutFeatures() {
+        byte[] body = "{\"type\":\"FeatureCollection\",\"features\":[],\"metadata\":{}}".getBytes(StandardCharsets.UTF_8);
+
+        assertThatThrownBy(() -> OrsRouteParser.parse(new ByteArrayInputStream(body)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("no route");
+    }
+
+    @Test
+    void parse_allocatesFarLessThanTreeModel() throws Exception {
+        byte[] body = largeResponse(20_000);
+
+        long tree = allocatedBytes(() -> parseTree(body));
+        long streaming = allocatedBytes(() -> OrsRouteParser.parse(new ByteArrayInputStream(body)));
+
+        assertThat(streaming).as("streaming=%d tree=%d", streaming, tree).isLessThan(tree / 4);
+    }
+
+    @Test
+    void getRouteInfo_parsesStreamedResponseFromServer() throws IOException {
+        byte[] body = fixture("foot-walking-vienna.json");
+        HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/foot-walking/geojson", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/geo+json");
+            exchange.sendResponseHeaders(200, 0);
+            try (var out = exchange.getResponseBody()) {
+                // in kleinen Stuecken senden, damit mehrere DataBuffer ankommen
+                for (int i = 0; i < body.length; i += 1024) {
+                    out.write(body, i, Math.min(1024, body.length - i));
+                    out.flush();
+                }
+            }
+        });
+        server.start();
+        try {
+            OpenRouteService service = new OpenRouteService(WebClient.builder(), new RouteCache(1 << 20),
+                    "http://localhost:" + server.getAddress().getPort(), "key");
+
+            Map<String, Object> info = service.getRouteInfo("foot-walking", List.of(List.of(16.3738, 48.2082), List.of(16.3122, 48.1845)));
+
+            assertThat(info.get("distance")).isEqualTo(7154.2);
+            assertThat(((RoutePath) info.get("route")).size()).isEqualTo(1200);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    // bisheriger Weg ueber den JsonNode-Baum als Vergleichsbasis
+    private static OrsRouteParser.Result parseTree(byte[] body) throws IOException {
+        JsonNode features = MAPPER.readTree(body).path("features").get(0);
+        JsonNode summary = features.path("properties").path("summary");
+        JsonNode coordinates = features.path("geometry").path("coordinates");
+        RoutePath.Builder line = new RoutePath.Builder(coordinates.size());
+        for (JsonNode coord : coordinates) {
+            line.add(coord.get(1).asDouble(), coord.get(0).asDouble());
+        }
+        return new OrsRouteParser.Result(summary.path("distance").asDouble(), summary.path("duration").asDouble(), line.build());
+    }
+
+    private static byte[] fixture(String name) throws IOException {
+        try (InputStream in = OrsRouteParserTest.class.getResourceAsStream("/ors/" + name)) {
+            return in.readAllBytes();
+        }
+    }
+
+    private static byte[] largeResponse(int points) {
+        StringBuilder json = new StringBuilder("{\"type\":\"FeatureCollection\",\"features\":[{\"type\":\"Feature\",")
+                .append("\"properties\":{\"summary\":{\"distance\":98000.5,\"duration\":17640.0}},")
+                .append("\"geometry\":{\"type\":\"LineString\",\"coordinates\":[");
+        for (int i = 0; i < points; i++) {
+            if (i > 0) {
+                json.append(',');
+            }
+            json.append('[').append(16.0 + i * 1e-5).append(',').append(48.0 + i * 7e-6).append(']');
+        }
+        return json.append("]}}]}").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static long allocatedBytes(Callable<?> work) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 5; i++) {
+            work.call();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            work.call();
+            best = Math.min(best, threads.getThreadAllocatedBytes(threadId) - start);
+        }
+        return best;
+    }
+}
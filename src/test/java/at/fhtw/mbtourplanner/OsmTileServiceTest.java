@@ -0,0 +1,220 @@
+package at.fhtw.mbtourplanner.service;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class OsmTileServiceTest {
+
+    @TempDir
+    Path cacheDir;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AtomicInteger requests;
+    private AtomicInteger inFlight;
+    private AtomicInteger maxInFlight;
+    private String template;
+    private MutableClock clock;
+
+    @BeforeEach
+    void startStubTileServer() throws IOException {
+        byte[] png = samplePng();
+        requests = new AtomicInteger();
+        inFlight = new AtomicInteger();
+        maxInFlight = new AtomicInteger();
+        serverExecutor = Executors.newCachedThreadPool();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.setExecutor(serverExecutor);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                String path = exchange.getRequestURI().getPath();
+                if (path.startsWith("/14/404/")) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else if (path.startsWith("/14/500/")) {
+                    exchange.sendResponseHeaders(500, -1);
+                } else if (path.startsWith("/14/999/")) {
+                    // simuliert einen haengenden Tile-Server
+                    Thread.sleep(2000);
+                    exchange.sendResponseHeaders(504, -1);
+                } else {
+                    Thread.sleep(20);
+                    exchange.getResponseHeaders().add("Content-Type", "image/png");
+                    exchange.sendResponseHeaders(200, png.length);
+                    exchange.getResponseBody().write(png);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.start();
+        template = "http://localhost:" + server.getAddress().getPort() + "/{z}/{x}/{y}.png";
+        clock = new MutableClock(Instant.now());
+    }
+
+    @AfterEach
+    void stopStubTileServer() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void getTile_secondCallIsServedFromMemory() throws Exception {
+        TileCache cache = new TileCache(cacheDir, 16, Duration.ofHours(1), clock);
+        OsmTileService service = new OsmTileService(cache, template, 2, Duration.ofSeconds(5));
+
+        BufferedImage first = service.getTile(14, 1, 2);
+        BufferedImage second = service.getTile(14, 1, 2);
+
+        assertThat(first.getWidth()).isEqualTo(256);
+        assertThat(second).isSameAs(first);
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getMemoryHits()).isEqualTo(1);
+        assertThat(Files.exists(cacheDir.resolve("14/1/2.png"))).isTrue();
+    }
+
+    @Test
+    void getTile_diskTierSurvivesNewCacheInstance() throws Exception {
+        new OsmTileService(new TileCache(cacheDir, 16, Duration.ofHours(1), clock), template, 2, Duration.ofSeconds(5)).getTile(14, 3, 4);
+
+        TileCache fresh = new TileCache(cacheDir, 16, Duration.ofHours(1), clock);
+        new OsmTileService(fresh, template, 2, Duration.ofSeconds(5)).getTile(14, 3, 4);
+
+        assertThat(requests.get()).isEqualTo(1);
+        assertThat(fresh.getDiskHits()).isEqualTo(1);
+        assertThat(fresh.getMisses()).isZero();
+    }
+
+    @Test
+    void getTile_expiredEntriesAreFetchedAgain() throws Exception {
+        TileCache cache = new TileCache(cacheDir, 16, Duration.ofMinutes(10), clock);
+        OsmTileService service = new OsmTileService(cache, template, 2, Duration.ofSeconds(5));
+
+        service.getTile(14, 5, 6);
+        clock.advance(Duration.ofMinutes(11));
+        service.getTile(14, 5, 6);
+
+        assertThat(requests.get()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    void getTile_memoryTierIsBoundedLru() throws Exception {
+        TileCache cache = new TileCache(cacheDir, 2, Duration.ofHours(1), clock);
+        OsmTileService service = new OsmTileService(cache, template, 2, Duration.ofSeconds(5));
+
+        service.getTile(14, 0, 0);
+        service.getTile(14, 0, 1);
+        service.getTile(14, 0, 2);
+
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+
+        // aus dem Speicher verdraengt, aber noch auf der Platte
+        service.getTile(14, 0, 0);
+        assertThat(cache.getDiskHits()).isEqualTo(1);
+        assertThat(requests.get()).isEqualTo(3);
+    }
+
+    @Test
+    void getTile_httpErrorIsNotCached() {
+        TileCache cache = new TileCache(cacheDir, 16, Duration.ofHours(1), clock);
+        OsmTileService service = new OsmTileService(cache, template, 2, Duration.ofSeconds(5));
+
+        assertThatThrownBy(() -> service.getTile(14, 404, 1))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("HTTP 404");
+        assertThat(Files.exists(cacheDir.resolve("14/404/1.png"))).isFalse();
+    }
+
+    @Test
+    void getTiles_fetchesWholeGridWithinPerHostLimit() throws Exception {
+        TileCache cache = new TileCache(cacheDir, 64, Duration.ofHours(1), clock);
+        OsmTileService service = new OsmTileService(cache, template, 2, Duration.ofSeconds(5));
+
+        BufferedImage[][] tiles = service.getTiles(14, 10, 20, 6, 4);
+
+        assertThat(tiles).hasDimensions(6, 4);
+        for (BufferedImage[] column : tiles) {
+            assertThat(column).doesNotContainNull();
+        }
+        assertThat(requests.get()).isEqualTo(24);
+        assertThat(maxInFlight.get()).isBetween(1, 2);
+    }
+
+    @Test
+    void getTiles_partialFailuresAndTimeoutsLeaveGaps() throws Exception {
+        TileCache cache = new TileCache(cacheDir, 64, Duration.ofHours(1), clock);
+        OsmTileService service = new OsmTileService(cache, template, 4, Duration.ofMillis(300));
+
+        // x=998 liefert, x=999 laeuft in den Timeout, x=500 antwortet mit HTTP 500
+        BufferedImage[][] tiles = service.getTiles(14, 998, 0, 2, 2);
+        BufferedImage[][] failing = service.getTiles(14, 500, 0, 1, 2);
+
+        assertThat(tiles[0]).doesNotContainNull();
+        assertThat(tiles[1]).containsOnlyNulls();
+        assertThat(failing[0]).containsOnlyNulls();
+        assertThat(Files.exists(cacheDir.resolve("14/999/0.png"))).isFalse();
+        assertThat(Files.exists(cacheDir.resolve("14/500/0.png"))).isFalse();
+    }
+
+    private static byte[] samplePng() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(256, 256, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now;
+
+        MutableClock(Instant now) {
+            this.now = now;
+        }
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.model.Tour;
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+// Lasttest der reaktiven API gegen einen Geocoder, der 500 ms pro Anfrage braucht
+class ReactiveTourServiceLoadTest {
+
+    private static final Logger log = LoggerFactory.getLogger(ReactiveTourServiceLoadTest.class);
+    private static final int GEOCODER_DELAY_MS = 500;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AtomicInteger geocodeRequests;
+    private JdbcScheduler jdbc;
+    private TourRepository tourRepository;
+    private ReactiveTourService service;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        byte[] route;
+        try (InputStream in = getClass().getResourceAsStream("/ors/foot-walking-vienna.json")) {
+            route = in.readAllBytes();
+        }
+        geocodeRequests = new AtomicInteger();
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(serverExecutor);
+        server.createContext("/search", exchange -> {
+            geocodeRequests.incrementAndGet();
+            try {
+                Thread.sleep(GEOCODER_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, "[{\"lat\":\"48.2\",\"lon\":\"16.37\"}]".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/foot-walking/geojson", exchange -> respond(exchange, route));
+        server.start();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        GeocodeCacheRepository geocodeCacheRepository = mock(GeocodeCacheRepository.class);
+        when(geocodeCacheRepository.findById(anyString())).thenReturn(Optional.empty());
+        GeocodingService geocodingService = new GeocodingService(
+                new GeocodingCache(geocodeCacheRepository, 10_000, Duration.ofDays(30), Duration.ofDays(1)),
+                new NominatimScheduler(0, 1, Duration.ofSeconds(10), new WorkerThreads(false)), baseUrl);
+        OpenRouteService openRouteService = new OpenRouteService(WebClient.builder(), new RouteCache(1 << 24), baseUrl, "key");
+
+        tourRepository = mock(TourRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(tourRepository.save(any(TourEntity.class))).thenAnswer(inv -> {
+            TourEntity entity = inv.getArgument(0);
+            if (entity.getId() == null) {
+                entity.setId(ids.incrementAndGet());
+            }
+            return entity;
+        });
+        SearchIndexService searchIndexService = mock(SearchIndexService.class);
+        SpatialIndexService spatialIndexService = mock(SpatialIndexService.class);
+        TourMapper tourMapper = new TourMapper();
+        TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        TourService tourService = new TourService(tourRepository, tourMapper, geocodingService, openRouteService,
+                searchIndexService, mock(TourEnrichmentQueue.class), transactionTemplate,
+                new EnrichmentStages(Duration.ofSeconds(10), Duration.ofSeconds(10)), spatialIndexService);
+        jdbc = new JdbcScheduler(10, 10_000);
+        service = new ReactiveTourService(tourService, tourRepository, tourMapper, searchIndexService, jdbc, spatialIndexService);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbc.shutdown();
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void addTour_geocodesStartAndDestinationConcurrently() {
+        warmUp();
+
+        Tour saved = service.addTour(tour(0)).block(Duration.ofSeconds(10));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(saved.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.DONE);
+        assertThat(saved.getDistance()).isCloseTo(7.1542, org.assertj.core.data.Offset.offset(1e-9));
+        assertThat(geocodeRequests.get()).isEqualTo(2);
+    }
+
+    @Test
+    void addTour_manyToursAreNotBoundByRequestThreads() {
+        warmUp();
+
+        addTours(200);
+
+        assertThat(geocodeRequests.get()).isEqualTo(2 * 200);
+        verify(tourRepository, times(200)).save(any(TourEntity.class));
+    }
+
+    // ./gradlew test --tests '*ReactiveTourServiceLoadTest' -Dtours.reactive.large-test=true (Property an die Test-JVM weiterreichen)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.reactive.large-test", matches = "true")
+    void addTour_latencyIsOneGeocoderRoundTrip() {
+        warmUp();
+
+        long start = System.nanoTime();
+        service.addTour(tour(0)).block(Duration.ofSeconds(10));
+        long millis = (System.nanoTime() - start) / 1_000_000;
+
+        log.info("addTour took {} ms", millis);
+        // sequentiell waeren es mindestens 2 x 500 ms
+        assertThat(millis).isLessThan(2L * GEOCODER_DELAY_MS);
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "tours.reactive.large-test", matches = "true")
+    void addTour_throughputIsNotBoundByRequestThreads() {
+        int tours = 200;
+        warmUp();
+
+        long start = System.nanoTime();
+        addTours(tours);
+        double seconds = (System.nanoTime() - start) / 1e9;
+        double perSecond = tours / seconds;
+
+        log.info("{} tours in {} s ({} tours/s)", tours, seconds, perSecond);
+        // 400 Geocodes a 500 ms; blockierend mit 10 Threads waeren das ~20 s
+        assertThat(perSecond).isGreaterThan(50);
+    }
+
+    private void addTours(int tours) {
+        List<Tour> saved = Flux.range(0, tours)
+                .flatMap(i -> service.addTour(tour(i)), tours)
+                .collectList()
+                .block(Duration.ofSeconds(30));
+        assertThat(saved).hasSize(tours);
+    }
+
+    @Test
+    void updateTour_withUnchangedLocationsDoesNotCallGeocoder() {
+        TourEntity existing = TourEntity.builder().id(7L).name("Old").fromLocation("Start 1").toLocation("Ziel 1")
+                .transportType("walk").distance(3.0).build();
+        when(tourRepository.findById(7L)).thenReturn(Optional.of(existing));
+        when(tourRepository.findByIdForUpdate(7L)).thenReturn(Optional.of(existing));
+
+        Tour updated = service.updateTour(7L, tour(1)).block(Duration.ofSeconds(5));
+
+        assertThat(updated.getName()).isEqualTo("Tour 1");
+        assertThat(updated.getDistance()).isEqualTo(3.0);
+        assertThat(geocodeRequests.get()).isZero();
+    }
+
+    // erster Aufruf initialisiert Netty-Eventloops, DNS-Resolver und Verbindungspool
+    private void warmUp() {
+        Flux.range(-20, 20).flatMap(i -> service.addTour(tour(i))).blockLast(Duration.ofSeconds(20));
+        geocodeRequests.set(0);
+        clearInvocations(tourRepository);
+    }
+
+    private static Tour tour(int i) {
+        return Tour.builder()
+                .name("Tour " + i)
+                .description("Lasttest")
+                .fromLocation("Start " + i)
+                .toLocation("Ziel " + i)
+                .transportType("walk")
+                .build();
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
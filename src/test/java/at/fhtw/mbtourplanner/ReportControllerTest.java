@@ -2,6 +2,7 @@ package at.fhtw.mbtourplanner;
 
 import at.fhtw.mbtourplanner.controller.ReportController;
 import at.fhtw.mbtourplanner.service.ReportService;
+import at.fhtw.mbtourplanner.service.RoutePath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -12,8 +13,18 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 
+import java.io.OutputStream;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
@@ -35,11 +46,20 @@ class ReportControllerTest {
     }
 
     @Test
-    void downloadTourReport_returnsPdfWithCorrectHeadersAndBody() throws Exception {
+    void downloadTourReport_streamsPdfWithCorrectHeadersAndBody() throws Exception {
         byte[] pdfBytes = {0x25, 0x50, 0x44, 0x46};
-        BDDMockito.given(reportService.generateTourReportPDF(123L)).willReturn(pdfBytes);
+        ReportService.TourReport report = new ReportService.TourReport(null, null, RoutePath.EMPTY, List.of());
+        BDDMockito.given(reportService.loadTourReport(123L)).willReturn(report);
+        BDDMockito.willAnswer(inv -> {
+            inv.<OutputStream>getArgument(1).write(pdfBytes);
+            return null;
+        }).given(reportService).writeTourReportPDF(eq(report), any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/tour/123"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/api/reports/tour/123"))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_PDF))
                 .andExpect(header().string(
@@ -49,11 +69,27 @@ class ReportControllerTest {
     }
 
     @Test
-    void downloadSummaryReport_returnsPdfWithCorrectHeadersAndBody() throws Exception {
+    void downloadTourReport_unknownTourFailsBeforeStreaming() throws Exception {
+        BDDMockito.given(reportService.loadTourReport(7L)).willThrow(new SQLException("Tour not found with ID: 7"));
+
+        assertThatThrownBy(() -> mockMvc.perform(get("/api/reports/tour/7")))
+                .hasRootCauseInstanceOf(SQLException.class);
+        BDDMockito.then(reportService).should(never()).writeTourReportPDF(any(), any());
+    }
+
+    @Test
+    void downloadSummaryReport_streamsPdfWithCorrectHeadersAndBody() throws Exception {
         byte[] pdfBytes = {0x25, 0x50, 0x44, 0x46, 0x2D}; // "%PDF-"
-        BDDMockito.given(reportService.generateSummaryReportPDF()).willReturn(pdfBytes);
+        BDDMockito.willAnswer(inv -> {
+            inv.<OutputStream>getArgument(0).write(pdfBytes);
+            return null;
+        }).given(reportService).writeSummaryReportPDF(any(OutputStream.class));
+
+        MvcResult result = mockMvc.perform(get("/api/reports/summary"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
 
-        mockMvc.perform(get("/api/reports/summary"))
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(status().isOk())
                 .andExpect(content().contentType(MediaType.APPLICATION_PDF))
                 .andExpect(header().string(
@@ -61,4 +97,4 @@ class ReportControllerTest {
                         "attachment; filename= summary-report.pdf"))
                 .andExpect(content().bytes(pdfBytes));
     }
-}
\ No newline at end of file
+}
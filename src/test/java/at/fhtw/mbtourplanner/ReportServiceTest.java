@@ -1,10 +1,15 @@
 package at.fhtw.mbtourplanner;
 
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import at.fhtw.mbtourplanner.model.Tour;
 import at.fhtw.mbtourplanner.model.TourLog;
 import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLogSummary;
 import at.fhtw.mbtourplanner.repository.TourRepository;
 import at.fhtw.mbtourplanner.service.OpenRouteService;
+import at.fhtw.mbtourplanner.service.OsmTileService;
+import at.fhtw.mbtourplanner.service.PolyLineEncoder;
+import at.fhtw.mbtourplanner.service.RoutePath;
 import at.fhtw.mbtourplanner.service.ReportService;
 import at.fhtw.mbtourplanner.service.TourLogService;
 import at.fhtw.mbtourplanner.service.TourService;
@@ -17,9 +22,13 @@ import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
 
+import java.awt.image.BufferedImage;
+import java.io.OutputStream;
 import java.sql.SQLException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.AbstractList;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
@@ -27,9 +36,15 @@ import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 @ExtendWith(MockitoExtension.class)
 @MockitoSettings(strictness = Strictness.LENIENT)
@@ -44,6 +59,12 @@ class ReportServiceTest {
     @Mock
     private OpenRouteService openRouteService;
 
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private OsmTileService osmTileService;
+
     @InjectMocks
     private ReportService reportService;
 
@@ -82,7 +103,7 @@ class ReportServiceTest {
         given(tourLogService.getLogsForTour(1L)).willReturn(sampleLogs);
 
         given(openRouteService.getRouteInfo(anyString(),anyList()))
-                .willReturn(Map.of("route", List.of(List.of(0.0, 0.0), List.of(1.0, 1.0))));
+                .willReturn(Map.of("route", RoutePath.of(0.0, 0.0, 1.0, 1.0)));
     }
 
 
@@ -93,15 +114,138 @@ class ReportServiceTest {
         assertThat(ex.getMessage()).contains("Tour not found with ID: 2");
     }
 
+    @Test
+    void generateTourReportPDF_withStoredGeometry_shouldNotCallRouting() throws Exception {
+        TourEntity entity = TourEntity.builder()
+                .id(1L)
+                .fromLat(48.2082).fromLon(16.3738)
+                .toLat(48.1845).toLon(16.3122)
+                .routeGeometry(PolyLineEncoder.encode(RoutePath.of(48.2082, 16.3738, 48.1845, 16.3122)))
+                .build();
+        given(tourRepository.findById(1L)).willReturn(Optional.of(entity));
+        given(osmTileService.getTiles(anyInt(), anyInt(), anyInt(), anyInt(), anyInt()))
+                .willAnswer(inv -> new BufferedImage[inv.<Integer>getArgument(3)][inv.<Integer>getArgument(4)]);
+
+        byte[] pdf = reportService.generateTourReportPDF(1L);
+
+        assertThat(new String(pdf, 0, 4)).isEqualTo("%PDF");
+        verifyNoInteractions(openRouteService);
+        verify(tourRepository, never()).updateRouteGeometry(any(), any());
+    }
+
+    @Test
+    void generateTourReportPDF_withoutGeometry_shouldFetchAndStoreItOnce() throws Exception {
+        TourEntity entity = TourEntity.builder().id(1L).build();
+        RoutePath route = RoutePath.of(48.2082, 16.3738, 48.1845, 16.3122);
+        given(tourRepository.findById(1L)).willReturn(Optional.of(entity));
+        given(openRouteService.getRouteInfo(anyString(), anyList())).willReturn(Map.of("route", route));
+        given(osmTileService.getTiles(anyInt(), anyInt(), anyInt(), anyInt(), anyInt()))
+                .willAnswer(inv -> new BufferedImage[inv.<Integer>getArgument(3)][inv.<Integer>getArgument(4)]);
+
+        reportService.generateTourReportPDF(1L);
+
+        assertThat(entity.getRouteGeometry()).isEqualTo(PolyLineEncoder.encode(route));
+        verify(tourRepository).updateRouteGeometry(1L, PolyLineEncoder.encode(route));
+        verify(tourRepository, never()).save(any());
+    }
+
+    @Test
+    void generateTourReportPDF_orsWithoutGeometry_shouldDrawStartAndDestinationWithoutStoring() throws Exception {
+        TourEntity entity = TourEntity.builder().id(1L).fromLat(48.2082).fromLon(16.3738).toLat(48.1845).toLon(16.3122).build();
+        given(tourRepository.findById(1L)).willReturn(Optional.of(entity));
+        given(openRouteService.getRouteInfo(anyString(), anyList())).willReturn(Map.of("distance", 7000.0));
+        given(osmTileService.getTiles(anyInt(), anyInt(), anyInt(), anyInt(), anyInt()))
+                .willAnswer(inv -> new BufferedImage[inv.<Integer>getArgument(3)][inv.<Integer>getArgument(4)]);
+
+        byte[] pdf = reportService.generateTourReportPDF(1L);
+
+        assertThat(new String(pdf, 0, 4)).isEqualTo("%PDF");
+        assertThat(entity.getRouteGeometry()).isNull();
+        verify(tourRepository, never()).updateRouteGeometry(any(), any());
+    }
+
+    @Test
+    void generateTourReportPDF_pendingTour_shouldNotAskOrsForPlaceholderCoordinates() throws Exception {
+        TourEntity entity = TourEntity.builder().id(1L).enrichmentStatus(EnrichmentStatus.PENDING).build();
+        given(tourRepository.findById(1L)).willReturn(Optional.of(entity));
+        given(osmTileService.getTiles(anyInt(), anyInt(), anyInt(), anyInt(), anyInt()))
+                .willAnswer(inv -> new BufferedImage[inv.<Integer>getArgument(3)][inv.<Integer>getArgument(4)]);
+
+        reportService.generateTourReportPDF(1L);
+
+        verifyNoInteractions(openRouteService);
+        verify(tourRepository, never()).updateRouteGeometry(any(), any());
+    }
+
     @Test
     void generateSummaryReportPDF_shouldReturnPdfBytes() throws Exception {
-        given(tourService.getAllTours()).willReturn(List.of(sampleTour));
-        given(tourLogService.getLogsForTour(1L)).willReturn(sampleLogs);
+        given(tourLogService.getTourLogSummaries())
+                .willReturn(List.of(new TourLogSummary(1L, "Test Tour", 5.0, 1800.0, 4.0, 1L)));
 
         byte[] pdf = reportService.generateSummaryReportPDF();
         assertThat(pdf).isNotNull();
         assertThat(pdf.length).isGreaterThan(0);
         String header = new String(pdf, 0, 4);
         assertThat(header).isEqualTo("%PDF");
+        verify(tourLogService, never()).getLogsForTour(anyLong());
+        verify(tourService, never()).getAllTours();
+    }
+
+    @Test
+    void generateSummaryReportPDF_toursWithoutLogsShouldRenderZeroes() throws Exception {
+        given(tourLogService.getTourLogSummaries())
+                .willReturn(List.of(new TourLogSummary(2L, "Empty Tour", null, null, null, 0L)));
+
+        byte[] pdf = reportService.generateSummaryReportPDF();
+
+        assertThat(new String(pdf, 0, 4)).isEqualTo("%PDF");
+    }
+
+    @Test
+    void writeSummaryReportPDF_flushesRowsWhileWritingAndLeavesStreamOpen() throws Exception {
+        TrackingOutputStream out = new TrackingOutputStream();
+        List<Long> bytesSeenPerTour = new ArrayList<>();
+        // merkt sich beim Abholen jeder Zeile, wie viele Bytes bereits im Stream angekommen sind
+        List<TourLogSummary> summaries = new AbstractList<>() {
+            @Override
+            public TourLogSummary get(int index) {
+                bytesSeenPerTour.add(out.written);
+                return new TourLogSummary((long) index, "Tour " + index, 5.0, 1800.0, 4.0, 1L);
+            }
+
+            @Override
+            public int size() {
+                return 1000;
+            }
+        };
+        given(tourLogService.getTourLogSummaries()).willReturn(summaries);
+
+        reportService.writeSummaryReportPDF(out);
+
+        // bei gepuffertem Output waere bis zum Ende noch nichts im Stream angekommen
+        assertThat(bytesSeenPerTour.get(0)).isLessThan(bytesSeenPerTour.get(999));
+        assertThat(bytesSeenPerTour.get(999)).isGreaterThan(0L);
+        assertThat(out.written).isGreaterThan(bytesSeenPerTour.get(999));
+        assertThat(out.closed).isFalse();
+    }
+
+    private static class TrackingOutputStream extends OutputStream {
+        private long written;
+        private boolean closed;
+
+        @Override
+        public void write(int b) {
+            written++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            written += len;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
     }
 }
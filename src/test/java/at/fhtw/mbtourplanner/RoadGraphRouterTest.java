@@ -0,0 +1,214 @@
+package at.fhtw.mbtourplanner.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RoadGraphRouterTest {
+    private static final Logger log = LoggerFactory.getLogger(RoadGraphRouterTest.class);
+
+    private static final int COLUMNS = 12;
+
+    private RoadGraph graph;
+    private RoadGraphRouter router;
+
+    @BeforeEach
+    void loadFixture() throws Exception {
+        graph = RoadGraph.load(fixture());
+        router = new RoadGraphRouter(graph);
+    }
+
+    @Test
+    void load_buildsCsrWithForwardAndReverseEdges() {
+        assertThat(graph.nodeCount()).isEqualTo(12 * 12 + 2);
+        // Einbahnen zaehlen einfach, alle anderen Kanten doppelt
+        // (Fluss: 9 senkrechte Kanten fehlen, Spalte 3 hat dort keine Bruecke)
+        int horizontal = 12 * 11;
+        int vertical = 11 * 12 - 9 - 10;
+        int edges = 2 * horizontal + 2 * vertical + 10 + 2 + 2;
+        assertThat(graph.edgeCount()).isEqualTo(edges);
+        assertThat(graph.lat(0)).isEqualTo(48.2);
+        assertThat(graph.lon(COLUMNS - 1)).isCloseTo(16.3908, within(1e-9));
+    }
+
+    @Test
+    void route_matchesDijkstraOnRandomPairs() {
+        Random random = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            int source = random.nextInt(144);
+            int target = random.nextInt(144);
+            RoadGraphRouter.Path path = router.route(source, target);
+            double expected = dijkstra(graph, source, target);
+
+            assertThat(path).as("%d -> %d", source, target).isNotNull();
+            assertThat(path.meters()).as("%d -> %d", source, target).isCloseTo(expected, within(0.01));
+            assertThat(path.nodes()[0]).isEqualTo(source);
+            assertThat(path.nodes()[path.nodes().length - 1]).isEqualTo(target);
+        }
+    }
+
+    @Test
+    void route_crossesRiverOnlyOnBridgesAndRespectsOneWay() {
+        // Zeile 5 -> 6 in Spalte 2: naechste Bruecke liegt in Spalte 0
+        RoadGraphRouter.Path detour = router.route(node(5, 2), node(6, 2));
+        assertThat(detour.nodes()).containsSubsequence(node(5, 0), node(6, 0));
+
+        // Spalte 3 nur nach Norden befahrbar: nach Sueden geht es ueber eine Nachbarspalte
+        assertThat(router.route(node(1, 3), node(2, 3)).nodes()).containsExactly(node(1, 3), node(2, 3));
+        assertThat(router.route(node(2, 3), node(1, 3)).nodes()).hasSizeGreaterThan(2);
+    }
+
+    @Test
+    void route_returnsNullForUnreachableTarget() {
+        assertThat(router.route(node(0, 0), 144)).isNull();
+        assertThat(router.route(144, 145).nodes()).containsExactly(144, 145);
+    }
+
+    @Test
+    void localRoutingProvider_usesOrsContractAndFallsBackOutsideGraph() {
+        LocalRoutingProvider provider = new LocalRoutingProvider(graph, 300);
+
+        // [lon, lat] wie im ORS-Request, leicht neben den Knoten
+        RouteCache.Route route = provider.route("foot-walking",
+                List.of(List.of(16.36005, 48.20002), List.of(16.3908, 48.2220))).orElseThrow();
+
+        RoutePath path = PolyLineEncoder.decode(route.polyline());
+        assertThat(path.lat(0)).isCloseTo(48.2, within(1e-5));
+        assertThat(path.lat(path.size() - 1)).isCloseTo(48.222, within(1e-5));
+        assertThat(route.distance()).isCloseTo(dijkstra(graph, node(0, 0), node(11, 11)), within(0.01));
+        assertThat(route.duration()).isCloseTo(route.distance() / (5 / 3.6), within(0.01));
+        assertThat(provider.route("foot-walking", List.of(List.of(16.36, 48.2), List.of(14.28, 48.30)))).isEmpty();
+        assertThat(provider.route("foot-walking", List.of(List.of(16.36, 48.2), List.of(16.42, 48.23)))).isEmpty();
+        assertThat(provider.getRouted()).isEqualTo(1);
+        assertThat(provider.getFallbacks()).isEqualTo(2);
+    }
+
+    @Test
+    void openRouteService_answersFromLocalProviderWithoutCallingOrs() {
+        OpenRouteService service = new OpenRouteService(WebClient.builder(), new RouteCache(1 << 20),
+                List.of(new LocalRoutingProvider(graph, 300)), "http://localhost:1", "key");
+        List<List<Double>> coords = List.of(List.of(16.36, 48.2), List.of(16.3628, 48.214));
+
+        Map<String, Object> info = service.getRouteInfo("cycling-regular", coords);
+        Map<String, Object> async = service.getRouteInfoAsync("cycling-regular", coords).block();
+
+        assertThat(info).containsKeys("distance", "duration", "route", "geometry");
+        assertThat(((RoutePath) info.get("route")).size()).isGreaterThan(2);
+        assertThat(async).isEqualTo(info);
+        assertThat((double) info.get("duration")).isCloseTo((double) info.get("distance") / (15 / 3.6), within(0.01));
+    }
+
+    @Test
+    void route_settlesFewNodesOnLargeGrid() {
+        routeRandomPairs(300);
+    }
+
+    // ./gradlew test --tests '*RoadGraphRouterTest' -Dtours.routing.large-test=true (1 Mio. Knoten)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.routing.large-test", matches = "true")
+    void route_benchmarkMillionNodes() {
+        log.info(routeRandomPairs(1000));
+    }
+
+    // Gitter mit zufaellig entfernten Kanten und Umwegfaktoren, Abfragen zwischen zufaelligen Knoten; liefert die Messwerte als Text
+    private static String routeRandomPairs(int side) {
+        Random random = new Random(11);
+        long buildStart = System.nanoTime();
+        RoadGraph.Builder builder = new RoadGraph.Builder(side * side, 4 * side * side);
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                builder.addNode(46 + r * 0.001, 9 + c * 0.0015);
+            }
+        }
+        for (int r = 0; r < side; r++) {
+            for (int c = 0; c < side; c++) {
+                int v = r * side + c;
+                if (c + 1 < side && random.nextInt(10) > 0) {
+                    double meters = 115 * (1 + random.nextDouble() * 0.5);
+                    builder.addEdge(v, v + 1, meters).addEdge(v + 1, v, meters);
+                }
+                if (r + 1 < side && random.nextInt(10) > 0) {
+                    double meters = 111 * (1 + random.nextDouble() * 0.5);
+                    builder.addEdge(v, v + side, meters).addEdge(v + side, v, meters);
+                }
+            }
+        }
+        RoadGraph graph = builder.build();
+        long buildMillis = (System.nanoTime() - buildStart) / 1_000_000;
+        RoadGraphRouter router = new RoadGraphRouter(graph);
+
+        int queries = 200;
+        long[] nanos = new long[queries];
+        long settled = 0;
+        int found = 0;
+        for (int i = -20; i < queries; i++) {
+            int source = random.nextInt(graph.nodeCount());
+            int target = random.nextInt(graph.nodeCount());
+            long start = System.nanoTime();
+            RoadGraphRouter.Path path = router.route(source, target);
+            if (i >= 0) {
+                nanos[i] = System.nanoTime() - start;
+                if (path != null) {
+                    found++;
+                    settled += path.settled();
+                }
+            }
+        }
+        Arrays.sort(nanos);
+        assertThat(found).isGreaterThan(queries * 9 / 10);
+        // A* besucht deutlich weniger als den halben Graphen
+        assertThat(settled / Math.max(found, 1)).isLessThan(graph.nodeCount() / 2);
+        return String.format("Routing: %d nodes, %d edges (%d MB) built in %d ms; %d queries p50 %.2f ms, p99 %.2f ms, avg %d settled",
+                graph.nodeCount(), graph.edgeCount(), graph.estimatedBytes() >> 20, buildMillis, queries,
+                nanos[queries / 2] / 1e6, nanos[queries * 99 / 100] / 1e6, settled / found);
+    }
+
+    private static double dijkstra(RoadGraph graph, int source, int target) {
+        double[] dist = new double[graph.nodeCount()];
+        Arrays.fill(dist, Double.POSITIVE_INFINITY);
+        dist[source] = 0;
+        PriorityQueue<double[]> queue = new PriorityQueue<>((a, b) -> Double.compare(a[0], b[0]));
+        queue.add(new double[]{0, source});
+        while (!queue.isEmpty()) {
+            double[] top = queue.poll();
+            int v = (int) top[1];
+            if (top[0] > dist[v]) {
+                continue;
+            }
+            if (v == target) {
+                return dist[v];
+            }
+            for (int e = graph.firstEdge(v); e < graph.edgeEnd(v); e++) {
+                int w = graph.edgeTarget(e);
+                double candidate = dist[v] + graph.edgeLength(e);
+                if (candidate < dist[w]) {
+                    dist[w] = candidate;
+                    queue.add(new double[]{candidate, w});
+                }
+            }
+        }
+        return Double.POSITIVE_INFINITY;
+    }
+
+    private static int node(int row, int column) {
+        return row * COLUMNS + column;
+    }
+
+    private static Path fixture() throws URISyntaxException {
+        return Path.of(RoadGraphRouterTest.class.getResource("/routing/vienna-grid.graph").toURI());
+    }
+}
@@ -0,0 +1,128 @@
+package at.fhtw.mbtourplanner.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.Disposable;
+import reactor.core.publisher.Sinks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteCacheTest {
+
+    private static final List<List<Double>> VIENNA = List.of(List.of(16.3738, 48.2082), List.of(16.3122, 48.1845));
+
+    @Test
+    void getOrLoad_coordinatesWithinQuantizationShareOneEntry() {
+        RouteCache cache = new RouteCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.getOrLoad("foot-walking", VIENNA, () -> load(loads));
+        cache.getOrLoad("foot-walking", List.of(List.of(16.373801, 48.208199), List.of(16.3122, 48.1845)), () -> load(loads));
+        cache.getOrLoad("cycling-regular", VIENNA, () -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(2);
+        assertThat(cache.stats().hits()).isEqualTo(1);
+        assertThat(cache.stats().size()).isEqualTo(2);
+    }
+
+    @Test
+    void getOrLoad_evictsLeastRecentlyUsedWhenByteBudgetIsExceeded() {
+        String polyline = "x".repeat(400);
+        RouteCache cache = new RouteCache(1000);
+
+        for (int i = 0; i < 3; i++) {
+            cache.getOrLoad("foot-walking", List.of(List.of(16.0 + i, 48.0)), () -> new RouteCache.Route(1, 1, polyline));
+        }
+
+        assertThat(cache.stats().size()).isEqualTo(1);
+        assertThat(cache.stats().evictions()).isEqualTo(2);
+        assertThat(cache.getBytes()).isLessThanOrEqualTo(1000);
+    }
+
+    @Test
+    void getOrLoad_concurrentRequestsMakeOneUpstreamCall() throws Exception {
+        RouteCache cache = new RouteCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<RouteCache.Route>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 8; i++) {
+                results.add(executor.submit(() -> cache.getOrLoad("foot-walking", VIENNA, () -> {
+                    loads.incrementAndGet();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return new RouteCache.Route(7000, 5400, "_p~iF~ps|U");
+                })));
+            }
+            Thread.sleep(200);
+            release.countDown();
+            for (Future<RouteCache.Route> result : results) {
+                assertThat(result.get().distance()).isEqualTo(7000);
+            }
+        }
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getCoalesced() + cache.stats().hits()).isEqualTo(7);
+    }
+
+    @Test
+    void getOrLoad_failuresAreNotCached() {
+        RouteCache cache = new RouteCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+
+        assertThatThrownBy(() -> cache.getOrLoad("foot-walking", VIENNA, () -> {
+            throw new IllegalStateException("ORS unavailable");
+        })).hasMessage("ORS unavailable");
+        cache.getOrLoad("foot-walking", VIENNA, () -> load(loads));
+
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    void getOrLoadAsync_ownerCancelDoesNotFailWaiters() throws Exception {
+        RouteCache cache = new RouteCache(1 << 20);
+        AtomicInteger loads = new AtomicInteger();
+        Sinks.One<RouteCache.Route> upstream = Sinks.one();
+
+        Disposable owner = cache.getOrLoadAsync("foot-walking", VIENNA, () -> {
+            loads.incrementAndGet();
+            return upstream.asMono();
+        }).subscribe();
+        CompletableFuture<RouteCache.Route> waiter = cache.getOrLoadAsync("foot-walking", VIENNA, () -> {
+            loads.incrementAndGet();
+            return upstream.asMono();
+        }).toFuture();
+        owner.dispose();
+        upstream.tryEmitValue(new RouteCache.Route(7000, 5400, "_p~iF~ps|U"));
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS).distance()).isEqualTo(7000);
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getCoalesced()).isEqualTo(1);
+    }
+
+    @Test
+    void polyline_decodeReversesEncode() {
+        RoutePath path = RoutePath.of(48.2082, 16.3738, 48.1845, 16.3122, -33.8688, 151.2093);
+
+        assertThat(PolyLineEncoder.decode(PolyLineEncoder.encode(path))).isEqualTo(path);
+    }
+
+    private static RouteCache.Route load(AtomicInteger loads) {
+        loads.incrementAndGet();
+        return new RouteCache.Route(7000, 5400, "_p~iF~ps|U");
+    }
+}
@@ -0,0 +1,92 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+@ExtendWith(MockitoExtension.class)
+class RouteGeometryBackfillTest {
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private OpenRouteService openRouteService;
+
+    private RouteGeometryBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        backfill = new RouteGeometryBackfill(tourRepository, openRouteService, new WorkerThreads(false), true, 2);
+    }
+
+    @Test
+    void backfill_processesRowsInBatchesUntilExhausted() {
+        TourEntity t1 = TourEntity.builder().id(1L).build();
+        TourEntity t2 = TourEntity.builder().id(2L).build();
+        TourEntity t3 = TourEntity.builder().id(5L).build();
+        given(tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(eq(EnrichmentStatus.DONE), eq(0L), any(Pageable.class)))
+                .willReturn(List.of(t1, t2));
+        given(tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(eq(EnrichmentStatus.DONE), eq(2L), any(Pageable.class)))
+                .willReturn(List.of(t3));
+        given(openRouteService.getRouteInfo(eq(TourService.ROUTE_PROFILE), anyList()))
+                .willReturn(Map.of("route", RoutePath.of(48.2, 16.37, 48.21, 16.38)));
+        given(tourRepository.updateRouteGeometry(anyLong(), anyString())).willReturn(1);
+
+        int updated = backfill.backfill();
+
+        assertThat(updated).isEqualTo(3);
+        verify(tourRepository).updateRouteGeometry(1L, PolyLineEncoder.encode(RoutePath.of(48.2, 16.37, 48.21, 16.38)));
+        verify(tourRepository, times(3)).updateRouteGeometry(anyLong(), anyString());
+        verify(tourRepository, never()).saveAll(anyList());
+        verify(tourRepository, never()).findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(eq(EnrichmentStatus.DONE), eq(5L), any(Pageable.class));
+    }
+
+    @Test
+    void start_doesNothingWhenDisabled() {
+        new RouteGeometryBackfill(tourRepository, openRouteService, new WorkerThreads(false), false, 2).start();
+
+        verifyNoInteractions(tourRepository, openRouteService);
+    }
+
+    @Test
+    void backfill_marksToursWhereRoutingFailsSoTheyAreNotRetried() {
+        TourEntity ok = TourEntity.builder().id(1L).fromLat(1.0).build();
+        TourEntity broken = TourEntity.builder().id(2L).fromLat(2.0).build();
+        given(tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(eq(EnrichmentStatus.DONE), eq(0L), any(Pageable.class)))
+                .willReturn(List.of(ok, broken));
+        given(tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(eq(EnrichmentStatus.DONE), eq(2L), any(Pageable.class)))
+                .willReturn(List.of());
+        given(openRouteService.getRouteInfo(anyString(), anyList()))
+                .willReturn(Map.of("route", RoutePath.of(1.0, 1.0)))
+                .willThrow(new RuntimeException("ORS unavailable"));
+        given(tourRepository.updateRouteGeometry(anyLong(), anyString())).willReturn(1);
+
+        int updated = backfill.backfill();
+
+        assertThat(updated).isEqualTo(1);
+        verify(tourRepository).updateRouteGeometry(eq(1L), eq(PolyLineEncoder.encode(RoutePath.of(1.0, 1.0))));
+        verify(tourRepository).updateRouteGeometry(2L, RouteGeometryBackfill.NO_GEOMETRY);
+    }
+}
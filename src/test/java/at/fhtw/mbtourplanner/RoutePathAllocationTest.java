@@ -0,0 +1,135 @@
+package at.fhtw.mbtourplanner.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.awt.Point;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Allokationsvergleich fuer eine 20k-Punkte-Route: alte Listen-Darstellung gegen RoutePath
+class RoutePathAllocationTest {
+
+    private static final int POINTS = 20_000;
+    private static JsonNode coordinates;
+
+    @BeforeAll
+    static void buildOrsGeometry() {
+        ArrayNode array = new ObjectMapper().createArrayNode();
+        for (int i = 0; i < POINTS; i++) {
+            array.addArray().add(16.3 + i * 1e-5).add(48.2 + Math.sin(i / 500.0) * 0.01);
+        }
+        coordinates = array;
+    }
+
+    @Test
+    void parse_packedPathAllocatesFarLessThanNestedLists() {
+        long lists = allocatedBytes(RoutePathAllocationTest::parseAsLists);
+        long packed = allocatedBytes(RoutePathAllocationTest::parseAsPath);
+
+        // ~16 Bytes pro Punkt fuer das Array gegenueber ~80 Bytes fuer List.of(Double, Double)
+        assertThat(packed).as("packed=%d lists=%d", packed, lists).isLessThan(lists / 3);
+    }
+
+    @Test
+    void encodeAndProject_packedPathAvoidsPerPointObjects() {
+        List<List<Double>> lists = parseAsLists();
+        RoutePath path = parseAsPath();
+
+        long before = allocatedBytes(() -> {
+            String polyline = encodeLists(lists);
+            List<double[]> copy = new ArrayList<>();
+            for (List<Double> point : lists) {
+                copy.add(new double[]{point.get(0), point.get(1)});
+            }
+            long sum = 0;
+            for (double[] coord : copy) {
+                Point p = new Point((int) Math.round(coord[1] * 1000), (int) Math.round(coord[0] * 1000));
+                sum += p.x + p.y;
+            }
+            return polyline.length() + sum;
+        });
+        long after = allocatedBytes(() -> {
+            String polyline = PolyLineEncoder.encode(path);
+            long sum = 0;
+            for (int i = 0; i < path.size(); i++) {
+                sum += Math.round(path.lon(i) * 1000) + Math.round(path.lat(i) * 1000);
+            }
+            return polyline.length() + sum;
+        });
+
+        assertThat(PolyLineEncoder.encode(path)).isEqualTo(encodeLists(lists));
+        assertThat(after).as("after=%d before=%d", after, before).isLessThan(before / 2);
+    }
+
+    @Test
+    void decode_roundTripsThroughPackedPath() {
+        RoutePath path = parseAsPath();
+
+        RoutePath decoded = PolyLineEncoder.decode(PolyLineEncoder.encode(path));
+
+        assertThat(decoded.size()).isEqualTo(POINTS);
+        assertThat(decoded.lat(POINTS - 1)).isCloseTo(path.lat(POINTS - 1), org.assertj.core.data.Offset.offset(1e-5));
+        assertThat(decoded.lon(0)).isCloseTo(path.lon(0), org.assertj.core.data.Offset.offset(1e-5));
+    }
+
+    private static List<List<Double>> parseAsLists() {
+        List<List<Double>> line = new ArrayList<>();
+        for (JsonNode coord : coordinates) {
+            line.add(List.of(coord.get(1).asDouble(), coord.get(0).asDouble()));
+        }
+        return line;
+    }
+
+    private static RoutePath parseAsPath() {
+        RoutePath.Builder line = new RoutePath.Builder(coordinates.size());
+        for (JsonNode coord : coordinates) {
+            line.add(coord.get(1).asDouble(), coord.get(0).asDouble());
+        }
+        return line.build();
+    }
+
+    // bisherige Implementierung von PolyLineEncoder.encode als Vergleichsbasis
+    private static String encodeLists(List<List<Double>> path) {
+        StringBuilder result = new StringBuilder();
+        long prevLat = 0, prevLon = 0;
+        for (List<Double> point : path) {
+            long lat = Math.round(point.get(0) * 1e5);
+            long lon = Math.round(point.get(1) * 1e5);
+            for (long num : new long[]{lat - prevLat, lon - prevLon}) {
+                long sgnNum = (num < 0) ? ~(num << 1) : (num << 1);
+                while (sgnNum >= 0x20) {
+                    result.append((char) (((sgnNum & 0x1f) | 0x20) + 63));
+                    sgnNum >>= 5;
+                }
+                result.append((char) (sgnNum + 63));
+            }
+            prevLat = lat;
+            prevLon = lon;
+        }
+        return result.toString();
+    }
+
+    private static long allocatedBytes(Supplier<?> work) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        for (int i = 0; i < 5; i++) {
+            work.get();
+        }
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = threads.getThreadAllocatedBytes(threadId);
+            Object result = work.get();
+            best = Math.min(best, threads.getThreadAllocatedBytes(threadId) - start);
+            assertThat(result).isNotNull();
+        }
+        return best;
+    }
+}
@@ -0,0 +1,184 @@
+package at.fhtw.mbtourplanner.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.awt.image.BufferedImage;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RouteSimplifierTest {
+    private static final Logger log = LoggerFactory.getLogger(RouteSimplifierTest.class);
+
+    @Test
+    void metersPerPixel_matchesWebMercatorResolution() {
+        assertThat(RouteSimplifier.metersPerPixel(0, 0)).isCloseTo(156_543.03, within(0.01));
+        assertThat(RouteSimplifier.metersPerPixel(0, 14)).isCloseTo(9.55, within(0.01));
+        assertThat(RouteSimplifier.metersPerPixel(60, 14)).isCloseTo(9.55 / 2, within(0.01));
+    }
+
+    @Test
+    void simplify_dropsCollinearPointsAndKeepsEndpoints() {
+        RoutePath straight = RoutePath.of(48.2, 16.37, 48.201, 16.37, 48.202, 16.37, 48.203, 16.37);
+
+        assertThat(RouteSimplifier.simplify(straight, 0.5)).isEqualTo(RoutePath.of(48.2, 16.37, 48.203, 16.37));
+        assertThat(RouteSimplifier.simplify(RoutePath.of(48.2, 16.37, 48.3, 16.4), 1000)).isEqualTo(RoutePath.of(48.2, 16.37, 48.3, 16.4));
+    }
+
+    @Test
+    void simplify_keepsDeviationsAboveTolerance() {
+        // Ausschlag in der Mitte: 0.0001 Grad Laenge sind bei 48 Grad ca. 7,4 m
+        RoutePath spike = RoutePath.of(48.2, 16.37, 48.201, 16.3701, 48.202, 16.37);
+
+        assertThat(RouteSimplifier.simplify(spike, 5).size()).isEqualTo(3);
+        assertThat(RouteSimplifier.simplify(spike, 10).size()).isEqualTo(2);
+        // Rundtour: Start gleich Ziel, der Wendepunkt muss bleiben
+        RoutePath roundTrip = RoutePath.of(48.2, 16.37, 48.21, 16.37, 48.2, 16.37);
+        assertThat(RouteSimplifier.simplify(roundTrip, 10)).isEqualTo(roundTrip);
+    }
+
+    @Test
+    void simplify_staysWithinToleranceOfOriginal() {
+        RoutePath route = randomWalk(5_000, 3);
+        double tolerance = 20;
+
+        RoutePath simplified = RouteSimplifier.simplify(route, tolerance);
+
+        assertThat(simplified.size()).isBetween(3, route.size() / 2);
+        assertThat(maxDeviationMeters(route, simplified)).isLessThanOrEqualTo(tolerance * 1.01);
+    }
+
+    @Test
+    void staticRouteMapUrl_fitsRouteImageUrlColumnForLongRoutes() {
+        OpenRouteService service = new OpenRouteService(WebClient.builder(), new RouteCache(1 << 20), "http://localhost:1", "key");
+        RoutePath route = randomWalk(50_000, 5);
+
+        String url = service.getStaticRouteMapUrl(route, 600, 400, 14);
+        String detailed = service.getStaticRouteMapUrl(RoutePath.of(48.2, 16.37, 48.2005, 16.3701, 48.201, 16.37), 600, 400, 18);
+
+        assertThat(url.length()).isLessThanOrEqualTo(OpenRouteService.MAX_STATIC_MAP_URL_LENGTH);
+        assertThat(url).contains("&markers=" + route.lat(0) + "," + route.lon(0) + ",blue1|");
+        assertThat(detailed).endsWith(URLEncoder.encode(
+                PolyLineEncoder.encode(RoutePath.of(48.2, 16.37, 48.2005, 16.3701, 48.201, 16.37)), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void simplify_fiftyThousandPointsAtZoom() {
+        RoutePath route = randomWalk(50_000, 9);
+        int zoom = 14;
+
+        RoutePath visible = RouteSimplifier.forZoom(route, zoom, 0.5);
+        RoutePath stored = RouteSimplifier.forStorage(route);
+
+        assertThat(visible.size()).isLessThan(route.size() / 4);
+        assertThat(stored.size()).isLessThan(route.size());
+        assertThat(maxDeviationMeters(route, visible)).isLessThanOrEqualTo(RouteSimplifier.metersPerPixel(route.lat(0), zoom) * 0.5 * 1.01);
+    }
+
+    // ./gradlew test --tests '*RouteSimplifierTest' -Dtours.simplifier.large-test=true (Property an die Test-JVM weiterreichen)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.simplifier.large-test", matches = "true")
+    void simplify_benchmarkFiftyThousandPoints() {
+        RoutePath route = randomWalk(50_000, 9);
+        int zoom = 14;
+        for (int i = 0; i < 5; i++) {
+            RouteSimplifier.forZoom(route, zoom, 0.5);
+        }
+
+        int runs = 20;
+        long start = System.nanoTime();
+        RoutePath visible = null;
+        for (int i = 0; i < runs; i++) {
+            visible = RouteSimplifier.forZoom(route, zoom, 0.5);
+        }
+        double simplifyMillis = (System.nanoTime() - start) / 1e6 / runs;
+        RoutePath stored = RouteSimplifier.forStorage(route);
+
+        BufferedImage image = new BufferedImage(2048, 2048, BufferedImage.TYPE_INT_RGB);
+        int minX = (int) Math.floor((route.lon(0) + 180) / 360 * (1 << zoom)) - 3;
+        int minY = (int) Math.floor((1 - Math.log(Math.tan(Math.toRadians(route.lat(0))) + 1 / Math.cos(Math.toRadians(route.lat(0)))) / Math.PI) / 2 * (1 << zoom)) - 3;
+        double fullMillis = drawMillis(image, route, zoom, minX, minY);
+        double visibleMillis = drawMillis(image, visible, zoom, minX, minY);
+
+        int fullUrl = URLEncoder.encode(PolyLineEncoder.encode(route), StandardCharsets.UTF_8).length();
+        int visibleUrl = URLEncoder.encode(PolyLineEncoder.encode(visible), StandardCharsets.UTF_8).length();
+        log.info(String.format("Route simplification: %d -> %d points at zoom %d in %.2f ms (stored: %d points); "
+                        + "drawing %.2f ms -> %.2f ms; polyline %d -> %d chars",
+                route.size(), visible.size(), zoom, simplifyMillis, stored.size(),
+                fullMillis, visibleMillis, fullUrl, visibleUrl));
+
+        assertThat(visibleMillis).isLessThan(fullMillis);
+    }
+
+    private static double drawMillis(BufferedImage image, RoutePath path, int zoom, int minX, int minY) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            ReportService.drawRouteOnImage(image, path, zoom, minX, minY, 256);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best / 1e6;
+    }
+
+    // ORS-aehnliche Geometrie: ca. 2 m Schritte, lange gerade Abschnitte mit leichtem Rauschen und Abbiegungen
+    private static RoutePath randomWalk(int points, long seed) {
+        Random random = new Random(seed);
+        RoutePath.Builder builder = new RoutePath.Builder(points);
+        double lat = 48.2;
+        double lon = 16.37;
+        double heading = random.nextDouble() * 2 * Math.PI;
+        for (int i = 0; i < points; i++) {
+            builder.add(lat, lon);
+            if (random.nextInt(200) == 0) {
+                heading += (random.nextDouble() - 0.5) * Math.PI;
+            }
+            double step = 2.0 / 111_000;
+            lat += Math.cos(heading) * step + random.nextGaussian() * 2e-7;
+            lon += Math.sin(heading) * step / Math.cos(Math.toRadians(lat)) + random.nextGaussian() * 2e-7;
+        }
+        return builder.build();
+    }
+
+    // groesster Abstand eines Originalpunkts zur vereinfachten Linie, lokal equirektangular in Metern
+    private static double maxDeviationMeters(RoutePath original, RoutePath simplified) {
+        double metersPerDegree = 111_195;
+        double xScale = metersPerDegree * Math.cos(Math.toRadians(original.lat(0)));
+        double max = 0;
+        int segment = 0;
+        for (int i = 0; i < original.size(); i++) {
+            double px = original.lon(i) * xScale;
+            double py = original.lat(i) * metersPerDegree;
+            double best = Double.MAX_VALUE;
+            // Punkte sind geordnet: nur die Segmente um die aktuelle Position pruefen
+            for (int s = Math.max(0, segment - 2); s < Math.min(simplified.size() - 1, segment + 3); s++) {
+                double d = segmentDistance(px, py,
+                        simplified.lon(s) * xScale, simplified.lat(s) * metersPerDegree,
+                        simplified.lon(s + 1) * xScale, simplified.lat(s + 1) * metersPerDegree);
+                if (d < best) {
+                    best = d;
+                }
+            }
+            if (segment + 1 < simplified.size() && original.lat(i) == simplified.lat(segment + 1)
+                    && original.lon(i) == simplified.lon(segment + 1)) {
+                segment++;
+            }
+            max = Math.max(max, best);
+        }
+        return max;
+    }
+
+    private static double segmentDistance(double px, double py, double ax, double ay, double bx, double by) {
+        double dx = bx - ax;
+        double dy = by - ay;
+        double length2 = dx * dx + dy * dy;
+        double t = length2 == 0 ? 0 : Math.max(0, Math.min(1, ((px - ax) * dx + (py - ay) * dy) / length2));
+        return Math.hypot(px - ax - t * dx, py - ay - t * dy);
+    }
+}
@@ -0,0 +1,92 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLogEntity;
+import at.fhtw.mbtourplanner.repository.TourLogRepository;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class SearchIndexServiceTest {
+
+    private TourRepository tourRepository;
+    private SearchIndexService service;
+
+    @BeforeEach
+    void setUp() {
+        tourRepository = mock(TourRepository.class);
+        service = new SearchIndexService(tourRepository, mock(TourLogRepository.class), "memory");
+    }
+
+    @Test
+    void searchLogIds_onlySearchesLogsOfTheGivenTour() {
+        TourEntity wien = TourEntity.builder().id(1L).build();
+        TourEntity graz = TourEntity.builder().id(2L).build();
+        service.indexLog(log(10L, wien, "Regen am Kahlenberg"));
+        service.indexLog(log(11L, graz, "Regen am Schlossberg"));
+        service.indexLog(log(12L, wien, "Sonne"));
+
+        assertThat(service.searchLogIds(1L, "regen")).containsExactly(10L);
+        assertThat(service.searchLogIds(2L, "regen")).containsExactly(11L);
+        assertThat(service.searchLogIds(3L, "regen")).isEmpty();
+    }
+
+    @Test
+    void removeTourAndLog_dropLogsFromTheSearch() {
+        TourEntity wien = TourEntity.builder().id(1L).build();
+        TourEntity graz = TourEntity.builder().id(2L).build();
+        service.indexLog(log(10L, wien, "Regen"));
+        service.indexLog(log(11L, graz, "Regen"));
+        service.indexLog(log(12L, graz, "Regen und Wind"));
+
+        service.removeTour(1L);
+        service.removeLog(12L);
+
+        assertThat(service.searchLogIds(1L, "regen")).isEmpty();
+        assertThat(service.searchLogIds(2L, "regen")).containsExactly(11L);
+    }
+
+    @Test
+    void searchTourIds_largePageDoesNotOverflow() {
+        service.indexTour(TourEntity.builder().id(1L).name("Donau Radweg").build());
+
+        assertThat(service.searchTourIds("donau", 0, 10)).containsExactly(1L);
+        assertThat(service.searchTourIds("donau", Integer.MAX_VALUE / 10, 100)).isEmpty();
+    }
+
+    @Test
+    void rebuild_keepsWritesCommittedWhileLoading() {
+        service.indexTour(TourEntity.builder().id(9L).name("Alter Stand").build());
+        // die Seite ist gelesen, danach wird Tour 1 umbenannt, Tour 2 geloescht und Tour 3 angelegt
+        given(tourRepository.findByIdGreaterThanOrderByIdAsc(eq(0L), any(Pageable.class))).willAnswer(invocation -> {
+            List<TourEntity> page = List.of(
+                    TourEntity.builder().id(1L).name("Donau Radweg").build(),
+                    TourEntity.builder().id(2L).name("Kahlenberg").build());
+            service.indexTour(TourEntity.builder().id(1L).name("Schlossberg").build());
+            service.removeTour(2L);
+            service.indexTour(TourEntity.builder().id(3L).name("Donauinsel").build());
+            return page;
+        });
+
+        service.rebuild();
+
+        assertThat(service.searchTourIds("donauinsel", 0, 10)).containsExactly(3L);
+        assertThat(service.searchTourIds("radweg", 0, 10)).isEmpty();
+        assertThat(service.searchTourIds("schlossberg", 0, 10)).containsExactly(1L);
+        assertThat(service.searchTourIds("kahlenberg", 0, 10)).isEmpty();
+        assertThat(service.searchTourIds("stand", 0, 10)).isEmpty();
+    }
+
+    private static TourLogEntity log(long id, TourEntity tour, String comment) {
+        return TourLogEntity.builder().id(id).tour(tour).comment(comment).build();
+    }
+}
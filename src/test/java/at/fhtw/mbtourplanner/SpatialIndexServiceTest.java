@@ -0,0 +1,143 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
+import at.fhtw.mbtourplanner.repository.Geohash;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.AdditionalAnswers;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+// ohne Test-Transaktion, damit indexTour/removeTour wie im Betrieb nach dem Commit greifen
+@DataJpaTest(showSql = false)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SpatialIndexServiceTest {
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate transactionTemplate;
+    private SpatialIndexService service;
+    private TourEntity stephansplatz;
+    private TourEntity prater;
+    private TourEntity linz;
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        service = new SpatialIndexService(tourRepository, transactionTemplate, 5);
+        stephansplatz = tourRepository.save(tour("Stephansplatz", 48.2082, 16.3738, EnrichmentStatus.DONE));
+        prater = tourRepository.save(tour("Prater", 48.2170, 16.3950, EnrichmentStatus.DONE));
+        linz = tourRepository.save(tour("Linz", 48.3069, 14.2858, EnrichmentStatus.DONE));
+        tourRepository.save(tour("Pending", 0, 0, EnrichmentStatus.PENDING));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        tourRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void save_storesGeohashOnlyForEnrichedTours() {
+        assertThat(stephansplatz.getFromGeohash()).hasSize(Geohash.MAX_PRECISION).startsWith("u2edk");
+        assertThat(tourRepository.findAll()).filteredOn(t -> t.getName().equals("Pending"))
+                .singleElement().satisfies(t -> assertThat(t.getFromGeohash()).isNull());
+    }
+
+    @Test
+    void findNear_answersFromDatabaseBeforeRebuildAndFromMemoryAfterwards() {
+        assertThat(service.isReady()).isFalse();
+        assertThat(service.findNear(48.2082, 16.3738, 5, 10)).containsExactly(stephansplatz.getId(), prater.getId());
+        assertThat(service.findWithin(48, 14, 48.5, 16.5, 10)).containsExactly(stephansplatz.getId(), prater.getId(), linz.getId());
+
+        service.rebuild();
+
+        assertThat(service.isReady()).isTrue();
+        assertThat(service.findNear(48.2082, 16.3738, 5, 10)).containsExactly(stephansplatz.getId(), prater.getId());
+        assertThat(service.findNear(48.2082, 16.3738, 200, 1)).containsExactly(stephansplatz.getId());
+        assertThat(service.findWithin(48, 14, 48.5, 16.5, 10)).containsExactly(stephansplatz.getId(), prater.getId(), linz.getId());
+    }
+
+    @Test
+    void rebuild_backfillsMissingGeohashes() {
+        transactionTemplate.executeWithoutResult(status -> tourRepository.updateFromGeohash(linz.getId(), null));
+
+        service.rebuild();
+
+        assertThat(service.findNear(48.3069, 14.2858, 1, 10)).containsExactly(linz.getId());
+        assertThat(tourRepository.findById(linz.getId()).orElseThrow().getFromGeohash()).startsWith(Geohash.encode(48.3069, 14.2858, 6));
+        assertThat(tourRepository.findLocationsByGeohashPrefixes(List.of(Geohash.encode(48.3069, 14.2858, 6)), 48, 49))
+                .singleElement().satisfies(location -> assertThat(location.id()).isEqualTo(linz.getId()));
+    }
+
+    @Test
+    void indexTour_keepsIndexInSyncWithWrites() {
+        service.rebuild();
+        linz.setFromLat(47.0707);
+        linz.setFromLon(15.4395);
+        linz = tourRepository.save(linz);
+        service.indexTour(linz);
+        service.removeTour(prater.getId());
+
+        assertThat(service.findNear(48.3069, 14.2858, 5, 10)).isEmpty();
+        assertThat(service.findNear(47.07, 15.44, 5, 10)).containsExactly(linz.getId());
+        assertThat(service.findNear(48.2082, 16.3738, 5, 10)).containsExactly(stephansplatz.getId());
+    }
+
+    @Test
+    void rebuild_keepsWritesCommittedWhileLoading() {
+        TourRepository loading = mock(TourRepository.class, AdditionalAnswers.delegatesTo(tourRepository));
+        SpatialIndexService rebuilding = new SpatialIndexService(loading, transactionTemplate, 5);
+        rebuilding.rebuild();
+        // die erste Seite ist gelesen, dann wird Linz verschoben und Prater geloescht
+        doAnswer(invocation -> {
+            List<?> page = tourRepository.findLocationsAfter(0L, EnrichmentStatus.DONE, invocation.getArgument(2));
+            linz.setFromLat(47.0707);
+            linz.setFromLon(15.4395);
+            linz = tourRepository.save(linz);
+            rebuilding.indexTour(linz);
+            tourRepository.deleteById(prater.getId());
+            rebuilding.removeTour(prater.getId());
+            return page;
+        }).when(loading).findLocationsAfter(eq(0L), eq(EnrichmentStatus.DONE), any(Pageable.class));
+
+        rebuilding.rebuild();
+
+        assertThat(rebuilding.findNear(48.3069, 14.2858, 5, 10)).isEmpty();
+        assertThat(rebuilding.findNear(47.07, 15.44, 5, 10)).containsExactly(linz.getId());
+        assertThat(rebuilding.findNear(48.2082, 16.3738, 5, 10)).containsExactly(stephansplatz.getId());
+    }
+
+    private static TourEntity tour(String name, double lat, double lon, EnrichmentStatus status) {
+        return TourEntity.builder()
+                .name(name)
+                .fromLocation(name)
+                .toLocation("Ziel")
+                .transportType("bike")
+                .estimatedTime(Duration.ofHours(1))
+                .fromLat(lat)
+                .fromLon(lon)
+                .enrichmentStatus(status)
+                .build();
+    }
+}
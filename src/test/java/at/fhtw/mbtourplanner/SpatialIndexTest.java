@@ -0,0 +1,153 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.Geohash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpatialIndexTest {
+    private static final Logger log = LoggerFactory.getLogger(SpatialIndexTest.class);
+
+    @Test
+    void geohash_matchesReferenceEncoding() {
+        assertThat(Geohash.encode(57.64911, 10.40744, 11)).isEqualTo("u4pruydqqvj");
+        assertThat(Geohash.encode(48.2082, 16.3738, 5)).isEqualTo("u2edk");
+        assertThat(Geohash.encode(48.2082, 16.3738, 12)).startsWith("u2edk");
+    }
+
+    @Test
+    void geohash_coveringStaysWithinCellLimitAndCoversCorners() {
+        List<String> prefixes = Geohash.covering(48.1, 16.2, 48.3, 16.5, 16);
+
+        assertThat(prefixes).hasSizeLessThanOrEqualTo(16).doesNotHaveDuplicates();
+        int precision = prefixes.get(0).length();
+        for (double[] corner : new double[][]{{48.1, 16.2}, {48.3, 16.5}, {48.1, 16.5}, {48.3, 16.2}, {48.2, 16.35}}) {
+            assertThat(prefixes).contains(Geohash.encode(corner[0], corner[1], precision));
+        }
+        // ueber die Datumsgrenze
+        List<String> wrapped = Geohash.covering(-1, 179.5, 1, -179.5, 16);
+        int wrappedPrecision = wrapped.get(0).length();
+        assertThat(wrapped).contains(Geohash.encode(0, 179.9, wrappedPrecision), Geohash.encode(0, -179.9, wrappedPrecision));
+    }
+
+    @Test
+    void nearest_sortedByDistanceAndLimitedToRadius() {
+        SpatialIndex index = new SpatialIndex(5);
+        index.put(1, 48.2082, 16.3738);   // Stephansplatz
+        index.put(2, 48.1855, 16.3773);   // Hauptbahnhof, ~2,5 km
+        index.put(3, 48.3069, 14.2858);   // Linz, ~155 km
+        index.put(4, 48.2170, 16.3950);   // Prater, ~1,8 km
+
+        assertThat(index.nearest(48.2082, 16.3738, 5, 10)).containsExactly(1, 4, 2);
+        assertThat(index.nearest(48.2082, 16.3738, 5, 2)).containsExactly(1, 4);
+        assertThat(index.nearest(48.2082, 16.3738, 200, 10)).containsExactly(1, 4, 2, 3);
+    }
+
+    @Test
+    void put_movesAndRemoveDropsEntries() {
+        SpatialIndex index = new SpatialIndex(5);
+        index.put(7, 48.2082, 16.3738);
+        index.put(7, 47.0707, 15.4395);
+
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(index.nearest(48.2082, 16.3738, 10, 10)).isEmpty();
+        assertThat(index.nearest(47.07, 15.44, 10, 10)).containsExactly(7);
+
+        index.remove(7);
+        index.remove(8);
+        assertThat(index.size()).isZero();
+        assertThat(index.within(-90, -180, 90, 180, 10)).isEmpty();
+    }
+
+    @Test
+    void put_acceptsSparseAndLargeIdsAndReusesSlots() {
+        SpatialIndex index = new SpatialIndex(5);
+        index.put(5_000_000_000L, 48.2082, 16.3738);
+        index.put(Long.MAX_VALUE, 48.2170, 16.3950);
+        index.put(1, 48.3069, 14.2858);
+
+        assertThat(index.nearest(48.2082, 16.3738, 5, 10)).containsExactly(5_000_000_000L, Long.MAX_VALUE);
+        assertThat(index.within(48, 14, 48.5, 16.5, 10)).containsExactly(1, 5_000_000_000L, Long.MAX_VALUE);
+
+        index.remove(5_000_000_000L);
+        index.put(9_000_000_000L, 47.0707, 15.4395);
+        assertThat(index.size()).isEqualTo(3);
+        assertThat(index.nearest(48.2082, 16.3738, 5, 10)).containsExactly(Long.MAX_VALUE);
+        assertThat(index.nearest(47.07, 15.44, 5, 10)).containsExactly(9_000_000_000L);
+    }
+
+    @Test
+    void within_handlesDateLineAndPoles() {
+        SpatialIndex index = new SpatialIndex(4);
+        index.put(1, -17.7, 179.9);
+        index.put(2, -17.8, -179.9);
+        index.put(3, -17.7, 0);
+        index.put(4, 89.9, 45);
+
+        assertThat(index.within(-18, 179, -17, -179, 10)).containsExactly(1, 2);
+        assertThat(index.nearest(-17.75, 180, 50, 10)).containsExactlyInAnyOrder(1, 2);
+        // am Pol umfasst der Umkreis alle Laengen
+        assertThat(index.nearest(89.95, -135, 20, 10)).containsExactly(4);
+    }
+
+    @Test
+    void nearest_findsToursInLargeIndex() {
+        Measurement result = measure(100_000);
+
+        assertThat(result.size()).isEqualTo(100_000);
+        assertThat(result.hits()).isPositive();
+    }
+
+    // ./gradlew test --tests '*SpatialIndexTest' -Dtours.spatial.large-test=true (Property an die Test-JVM weiterreichen)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.spatial.large-test", matches = "true")
+    void nearest_millionToursAnswerInMilliseconds() {
+        Measurement result = measure(1_000_000);
+        log.info("Spatial index: {} tours loaded in {} ms, nearest p50 {} ms, p99 {} ms ({} hits)",
+                result.size(), result.loadMillis(), result.p50(), result.p99(), result.hits());
+
+        assertThat(result.size()).isEqualTo(1_000_000);
+        assertThat(result.hits()).isPositive();
+        assertThat(result.p50()).isLessThan(50);
+    }
+
+    private static Measurement measure(int tours) {
+        SpatialIndex index = new SpatialIndex(5);
+        Random random = new Random(42);
+        long loadStart = System.nanoTime();
+        for (int id = 1; id <= tours; id++) {
+            // halb Europa, halb dicht um Wien
+            if (id % 2 == 0) {
+                index.put(id, 36 + random.nextDouble() * 24, -10 + random.nextDouble() * 40);
+            } else {
+                index.put(id, 48.0 + random.nextDouble() * 0.4, 16.1 + random.nextDouble() * 0.5);
+            }
+        }
+        long loadMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - loadStart);
+
+        int queries = 200;
+        long[] nanos = new long[queries];
+        int hits = 0;
+        for (int i = 0; i < queries; i++) {
+            boolean vienna = i % 2 == 0;
+            double lat = vienna ? 48.2 : 40 + random.nextDouble() * 16;
+            double lon = vienna ? 16.37 : random.nextDouble() * 20;
+            long start = System.nanoTime();
+            hits += index.nearest(lat, lon, vienna ? 2 : 25, 50).length;
+            nanos[i] = System.nanoTime() - start;
+        }
+        Arrays.sort(nanos);
+        return new Measurement(index.size(), loadMillis, nanos[queries / 2] / 1e6, nanos[queries * 99 / 100] / 1e6, hits);
+    }
+
+    private record Measurement(int size, long loadMillis, double p50, double p99, int hits) {
+    }
+}
@@ -1,8 +1,11 @@
 package at.fhtw.mbtourplanner.controller;
 
+import at.fhtw.mbtourplanner.model.CsvImportReport;
+import at.fhtw.mbtourplanner.model.CursorPage;
 import at.fhtw.mbtourplanner.model.Tour;
 import at.fhtw.mbtourplanner.repository.TourEntity;
-import at.fhtw.mbtourplanner.service.TourMapper;
+import at.fhtw.mbtourplanner.service.TourExportService;
+import at.fhtw.mbtourplanner.service.TourImportService;
 import at.fhtw.mbtourplanner.service.TourService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -15,7 +18,11 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.sql.SQLException;
 import java.time.Duration;
@@ -24,8 +31,13 @@ import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -35,7 +47,10 @@ class TourControllerTest {
     private TourService tourService;
 
     @Mock
-    private TourMapper tourMapper;
+    private TourImportService tourImportService;
+
+    @Mock
+    private TourExportService tourExportService;
 
     @InjectMocks
     private TourController controller;
@@ -72,13 +87,47 @@ class TourControllerTest {
     }
 
     @Test
-    void getAll_ReturnsList() throws SQLException {
+    void getAll_WithoutCursorOrSize_ReturnsAllTours() throws SQLException {
         given(tourService.getAllTours()).willReturn(List.of(sampleDto));
 
-        List<Tour> result = controller.getAll();
+        ResponseEntity<List<Tour>> result = controller.getAll("id", "asc", null, null);
 
-        assertThat(result).containsExactly(sampleDto);
-        verify(tourService).getAllTours();
+        assertThat(result.getBody()).containsExactly(sampleDto);
+        assertThat(result.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+        verify(tourService, never()).getTourPage(anyString(), anyBoolean(), any(), anyInt());
+    }
+
+    @Test
+    void getAll_WithCursorOnly_UsesDefaultPageSize() throws SQLException {
+        given(tourService.getTourPage("id", false, "c", 50))
+                .willReturn(new CursorPage<>(List.of(sampleDto), null));
+
+        controller.getAll("id", "asc", "c", null);
+
+        verify(tourService).getTourPage("id", false, "c", 50);
+    }
+
+    @Test
+    void getAll_ReturnsPageAndNextCursorHeader() throws SQLException {
+        given(tourService.getTourPage("distance", true, null, 50))
+                .willReturn(new CursorPage<>(List.of(sampleDto), "next"));
+
+        ResponseEntity<List<Tour>> result = controller.getAll("distance", "desc", null, 50);
+
+        assertThat(result.getBody()).containsExactly(sampleDto);
+        assertThat(result.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("next");
+    }
+
+    @Test
+    void getAll_ClampsPageSizeAndOmitsHeaderOnLastPage() throws SQLException {
+        given(tourService.getTourPage("id", false, "c", 200))
+                .willReturn(new CursorPage<>(List.of(sampleDto), null));
+
+        ResponseEntity<List<Tour>> result = controller.getAll("id", "asc", "c", 10_000);
+
+        assertThat(result.getBody()).containsExactly(sampleDto);
+        assertThat(result.getHeaders().containsKey("X-Next-Cursor")).isFalse();
+        verify(tourService).getTourPage("id", false, "c", 200);
     }
 
     @Test
@@ -121,12 +170,40 @@ class TourControllerTest {
 
     @Test
     void searchTours_ReturnsMatches() {
-        given(tourService.searchTours("q")).willReturn(List.of(sampleDto));
+        given(tourService.searchTours("q", 0, 20)).willReturn(List.of(sampleDto));
+
+        List<Tour> result = controller.searchTours("q", 0, 20);
+
+        assertThat(result).containsExactly(sampleDto);
+        verify(tourService).searchTours("q", 0, 20);
+    }
+
+    @Test
+    void searchTours_CapsPageSize() {
+        given(tourService.searchTours("q", 0, 100)).willReturn(List.of(sampleDto));
 
-        List<Tour> result = controller.searchTours("q");
+        controller.searchTours("q", -3, 10_000);
+
+        verify(tourService).searchTours("q", 0, 100);
+    }
+
+    @Test
+    void findToursNear_ClampsSizeAndDelegates() {
+        given(tourService.findNear(48.2, 16.37, 5.0, 200)).willReturn(List.of(sampleDto));
+
+        List<Tour> result = controller.findToursNear(48.2, 16.37, 5.0, 10_000);
+
+        assertThat(result).containsExactly(sampleDto);
+        verify(tourService).findNear(48.2, 16.37, 5.0, 200);
+    }
+
+    @Test
+    void findToursWithin_Delegates() {
+        given(tourService.findWithin(48.0, 16.0, 48.5, 16.5, 50)).willReturn(List.of(sampleDto));
+
+        List<Tour> result = controller.findToursWithin(48.0, 16.0, 48.5, 16.5, 50);
 
         assertThat(result).containsExactly(sampleDto);
-        verify(tourService).searchTours("q");
     }
 
     @Test
@@ -152,11 +229,16 @@ class TourControllerTest {
     }
 
     @Test
-    void exportAllToursCSV_ReturnsCsvBytes() throws SQLException {
-        given(tourService.getAllTours()).willReturn(List.of(sampleDto));
+    void exportAllToursCSV_StreamsCsvFromExportService() throws Exception {
+        given(tourExportService.writeToursCsv(any(OutputStream.class))).willAnswer(inv -> {
+            inv.<OutputStream>getArgument(0).write("Sample,Desc,A,B,walk,1.5,PT30M,url,2,3.0\n".getBytes(StandardCharsets.UTF_8));
+            return 1;
+        });
 
-        ResponseEntity<byte[]> resp = controller.exportAllToursCSV();
-        String csv = new String(resp.getBody(), StandardCharsets.UTF_8);
+        ResponseEntity<StreamingResponseBody> resp = controller.exportAllToursCSV();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resp.getBody().writeTo(out);
+        String csv = out.toString(StandardCharsets.UTF_8);
 
         assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
         assertThat(resp.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION))
@@ -166,19 +248,23 @@ class TourControllerTest {
     }
 
     @Test
-    void importAllToursCSV_ReturnsImportedCount() throws Exception {
-        String csv = "id,name, description, fromLocation, toLocation, transportType, distance, estimatedTime, routeImageURL, popularity, childFriendliness\n"
-                + " ,Sample,Desc,A,B,walk,1.5,PT0H30M,url,2,3.0\n";
+    void importAllToursCSV_DelegatesToStreamingImporterWithClampedChunkSize() throws Exception {
         MockMultipartFile file = new MockMultipartFile(
-                "file", "tours.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8)
+                "file", "tours.csv", "text/csv", "name\n".getBytes(StandardCharsets.UTF_8)
         );
-        given(tourMapper.toDto(any(TourEntity.class))).willReturn(sampleDto);
-        doNothing().when(tourService).addTour(sampleDto);
+        CsvImportReport report = new CsvImportReport(1, 1, 0, 1, 5, 200.0, List.of());
+        given(tourImportService.importCsv(any(InputStream.class), eq(true), eq(10_000))).willReturn(report);
 
-        ResponseEntity<Map<String, Integer>> resp = controller.importAllToursCSV(file);
+        CsvImportReport resp = controller.importAllToursCSV(file, true, 1_000_000);
 
-        assertThat(resp.getStatusCode()).isEqualTo(HttpStatus.OK);
-        assertThat(resp.getBody().get("imported")).isEqualTo(1);
-        assertThat(resp.getBody().get("status")).isEqualTo(HttpStatus.OK.value());
+        assertThat(resp).isSameAs(report);
+    }
+
+    @Test
+    void importToursCSVStream_UsesConfiguredChunkSizeByDefault() throws Exception {
+        CsvImportReport report = new CsvImportReport(0, 0, 0, 0, 0, 0.0, List.of());
+        given(tourImportService.importCsv(any(InputStream.class), eq(false), eq(1000))).willReturn(report);
+
+        assertThat(controller.importToursCSVStream(InputStream.nullInputStream(), false, null)).isSameAs(report);
     }
-}
\ No newline at end of file
+}
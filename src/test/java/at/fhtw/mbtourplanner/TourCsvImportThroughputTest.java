@@ -0,0 +1,93 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.CsvImportReport;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Import gegen eine echte (H2-)Datenbank; jeder Chunk wird wirklich committed
+@DataJpaTest(showSql = false)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TourCsvImportThroughputTest {
+    private static final Logger log = LoggerFactory.getLogger(TourCsvImportThroughputTest.class);
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    @AfterEach
+    void cleanUp() {
+        tourRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void importCsv_trustedFileIsCommittedChunkByChunk() throws IOException {
+        CsvImportReport report = importGeneratedFile(10_000, 1_000);
+
+        assertThat(report.total()).isEqualTo(10_000);
+        assertThat(report.imported()).isEqualTo(10_000 - 10);
+        assertThat(report.chunks()).isEqualTo(10);
+        assertThat(report.chunkErrors()).hasSize(10)
+                .allSatisfy(chunk -> assertThat(chunk.errors()).singleElement()
+                        .satisfies(row -> assertThat(row.row()).isEqualTo(chunk.firstRow() + 999)));
+        assertThat(report.rowsPerSecond()).isPositive();
+        assertThat(tourRepository.count()).isEqualTo(10_000 - 10);
+    }
+
+    // ./gradlew test --tests '*TourCsvImportThroughputTest' -Dtours.import.large-test=true (Property an die Test-JVM weiterreichen)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.import.large-test", matches = "true")
+    void importCsv_oneMillionRows() throws IOException {
+        CsvImportReport report = importGeneratedFile(1_000_000, 5_000);
+
+        assertThat(report.total()).isEqualTo(1_000_000);
+        assertThat(tourRepository.count()).isEqualTo(report.imported());
+        log.info("Imported {} rows in {} ms ({} rows/s)", report.imported(), report.durationMillis(), Math.round(report.rowsPerSecond()));
+    }
+
+    private CsvImportReport importGeneratedFile(int rows, int chunkSize) throws IOException {
+        Path file = tempDir.resolve("tours.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            writer.write("name,description,fromLocation,toLocation,transportType,distance,estimatedTime,fromLat,fromLon,toLat,toLon\n");
+            for (int i = 0; i < rows; i++) {
+                // jede 1000. Zeile ohne Namen, damit Fehler pro Chunk gemeldet werden
+                String name = i % 1000 == 999 ? "" : "Tour " + i;
+                writer.write(name + ",\"Generated, row " + i + "\",Wien,Graz,bike," + (i % 300) + ".5,PT" + (1 + i % 5) + "H,48.2,16.37,47.07,15.44\n");
+            }
+        }
+
+        TourImportService service = new TourImportService(tourRepository, mock(TourService.class), new TourMapper(),
+                new SearchIndexService(tourRepository, null, "database"), Validation.buildDefaultValidatorFactory().getValidator(),
+                new TransactionTemplate(transactionManager), new ObjectMapper(), 100, 4, new WorkerThreads(false),
+                new SpatialIndexService(tourRepository, new TransactionTemplate(transactionManager), 5));
+        try (InputStream in = Files.newInputStream(file)) {
+            return service.importCsv(in, true, chunkSize);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.opencsv.CSVReader;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import(TourExportService.class)
+class TourExportServiceTest {
+
+    @Autowired
+    private TourRepository tourRepository;
+
+    @Autowired
+    private TourExportService tourExportService;
+
+    @Test
+    void writeToursCsv_streamsAllToursInIdOrderAndEscapesValues() throws Exception {
+        TourEntity first = tourRepository.save(tour("Plain", "short"));
+        TourEntity second = tourRepository.save(tour("Quoted, \"Tour\"", "line one\nline two"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        int rows = tourExportService.writeToursCsv(out);
+
+        assertThat(rows).isEqualTo(2);
+        List<String[]> parsed;
+        try (CSVReader reader = new CSVReader(new StringReader(out.toString(StandardCharsets.UTF_8)))) {
+            parsed = reader.readAll();
+        }
+        assertThat(parsed).hasSize(3);
+        assertThat(parsed.get(0)).containsExactly(TourExportService.CSV_HEADER);
+        assertThat(parsed.get(1)[0]).isEqualTo(String.valueOf(first.getId()));
+        assertThat(parsed.get(2)[0]).isEqualTo(String.valueOf(second.getId()));
+        assertThat(parsed.get(2)[1]).isEqualTo("Quoted, \"Tour\"");
+        assertThat(parsed.get(2)[2]).isEqualTo("line one\nline two");
+        assertThat(parsed.get(2)[7]).isEqualTo("PT1H30M");
+    }
+
+    @Test
+    void writeToursCsv_writesOnlyHeaderForEmptyTable() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertThat(tourExportService.writeToursCsv(out)).isZero();
+        assertThat(out.toString(StandardCharsets.UTF_8).lines()).hasSize(1);
+    }
+
+    private static TourEntity tour(String name, String description) {
+        return TourEntity.builder()
+                .name(name)
+                .description(description)
+                .fromLocation("Wien")
+                .toLocation("Graz")
+                .transportType("bike")
+                .distance(12.5)
+                .estimatedTime(Duration.ofMinutes(90))
+                .build();
+    }
+}
@@ -0,0 +1,52 @@
+package at.fhtw.mbtourplanner.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentMatchers;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class TourIdSequenceMigrationTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @InjectMocks
+    private TourIdSequenceMigration migration;
+
+    @Test
+    void migrate_raisesIncrementAndMovesSequencePastExistingIds() {
+        given(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).willReturn("PostgreSQL");
+        given(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("tours_id_seq"))).willReturn(List.of(1L));
+        given(jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM tours", Long.class)).willReturn(1234L);
+
+        migration.migrate();
+
+        verify(jdbcTemplate).execute("ALTER SEQUENCE tours_id_seq INCREMENT BY 50");
+        verify(jdbcTemplate).queryForObject(
+                "SELECT setval('tours_id_seq', GREATEST((SELECT last_value FROM tours_id_seq), ?))", Long.class, 1234L);
+    }
+
+    @Test
+    void migrate_leavesMigratedSequenceAndOtherDatabasesAlone() {
+        given(jdbcTemplate.execute(ArgumentMatchers.<ConnectionCallback<String>>any())).willReturn("PostgreSQL", "H2");
+        given(jdbcTemplate.queryForList(anyString(), eq(Long.class), eq("tours_id_seq"))).willReturn(List.of(50L));
+
+        migration.migrate();
+        migration.migrate();
+
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+}
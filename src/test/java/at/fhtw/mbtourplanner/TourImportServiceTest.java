@@ -0,0 +1,233 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.CsvImportReport;
+import at.fhtw.mbtourplanner.model.ImportReport;
+import at.fhtw.mbtourplanner.model.ImportRowResult;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TourImportServiceTest {
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private TourService tourService;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    @Mock
+    private SpatialIndexService spatialIndexService;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Captor
+    private ArgumentCaptor<List<TourEntity>> saved;
+
+    private TourImportService service;
+    private final AtomicLong ids = new AtomicLong();
+
+    @BeforeEach
+    void setUp() {
+        service = new TourImportService(tourRepository, tourService, new TourMapper(), searchIndexService,
+                Validation.buildDefaultValidatorFactory().getValidator(), new TransactionTemplate(transactionManager),
+                new ObjectMapper().findAndRegisterModules(), 2, 2, new WorkerThreads(false), spatialIndexService);
+        given(tourRepository.saveAll(anyList())).willAnswer(inv -> {
+            List<TourEntity> entities = inv.getArgument(0);
+            entities.forEach(e -> e.setId(ids.incrementAndGet()));
+            return entities;
+        });
+    }
+
+    @Test
+    void importJson_savesInBatchesAndReportsEveryRow() throws Exception {
+        ImportReport report = service.importJson(json(tour("A", "Wien"), tour("B", "Graz"), tour("C", "Linz")));
+
+        assertThat(report.total()).isEqualTo(3);
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.rows()).extracting(ImportRowResult::row).containsExactly(0, 1, 2);
+        assertThat(report.rows()).extracting(ImportRowResult::id).containsExactly(1L, 2L, 3L);
+        verify(tourRepository, times(2)).saveAll(anyList());
+        verify(tourService, times(3)).enrich(any(TourEntity.class), eq(GeocodePriority.BULK));
+    }
+
+    @Test
+    void importJson_reportsInvalidAndUnroutableRowsWithoutStoppingTheImport() throws Exception {
+        willThrow(new RuntimeException("No route coordinates found in route info"))
+                .given(tourService).enrich(argThat(e -> "Nowhere".equals(e.getFromLocation())), any());
+
+        ImportReport report = service.importJson(json(
+                tour("A", "Wien"),
+                "{\"name\":\"\",\"description\":\"d\",\"fromLocation\":\"x\",\"toLocation\":\"y\",\"transportType\":\"bike\"}",
+                tour("C", "Nowhere")));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.rows().get(1).error()).isEqualTo("Name is missing");
+        assertThat(report.rows().get(2).error()).contains("No route");
+        assertThat(report.rows().get(2).name()).isEqualTo("C");
+    }
+
+    @Test
+    void importJson_doesNotTakeOverIdsOrStatisticsFromTheInput() throws Exception {
+        String exported = "{\"id\":99,\"name\":\"A\",\"description\":\"d\",\"fromLocation\":\"Wien\",\"toLocation\":\"Graz\","
+                + "\"transportType\":\"bike\",\"popularity\":7,\"childFriendliness\":12.0}";
+
+        service.importJson(json(exported));
+
+        verify(tourRepository).saveAll(saved.capture());
+        TourEntity entity = saved.getValue().get(0);
+        assertThat(entity.getId()).isEqualTo(1L);
+        assertThat(entity.getPopularity()).isZero();
+        assertThat(entity.getChildFriendliness()).isZero();
+    }
+
+    @Test
+    void importJson_marksWholeChunkFailedWhenTheBatchInsertFails() throws Exception {
+        given(tourRepository.saveAll(anyList())).willThrow(new IllegalStateException("duplicate key"));
+
+        ImportReport report = service.importJson(json(tour("A", "Wien"), tour("B", "Graz")));
+
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.rows()).extracting(ImportRowResult::error).containsOnly("duplicate key");
+    }
+
+    @Test
+    void importJson_keepsRowsReadBeforeMalformedInput() throws Exception {
+        String body = "[" + tour("A", "Wien") + ", {\"name\": ";
+
+        ImportReport report = service.importJson(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(report.imported()).isEqualTo(1);
+        assertThat(report.rows().get(1).error()).startsWith("Malformed JSON");
+    }
+
+    @Test
+    void importJson_rejectsNonArrayBody() {
+        assertThatThrownBy(() -> service.importJson(new ByteArrayInputStream("{}".getBytes(StandardCharsets.UTF_8))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void importCsv_commitsPerChunkAndReportsOnlyFailedRows() throws Exception {
+        String csv = "name,description,fromLocation,toLocation,transportType\n"
+                + "A,d,Wien,Graz,bike\n"
+                + ",d,Wien,Graz,bike\n"
+                + "C,d,Wien,Graz,bike\n"
+                + "\n"
+                + "D,d,Wien,Graz,bike\n";
+
+        CsvImportReport report = service.importCsv(csv(csv), false, 2);
+
+        assertThat(report.total()).isEqualTo(4);
+        assertThat(report.imported()).isEqualTo(3);
+        assertThat(report.chunks()).isEqualTo(2);
+        assertThat(report.rowsPerSecond()).isPositive();
+        assertThat(report.chunkErrors()).singleElement().satisfies(chunk -> {
+            assertThat(chunk.chunk()).isZero();
+            assertThat(chunk.errors()).extracting(ImportRowResult::row).containsExactly(1);
+            assertThat(chunk.errors().get(0).error()).isEqualTo("Name is missing");
+        });
+        verify(tourService, times(3)).enrich(any(TourEntity.class), eq(GeocodePriority.BULK));
+        verify(tourRepository, times(2)).saveAll(anyList());
+    }
+
+    @Test
+    void importCsv_trustedRowsKeepSuppliedValuesAndSkipEnrichment() throws Exception {
+        String csv = "name,description,fromLocation,toLocation,transportType,distance,estimatedTime,fromLat,fromLon,toLat,toLon\n"
+                + "A,d,Wien,Graz,bike,190.5,PT2H30M,48.2,16.37,47.07,15.44\n"
+                + "B,d,Wien,Graz,bike,,,,,,\n";
+
+        CsvImportReport report = service.importCsv(csv(csv), true, 10);
+
+        verify(tourService, never()).enrich(any(), any());
+        verify(tourRepository).saveAll(saved.capture());
+        TourEntity entity = saved.getValue().get(0);
+        assertThat(entity.getDistance()).isEqualTo(190.5);
+        assertThat(entity.getEstimatedTime()).isEqualTo(Duration.ofMinutes(150));
+        assertThat(entity.getFromLat()).isEqualTo(48.2);
+        assertThat(entity.getToLon()).isEqualTo(15.44);
+        assertThat(report.chunkErrors().get(0).errors().get(0).error()).contains("required");
+    }
+
+    @Test
+    void importCsv_trustedRowsWithoutCoordinatesAreRejected() throws Exception {
+        String csv = "name,description,fromLocation,toLocation,transportType,distance,estimatedTime,fromLat,fromLon,toLat,toLon\n"
+                + "A,d,Wien,Graz,bike,190.5,PT2H30M,48.2,16.37,,\n"
+                + "B,d,Wien,Graz,bike,190.5,PT2H30M,48.2,16.37,47.07,15.44\n";
+
+        CsvImportReport report = service.importCsv(csv(csv), true, 10);
+
+        verify(tourRepository).saveAll(saved.capture());
+        assertThat(saved.getValue()).extracting(TourEntity::getName).containsExactly("B");
+        assertThat(report.chunkErrors().get(0).errors()).singleElement()
+                .satisfies(row -> assertThat(row.error()).contains("toLat"));
+    }
+
+    @Test
+    void importCsv_reportsUnparseableValuesPerRow() throws Exception {
+        String csv = "name,description,fromLocation,toLocation,transportType,distance,estimatedTime\n"
+                + "A,d,Wien,Graz,bike,far,PT1H\n"
+                + "B,d,Wien,Graz,bike,1.0,soon\n";
+
+        CsvImportReport report = service.importCsv(csv(csv), true, 10);
+
+        assertThat(report.failed()).isEqualTo(2);
+        assertThat(report.chunkErrors().get(0).errors()).extracting(ImportRowResult::name).containsExactly("A", "B");
+    }
+
+    @Test
+    void importCsv_rejectsHeaderWithoutRequiredColumns() {
+        assertThatThrownBy(() -> service.importCsv(csv("name,description\nA,d\n"), false, 10))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("fromlocation");
+    }
+
+    private static ByteArrayInputStream csv(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String tour(String name, String from) {
+        return "{\"name\":\"" + name + "\",\"description\":\"d\",\"fromLocation\":\"" + from + "\",\"toLocation\":\"Wien\","
+                + "\"transportType\":\"bike\",\"estimatedTime\":\"PT1H\"}";
+    }
+
+    private static ByteArrayInputStream json(String... tours) {
+        return new ByteArrayInputStream(("[" + String.join(",", tours) + "]").getBytes(StandardCharsets.UTF_8));
+    }
+}
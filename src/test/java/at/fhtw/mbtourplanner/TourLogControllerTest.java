@@ -1,5 +1,6 @@
 package at.fhtw.mbtourplanner.controller;
 
+import at.fhtw.mbtourplanner.model.CursorPage;
 import at.fhtw.mbtourplanner.model.TourLog;
 import at.fhtw.mbtourplanner.service.TourLogService;
 import org.junit.jupiter.api.BeforeEach;
@@ -8,6 +9,7 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
 
 import java.sql.SQLException;
 import java.time.Duration;
@@ -16,8 +18,11 @@ import java.util.List;
 import java.util.Map;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,12 +51,23 @@ class TourLogControllerTest {
 
     @Test
     void getAll_ReturnsLogs() throws SQLException {
+        given(tourLogService.getLogPage(10L, null, 50)).willReturn(new CursorPage<>(List.of(sampleLog), "next"));
+
+        ResponseEntity<List<TourLog>> result = controller.getAll(10L, null, 50);
+
+        assertThat(result.getBody()).containsExactly(sampleLog);
+        assertThat(result.getHeaders().getFirst("X-Next-Cursor")).isEqualTo("next");
+        verify(tourLogService).getLogPage(10L, null, 50);
+    }
+
+    @Test
+    void getAll_WithoutCursorOrSize_ReturnsAllLogs() throws SQLException {
         given(tourLogService.getLogsForTour(10L)).willReturn(List.of(sampleLog));
 
-        List<TourLog> result = controller.getAll(10L);
+        ResponseEntity<List<TourLog>> result = controller.getAll(10L, null, null);
 
-        assertThat(result).containsExactly(sampleLog);
-        verify(tourLogService).getLogsForTour(10L);
+        assertThat(result.getBody()).containsExactly(sampleLog);
+        verify(tourLogService, never()).getLogPage(any(), any(), anyInt());
     }
 
     @Test
@@ -1,10 +1,13 @@
 package at.fhtw.mbtourplanner.repository;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.context.TestPropertySource;
 
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -13,6 +16,7 @@ import java.util.List;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @DataJpaTest
+@TestPropertySource(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 class TourLogRepositoryTest {
 
     @Autowired
@@ -21,6 +25,9 @@ class TourLogRepositoryTest {
     @Autowired
     private TourRepository tourRepository;
 
+    @Autowired
+    private TestEntityManager entityManager;
+
     private TourEntity createValidTour(String name) {
         return tourRepository.save(
                 TourEntity.builder()
@@ -112,4 +119,73 @@ class TourLogRepositoryTest {
                 .extracting(TourLogEntity::getComment)
                 .isEqualTo("FindMe");
     }
-}
\ No newline at end of file
+
+    @Test
+    void findTourLogSummaries_aggregatesPerTourIncludingToursWithoutLogs() {
+        TourEntity logged = createValidTour("Summary Tour");
+        TourEntity empty = createValidTour("Empty Tour");
+        TourLogEntity first = createValidLog("First", logged);
+        first.setTotalDistance(4.0);
+        first.setTotalTime(Duration.ofMinutes(20));
+        first.setRating(3);
+        tourLogRepository.save(first);
+        tourLogRepository.save(createValidLog("Second", logged));
+        entityManager.flush();
+        entityManager.clear();
+
+        List<TourLogSummary> summaries = tourLogRepository.findTourLogSummaries();
+
+        TourLogSummary loggedSummary = summaries.stream().filter(s -> s.tourId().equals(logged.getId())).findFirst().orElseThrow();
+        assertThat(loggedSummary.tourName()).isEqualTo("Summary Tour");
+        assertThat(loggedSummary.logCount()).isEqualTo(2);
+        assertThat(loggedSummary.averageDistance()).isEqualTo(4.5);
+        assertThat(loggedSummary.averageTimeSeconds()).isEqualTo(1500.0);
+        assertThat(loggedSummary.averageRating()).isEqualTo(4.0);
+
+        TourLogSummary emptySummary = summaries.stream().filter(s -> s.tourId().equals(empty.getId())).findFirst().orElseThrow();
+        assertThat(emptySummary.logCount()).isZero();
+        assertThat(emptySummary.averageDistance()).isNull();
+    }
+
+    @Test
+    void findTourLogSummaries_queryCountStaysConstantAsToursGrow() {
+        Statistics statistics = entityManager.getEntityManager().getEntityManagerFactory()
+                .unwrap(SessionFactory.class).getStatistics();
+
+        long withFewTours = countStatements(statistics, 3);
+        long withManyTours = countStatements(statistics, 60);
+
+        assertThat(withFewTours).isEqualTo(1);
+        assertThat(withManyTours).isEqualTo(withFewTours);
+    }
+
+    private long countStatements(Statistics statistics, int additionalTours) {
+        for (int i = 0; i < additionalTours; i++) {
+            TourEntity tour = createValidTour("Stats Tour " + i);
+            tourLogRepository.save(createValidLog("a", tour));
+            tourLogRepository.save(createValidLog("b", tour));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics.clear();
+        tourLogRepository.findTourLogSummaries();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void findTotalsByTourId_sumsAllLogsOfTour() {
+        TourEntity tour = createValidTour("Totals Tour");
+        tourLogRepository.save(createValidLog("a", tour));
+        tourLogRepository.save(createValidLog("b", tour));
+        entityManager.flush();
+
+        TourLogTotals totals = tourLogRepository.findTotalsByTourId(tour.getId()).orElseThrow();
+
+        assertThat(totals.logCount()).isEqualTo(2);
+        assertThat(totals.difficultySum()).isEqualTo(4);
+        assertThat(totals.timeSecondsSum()).isEqualTo(3600);
+        assertThat(totals.distanceSum()).isEqualTo(10.0);
+        assertThat(tourLogRepository.findTotalsByTourId(createValidTour("No Logs").getId())).isEmpty();
+    }
+}
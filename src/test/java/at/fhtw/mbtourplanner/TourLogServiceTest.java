@@ -0,0 +1,206 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.TourLog;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourLogEntity;
+import at.fhtw.mbtourplanner.repository.TourLogRepository;
+import at.fhtw.mbtourplanner.repository.TourLogTotals;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Pageable;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class TourLogServiceTest {
+
+    @Mock
+    private TourLogRepository tourLogRepository;
+
+    @Mock
+    private TourRepository tourRepository;
+
+    @Mock
+    private SearchIndexService searchIndexService;
+
+    private TourLogService service;
+    private TourEntity tour;
+
+    @BeforeEach
+    void setUp() {
+        service = new TourLogService(tourLogRepository, tourRepository, new TourLogMapper(), searchIndexService);
+        // eine bestehende Log: difficulty 2, 1h, 4 km
+        tour = TourEntity.builder()
+                .id(1L)
+                .popularity(1)
+                .difficultySum(2)
+                .timeSecondsSum(3600)
+                .distanceSum(4.0)
+                .build();
+        given(tourRepository.findByIdForUpdate(1L)).willReturn(Optional.of(tour));
+        given(tourLogRepository.save(any(TourLogEntity.class))).willAnswer(inv -> inv.getArgument(0));
+    }
+
+    @Test
+    void addLog_updatesRunningTotalsWithoutLoadingAllLogs() throws SQLException {
+        service.addLog(1L, log(4, Duration.ofHours(3), 8.0));
+
+        assertThat(tour.getPopularity()).isEqualTo(2);
+        assertThat(tour.getDifficultySum()).isEqualTo(6);
+        assertThat(tour.getTimeSecondsSum()).isEqualTo(4 * 3600);
+        assertThat(tour.getDistanceSum()).isEqualTo(12.0);
+        // avg difficulty 3 -> 3, avg 2h -> 8, avg 6 km -> 4
+        assertThat(tour.getChildFriendliness()).isCloseTo(15.0, within(1e-9));
+        verify(tourLogRepository, never()).findAllByTour(any());
+        verify(tourRepository).save(tour);
+    }
+
+    @Test
+    void addLog_buildsMissingRunningSumsFromLogsBeforeApplyingDelta() throws SQLException {
+        // Tour aus der Zeit vor den Summenspalten: popularity zaehlt die Logs, die Summen stehen auf 0
+        tour.setDifficultySum(0);
+        tour.setTimeSecondsSum(0);
+        tour.setDistanceSum(0);
+        given(tourLogRepository.findTotalsByTourId(1L)).willReturn(Optional.of(new TourLogTotals(1L, 1L, 2L, 3600L, 4.0)));
+
+        service.addLog(1L, log(4, Duration.ofHours(3), 8.0));
+
+        assertThat(tour.getPopularity()).isEqualTo(2);
+        assertThat(tour.getDifficultySum()).isEqualTo(6);
+        assertThat(tour.getTimeSecondsSum()).isEqualTo(4 * 3600);
+        assertThat(tour.getChildFriendliness()).isCloseTo(15.0, within(1e-9));
+    }
+
+    @Test
+    void addLog_invalidRatingIsRejectedBeforeSaving() {
+        TourLog invalid = log(3, Duration.ofHours(1), 1.0);
+        invalid.setRating(9);
+
+        assertThatThrownBy(() -> service.addLog(1L, invalid))
+                .isInstanceOf(SQLException.class)
+                .hasMessageContaining("Rating");
+        verify(tourLogRepository, never()).save(any());
+        assertThat(tour.getPopularity()).isEqualTo(1);
+    }
+
+    @Test
+    void updateLog_replacesOldContribution() throws SQLException {
+        TourLogEntity existing = entity(10L, 2, Duration.ofHours(1), 4.0);
+        given(tourLogRepository.findById(10L)).willReturn(Optional.of(existing));
+
+        service.updateLog(1L, 10L, log(5, Duration.ofHours(2), 10.0));
+
+        assertThat(tour.getPopularity()).isEqualTo(1);
+        assertThat(tour.getDifficultySum()).isEqualTo(5);
+        assertThat(tour.getTimeSecondsSum()).isEqualTo(7200);
+        assertThat(tour.getDistanceSum()).isEqualTo(10.0);
+        assertThat(tour.getChildFriendliness()).isCloseTo(1.0 + 8.0 + 0.0, within(1e-9));
+    }
+
+    @Test
+    void deleteLog_removesContributionAndResetsEmptyTour() throws SQLException {
+        TourLogEntity existing = entity(10L, 2, Duration.ofHours(1), 4.0);
+        given(tourLogRepository.findById(10L)).willReturn(Optional.of(existing));
+
+        service.deleteLog(1L, 10L);
+
+        assertThat(tour.getPopularity()).isZero();
+        assertThat(tour.getDifficultySum()).isZero();
+        assertThat(tour.getTimeSecondsSum()).isZero();
+        assertThat(tour.getDistanceSum()).isZero();
+        assertThat(tour.getChildFriendliness()).isZero();
+        verify(tourLogRepository).delete(existing);
+    }
+
+    @Test
+    void repairTourStatsBatch_recomputesDriftedToursFromScratch() {
+        TourEntity drifted = TourEntity.builder().id(2L).popularity(7).difficultySum(99).build();
+        TourEntity empty = TourEntity.builder().id(3L).popularity(2).difficultySum(4).build();
+        given(tourRepository.findBatchForUpdate(eq(0L), any(Pageable.class))).willReturn(List.of(tour, drifted, empty));
+        given(tourLogRepository.findTotalsByTourIds(List.of(1L, 2L, 3L))).willReturn(List.of(
+                new TourLogTotals(1L, 1L, 2L, 3600L, 4.0),
+                new TourLogTotals(2L, 2L, 6L, 7200L, 2.0)));
+
+        TourLogService.StatsRepair batch = service.repairTourStatsBatch(0L, 3);
+
+        assertThat(batch).isEqualTo(new TourLogService.StatsRepair(3L, 3, 2));
+        assertThat(drifted.getPopularity()).isEqualTo(2);
+        assertThat(drifted.getDifficultySum()).isEqualTo(6);
+        assertThat(drifted.getChildFriendliness()).isCloseTo(3.0 + 9.0 + 9.0, within(1e-9));
+        assertThat(empty.getPopularity()).isZero();
+        assertThat(empty.getChildFriendliness()).isZero();
+        verify(tourRepository).saveAll(List.of(drifted, empty));
+    }
+
+    @Test
+    void repairJob_walksAllToursInLockedBatches() {
+        TourLogService batches = mock(TourLogService.class);
+        given(batches.repairTourStatsBatch(0L, 2)).willReturn(new TourLogService.StatsRepair(5L, 2, 1));
+        given(batches.repairTourStatsBatch(5L, 2)).willReturn(new TourLogService.StatsRepair(9L, 2, 0));
+        given(batches.repairTourStatsBatch(9L, 2)).willReturn(new TourLogService.StatsRepair(9L, 0, 0));
+
+        int repaired = new TourStatsRepairJob(batches, 2).repairAll();
+
+        assertThat(repaired).isEqualTo(1);
+        verify(batches).repairTourStatsBatch(9L, 2);
+    }
+
+    @Test
+    void repairJob_backfillsAtStartupOnlyWhenSumsAreMissing() {
+        TourLogService batches = mock(TourLogService.class);
+        given(batches.repairTourStatsBatch(0L, 2)).willReturn(new TourLogService.StatsRepair(0L, 0, 0));
+        TourStatsRepairJob job = new TourStatsRepairJob(batches, 2);
+
+        job.run(null);
+        verify(batches, never()).repairTourStatsBatch(0L, 2);
+
+        given(batches.hasToursWithoutRunningSums()).willReturn(true);
+        job.run(null);
+        verify(batches).repairTourStatsBatch(0L, 2);
+    }
+
+    private TourLog log(int difficulty, Duration time, double distance) {
+        return TourLog.builder()
+                .logDateTime(LocalDateTime.of(2025, 1, 1, 10, 0))
+                .comment("c")
+                .difficulty(difficulty)
+                .totalTime(time)
+                .totalDistance(distance)
+                .rating(3)
+                .build();
+    }
+
+    private TourLogEntity entity(Long id, int difficulty, Duration time, double distance) {
+        return TourLogEntity.builder()
+                .id(id)
+                .tour(tour)
+                .logDateTime(LocalDateTime.of(2025, 1, 1, 10, 0))
+                .comment("c")
+                .difficulty(difficulty)
+                .totalTime(time)
+                .totalDistance(distance)
+                .rating(3)
+                .build();
+    }
+}
@@ -1,16 +1,19 @@
 package at.fhtw.mbtourplanner.repository;
 
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 
 import java.time.Duration;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
-@DataJpaTest
+// H2-Dialekt statt des konfigurierten PostgreSQL-Dialekts, dessen FOR NO KEY UPDATE H2 nicht kennt
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect")
 class TourRepositoryTest {
 
     @Autowired
@@ -53,6 +56,15 @@ class TourRepositoryTest {
                 .contains(tourA.getName(), tourB.getName());
     }
 
+    @Test
+    void findBatchForUpdate_locksToursPastIdInOrder() {
+        List<TourEntity> batch = tourRepository.findBatchForUpdate(tourA.getId() - 1, PageRequest.of(0, 1));
+
+        assertThat(batch).extracting(TourEntity::getId).containsExactly(tourA.getId());
+        assertThat(tourRepository.findBatchForUpdate(tourA.getId(), PageRequest.of(0, 10)))
+                .extracting(TourEntity::getId).containsExactly(tourB.getId());
+    }
+
     @Test
     void testDelete() {
         tourRepository.delete(tourA);
@@ -60,63 +72,95 @@ class TourRepositoryTest {
     }
 
     @Test
-    void searchTours_byName() {
-        List<TourEntity> found = tourRepository.searchTours("alpha");
-        assertThat(found).hasSize(1)
-                .first()
-                .extracting(TourEntity::getName)
-                .isEqualTo("Alpha Tour");
+    void findByRouteGeometryIsNull_pagesByIdAndSkipsEnrichedTours() {
+        TourEntity withGeometry = createValidTour("Gamma Tour", Duration.ofHours(1));
+        withGeometry.setRouteGeometry("_p~iF~ps|U_ulLnnqC");
+        tourRepository.save(withGeometry);
+        TourEntity pending = createValidTour("Delta Tour", Duration.ofHours(1));
+        pending.setEnrichmentStatus(EnrichmentStatus.PENDING);
+        tourRepository.save(pending);
+
+        List<TourEntity> first = tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(
+                EnrichmentStatus.DONE, 0L, PageRequest.of(0, 1));
+        List<TourEntity> rest = tourRepository.findByRouteGeometryIsNullAndEnrichmentStatusAndIdGreaterThanOrderByIdAsc(
+                EnrichmentStatus.DONE, first.get(0).getId(), PageRequest.of(0, 10));
+
+        assertThat(first).extracting(TourEntity::getName).containsExactly("Alpha Tour");
+        assertThat(rest).extracting(TourEntity::getName).containsExactly("Beta Tour");
     }
 
     @Test
-    void searchTours_byDescription() {
-        List<TourEntity> found = tourRepository.searchTours("beta");
-        assertThat(found).hasSize(1)
-                .first()
-                .extracting(TourEntity::getDescription)
-                .isEqualTo("Beta Tour description");
+    void updateRouteGeometry_fillsOnlyMissingOrEmptyGeometry() {
+        TourEntity withGeometry = createValidTour("Gamma Tour", Duration.ofHours(1));
+        withGeometry.setRouteGeometry("_p~iF~ps|U_ulLnnqC");
+        withGeometry = tourRepository.save(withGeometry);
+        TourEntity marked = createValidTour("Delta Tour", Duration.ofHours(1));
+        marked.setRouteGeometry("");
+        marked = tourRepository.save(marked);
+        tourRepository.flush();
+
+        assertThat(tourRepository.updateRouteGeometry(tourA.getId(), "abc")).isEqualTo(1);
+        assertThat(tourRepository.updateRouteGeometry(marked.getId(), "def")).isEqualTo(1);
+        assertThat(tourRepository.updateRouteGeometry(withGeometry.getId(), "xyz")).isZero();
     }
 
     @Test
-    void searchTours_byDistance() {
-        List<TourEntity> found = tourRepository.searchTours("10.0");
-        assertThat(found).hasSizeGreaterThanOrEqualTo(2);
+    void searchRanked_requiresAllTokensAndRanksNameMatchesFirst() {
+        TourEntity descriptionHit = createValidTour("Gamma Tour", Duration.ofHours(1));
+        descriptionHit.setDescription("a walk through old town vienna");
+        tourRepository.save(descriptionHit);
+        TourEntity nameHit = createValidTour("Vienna Old Town", Duration.ofHours(1));
+        tourRepository.save(nameHit);
+
+        List<TourEntity> found = tourRepository.searchRanked("Vienna, old", 0, 10);
+
+        assertThat(found).extracting(TourEntity::getName)
+                .containsExactly("Vienna Old Town", "Gamma Tour");
     }
 
     @Test
-    void searchTours_byEstimatedTime() {
-        List<TourEntity> found1 = tourRepository.searchTours("01:00:00");
-        assertThat(found1).hasSize(1)
-                .first()
-                .extracting(TourEntity::getEstimatedTime)
-                .isEqualTo(Duration.ofHours(1));
-
-        List<TourEntity> found2 = tourRepository.searchTours("02:00:00");
-        assertThat(found2).hasSize(1)
-                .first()
-                .extracting(TourEntity::getEstimatedTime)
-                .isEqualTo(Duration.ofHours(2));
+    void searchRanked_paginates() {
+        List<TourEntity> first = tourRepository.searchRanked("tour", 0, 1);
+        List<TourEntity> second = tourRepository.searchRanked("tour", 1, 1);
+
+        assertThat(first).extracting(TourEntity::getName).containsExactly("Alpha Tour");
+        assertThat(second).extracting(TourEntity::getName).containsExactly("Beta Tour");
+    }
+
+    @Test
+    void searchRanked_pageBeyondIntRangeReturnsNothing() {
+        assertThat(tourRepository.searchRanked("tour", Integer.MAX_VALUE / 10, 100)).isEmpty();
     }
 
     @Test
-    void searchTours_byPopularity() {
-        List<TourEntity> found = tourRepository.searchTours("5");
-        assertThat(found).hasSizeGreaterThanOrEqualTo(2)
-                .allMatch(t -> t.getPopularity() == 5);
+    void searchRanked_blankQueryReturnsNothing() {
+        assertThat(tourRepository.searchRanked("  ,; ", 0, 10)).isEmpty();
     }
 
     @Test
-    void searchTours_byChildFriendliness() {
-        List<TourEntity> found = tourRepository.searchTours("2.5");
-        assertThat(found).hasSizeGreaterThanOrEqualTo(2)
-                .allMatch(t -> t.getChildFriendliness() == 2.5);
+    void findPage_seeksPastTiesOnTheSortValueById() {
+        TourEntity gamma = createValidTour("Gamma Tour", Duration.ofHours(1));
+        gamma.setPopularity(9);
+        tourRepository.save(gamma);
+
+        // Alpha und Beta haben dieselbe popularity (5): Reihenfolge ueber id stabil
+        List<TourEntity> first = tourRepository.findPage(TourSort.POPULARITY, true, null, null, 2);
+        TourEntity last = first.get(1);
+        List<TourEntity> second = tourRepository.findPage(TourSort.POPULARITY, true, last.getPopularity(), last.getId(), 2);
+
+        assertThat(first).extracting(TourEntity::getName).containsExactly("Gamma Tour", "Beta Tour");
+        assertThat(second).extracting(TourEntity::getName).containsExactly("Alpha Tour");
     }
 
     @Test
-    void searchTours_byRouteImageUrl() {
-        List<TourEntity> found = tourRepository.searchTours("example.com/Alpha");
-        assertThat(found).hasSize(1)
-                .first()
-                .extracting(TourEntity::getRouteImageUrl);
+    void findPage_ascendingByDistanceAndById() {
+        tourA.setDistance(3.0);
+        tourRepository.save(tourA);
+
+        List<TourEntity> byDistance = tourRepository.findPage(TourSort.DISTANCE, false, 3.0, tourA.getId(), 10);
+        List<TourEntity> byId = tourRepository.findPage(TourSort.ID, false, null, tourA.getId(), 10);
+
+        assertThat(byDistance).extracting(TourEntity::getName).containsExactly("Beta Tour");
+        assertThat(byId).extracting(TourEntity::getName).containsExactly("Beta Tour");
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,26 @@
 package at.fhtw.mbtourplanner;
 
+import at.fhtw.mbtourplanner.service.EnrichmentStages;
+import at.fhtw.mbtourplanner.service.GeocodePriority;
 import at.fhtw.mbtourplanner.service.GeocodingService;
 import at.fhtw.mbtourplanner.service.OpenRouteService;
+import at.fhtw.mbtourplanner.service.PolyLineEncoder;
+import at.fhtw.mbtourplanner.service.RoutePath;
+import at.fhtw.mbtourplanner.service.SearchIndexService;
+import at.fhtw.mbtourplanner.service.SpatialIndexService;
+import at.fhtw.mbtourplanner.service.TourEnrichmentQueue;
 
 import java.util.Map;
 
 
+import at.fhtw.mbtourplanner.model.CursorPage;
+import at.fhtw.mbtourplanner.model.EnrichmentStatus;
 import at.fhtw.mbtourplanner.model.Tour;
 import at.fhtw.mbtourplanner.repository.TourEntity;
 import at.fhtw.mbtourplanner.repository.TourLogRepository;
 import at.fhtw.mbtourplanner.repository.TourRepository;
+import at.fhtw.mbtourplanner.repository.TourSort;
+import at.fhtw.mbtourplanner.service.PageCursor;
 import at.fhtw.mbtourplanner.service.TourMapper;
 import at.fhtw.mbtourplanner.service.TourService;
 import org.junit.jupiter.api.BeforeEach;
@@ -17,14 +28,20 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Mono;
 
 import java.sql.SQLException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
@@ -47,6 +64,16 @@ public class TourServiceTest {
     private GeocodingService geocodingService;
     @Mock
     private OpenRouteService openRouteService;
+    @Mock
+    private SearchIndexService searchIndexService;
+    @Mock
+    private TourEnrichmentQueue enrichmentQueue;
+    @Mock
+    private TransactionTemplate transactionTemplate;
+    @Mock
+    private SpatialIndexService spatialIndexService;
+    @Spy
+    private EnrichmentStages enrichmentStages = new EnrichmentStages(Duration.ofSeconds(1), Duration.ofSeconds(1));
 
     @InjectMocks
     private TourService tourService;
@@ -57,9 +84,15 @@ public class TourServiceTest {
     @BeforeEach
     void setUp() throws SQLException {
         // default geocoding and routing stubs
-        when(geocodingService.geocode(anyString())).thenReturn(new double[]{0.0, 0.0});
-        when(openRouteService.getRouteInfo(anyString(), anyList()))
-                .thenReturn(Map.of("distance", 0.0, "duration", 0.0));
+        when(geocodingService.geocodeAsync(anyString(), any())).thenReturn(Mono.just(new double[]{0.0, 0.0}));
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("distance", 0.0, "duration", 0.0)));
+        doAnswer(inv -> {
+            inv.<Consumer<Object>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+        when(enrichmentQueue.getMaxAttempts()).thenReturn(3);
+        when(enrichmentQueue.backoffFor(anyInt())).thenReturn(Duration.ofSeconds(30));
 
         sampleEntity = new TourEntity();
         sampleEntity.setId(1L);
@@ -99,27 +132,71 @@ public class TourServiceTest {
     void searchTours_shouldDelegateToRepository() throws SQLException {
         String q = "Sample";
 
-        when(tourRepository.searchTours(q)).thenReturn(List.of(sampleEntity));
+        when(tourRepository.searchRanked(q, 0, 20)).thenReturn(List.of(sampleEntity));
 
-        var result = tourService.searchTours(q);
+        var result = tourService.searchTours(q, 0, 20);
 
         assertThat(result)
                 .hasSize(1)
                 .first().isSameAs(sampleDto);
 
-        verify(tourRepository).searchTours(q);
+        verify(tourRepository).searchRanked(q, 0, 20);
+    }
+
+    @Test
+    void getTourPage_returnsCursorThatResumesAfterLastRow() {
+        TourEntity second = TourEntity.builder().id(2L).distance(7.5).build();
+        sampleEntity.setDistance(7.5);
+        when(tourRepository.findPage(TourSort.DISTANCE, false, null, null, 2))
+                .thenReturn(List.of(sampleEntity, second));
+        when(tourMapper.toDto(List.of(sampleEntity))).thenReturn(List.of(sampleDto));
+
+        CursorPage<Tour> first = tourService.getTourPage("distance", false, null, 1);
+
+        assertThat(first.items()).containsExactly(sampleDto);
+        assertThat(first.nextCursor()).isNotNull();
+
+        tourService.getTourPage("distance", false, first.nextCursor(), 1);
+        verify(tourRepository).findPage(TourSort.DISTANCE, false, 7.5, 1L, 2);
+    }
+
+    @Test
+    void getTourPage_rejectsCursorFromDifferentSort() {
+        String cursor = new PageCursor("popularity:desc", "3", 1L).encode();
+
+        assertThatThrownBy(() -> tourService.getTourPage("distance", false, cursor, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> tourService.getTourPage("name", false, null, 10))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void searchTours_shouldUseInMemoryIndexWhenEnabled() throws SQLException {
+        String q = "Sample";
+        TourEntity other = TourEntity.builder().id(2L).build();
+        Tour otherDto = Tour.builder().id(2L).build();
+
+        when(searchIndexService.isEnabled()).thenReturn(true);
+        when(searchIndexService.searchTourIds(q, 0, 20)).thenReturn(List.of(2L, 1L));
+        when(tourRepository.findAllById(List.of(2L, 1L))).thenReturn(List.of(sampleEntity, other));
+        when(tourMapper.toDto(List.of(other, sampleEntity))).thenReturn(List.of(otherDto, sampleDto));
+
+        var result = tourService.searchTours(q, 0, 20);
+
+        assertThat(result).containsExactly(otherDto, sampleDto);
+        verify(tourRepository, never()).searchRanked(anyString(), anyInt(), anyInt());
     }
 
     @Test
     void addTour_shouldSaveMappedEntity() throws SQLException {
-        when(geocodingService.geocode(anyString())).thenReturn(new double[]{0.0, 0.0});
+        when(geocodingService.geocodeAsync(anyString(), any())).thenReturn(Mono.just(new double[]{0.0, 0.0}));
 
         Map<String, Object> routeInfo = Map.of(
                 "staticMapUrl", "http://static.map",
                 "distance", 1000.0,
                 "duration", 3600.0
         );
-        when(openRouteService.getRouteInfo(anyString(), anyList())).thenReturn(routeInfo);
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList())).thenReturn(Mono.just(routeInfo));
 
         tourService.addTour(sampleDto);
 
@@ -127,6 +204,161 @@ public class TourServiceTest {
         verify(tourRepository).save(sampleEntity);
     }
 
+    @Test
+    void addTour_shouldStoreEncodedRouteGeometry() throws SQLException {
+        RoutePath route = RoutePath.of(48.2082, 16.3738, 48.1845, 16.3122);
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("distance", 1000.0, "duration", 3600.0, "route", route)));
+        when(openRouteService.buildStaticMapUrl(any(RoutePath.class), anyInt(), anyInt(), anyInt())).thenReturn("http://static.map");
+
+        tourService.addTour(sampleDto);
+
+        assertThat(sampleEntity.getRouteGeometry()).isEqualTo(PolyLineEncoder.encode(route));
+        verify(tourRepository).save(sampleEntity);
+    }
+
+    @Test
+    void addTour_shouldStoreSimplifiedRouteGeometry() throws SQLException {
+        RoutePath straight = RoutePath.of(48.2, 16.37, 48.201, 16.37, 48.202, 16.37, 48.203, 16.37);
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("distance", 334.0, "duration", 240.0, "route", straight,
+                        "geometry", PolyLineEncoder.encode(straight))));
+        when(openRouteService.buildStaticMapUrl(any(RoutePath.class), anyInt(), anyInt(), anyInt())).thenReturn("http://static.map");
+
+        tourService.addTour(sampleDto);
+
+        assertThat(sampleEntity.getRouteGeometry()).isEqualTo(PolyLineEncoder.encode(RoutePath.of(48.2, 16.37, 48.203, 16.37)));
+    }
+
+    @Test
+    void enrich_shouldGeocodeStartAndDestinationConcurrently() {
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        when(geocodingService.geocodeAsync(eq("Sample From"), eq(GeocodePriority.INTERACTIVE)))
+                .thenReturn(slowGeocode(new double[]{48.2, 16.37}, inFlight, peak));
+        when(geocodingService.geocodeAsync(eq("Sample To"), eq(GeocodePriority.INTERACTIVE)))
+                .thenReturn(slowGeocode(new double[]{48.1, 16.3}, inFlight, peak));
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList())).thenReturn(Mono.just(Map.of(
+                "staticMapUrl", "http://static.map", "distance", 1000.0, "duration", 600.0)));
+
+        tourService.enrich(sampleEntity);
+
+        // beide Anfragen waren gleichzeitig offen
+        assertThat(peak.get()).isEqualTo(2);
+        assertThat(sampleEntity.getFromLat()).isEqualTo(48.2);
+        assertThat(sampleEntity.getToLon()).isEqualTo(16.3);
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_FROM).count()).isEqualTo(1);
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_TO).p50Millis()).isGreaterThanOrEqualTo(250);
+        assertThat(enrichmentStages.stats(EnrichmentStages.ROUTE).count()).isEqualTo(1);
+        assertThat(enrichmentStages.stats(EnrichmentStages.TOTAL).count()).isEqualTo(1);
+    }
+
+    private static Mono<double[]> slowGeocode(double[] coords, AtomicInteger inFlight, AtomicInteger peak) {
+        return Mono.delay(Duration.ofMillis(300)).thenReturn(coords)
+                .doOnSubscribe(s -> peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max))
+                .doOnTerminate(inFlight::decrementAndGet);
+    }
+
+    @Test
+    void enrich_failingGeocodeShouldCancelSiblingAndSkipRouting() {
+        AtomicBoolean cancelled = new AtomicBoolean();
+        when(geocodingService.geocodeAsync(eq("Sample From"), eq(GeocodePriority.INTERACTIVE)))
+                .thenReturn(Mono.delay(Duration.ofMillis(50)).then(Mono.error(new RuntimeException("Nominatim down"))));
+        when(geocodingService.geocodeAsync(eq("Sample To"), eq(GeocodePriority.INTERACTIVE)))
+                .thenReturn(Mono.<double[]>never().doOnCancel(() -> cancelled.set(true)));
+
+        assertThatThrownBy(() -> tourService.enrich(sampleEntity)).hasMessage("Nominatim down");
+
+        assertThat(cancelled.get()).isTrue();
+        verify(openRouteService, never()).getRouteInfoAsync(anyString(), anyList());
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_FROM).failures()).isEqualTo(1);
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_TO).cancelled()).isEqualTo(1);
+    }
+
+    @Test
+    void enrich_stageTimeoutShouldFailEnrichment() {
+        when(geocodingService.geocodeAsync(eq("Sample To"), eq(GeocodePriority.INTERACTIVE))).thenReturn(Mono.never());
+
+        assertThatThrownBy(() -> tourService.enrich(sampleEntity))
+                .hasMessageContaining("geocode-to timed out");
+
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_TO).timeouts()).isEqualTo(1);
+        assertThat(enrichmentStages.stats(EnrichmentStages.GEOCODE_FROM).failures()).isZero();
+    }
+
+    @Test
+    void addTour_async_shouldSavePendingWithoutCallingExternalServices() throws SQLException {
+        when(enrichmentQueue.isAsync()).thenReturn(true);
+
+        tourService.addTour(sampleDto);
+
+        assertThat(sampleEntity.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.PENDING);
+        verify(tourRepository).save(sampleEntity);
+        verify(enrichmentQueue).submit(any(Runnable.class));
+        verifyNoInteractions(geocodingService, openRouteService);
+    }
+
+    @Test
+    void enrichPending_shouldApplyRouteToLockedRow() {
+        TourEntity pending = pendingCopy();
+        TourEntity locked = pendingCopy();
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(pending));
+        when(tourRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(locked));
+        when(geocodingService.geocodeAsync(eq("Sample From"), eq(GeocodePriority.INTERACTIVE))).thenReturn(Mono.just(new double[]{48.2, 16.37}));
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList())).thenReturn(Mono.just(Map.of(
+                "staticMapUrl", "http://static.map", "distance", 2500.0, "duration", 1800.0)));
+
+        tourService.enrichPending(1L);
+
+        assertThat(locked.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.DONE);
+        assertThat(locked.getFromLat()).isEqualTo(48.2);
+        assertThat(locked.getDistance()).isEqualTo(2.5);
+        assertThat(locked.getEstimatedTime()).isEqualTo(Duration.ofMinutes(30));
+        verify(tourRepository).save(locked);
+    }
+
+    @Test
+    void enrichPending_shouldRetryAndFinallyMarkFailed() {
+        TourEntity locked = pendingCopy();
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(pendingCopy()));
+        when(tourRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(locked));
+        when(geocodingService.geocodeAsync(anyString(), any())).thenReturn(Mono.error(new RuntimeException("Nominatim down")));
+
+        tourService.enrichPending(1L);
+
+        assertThat(locked.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.PENDING);
+        assertThat(locked.getEnrichmentAttempts()).isEqualTo(1);
+        verify(enrichmentQueue).submit(any(Runnable.class), eq(Duration.ofSeconds(30)));
+
+        locked.setEnrichmentAttempts(2);
+        tourService.enrichPending(1L);
+
+        assertThat(locked.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.FAILED);
+        assertThat(locked.getEnrichmentError()).isEqualTo("Nominatim down");
+        verify(enrichmentQueue, times(1)).submit(any(Runnable.class), any(Duration.class));
+    }
+
+    @Test
+    void resumePendingEnrichment_shouldResubmitPendingTours() {
+        when(enrichmentQueue.isAsync()).thenReturn(true);
+        when(tourRepository.findIdsByEnrichmentStatus(EnrichmentStatus.PENDING)).thenReturn(List.of(4L, 9L));
+
+        tourService.resumePendingEnrichment();
+
+        verify(enrichmentQueue, times(2)).submit(any(Runnable.class));
+    }
+
+    private TourEntity pendingCopy() {
+        return TourEntity.builder()
+                .id(1L)
+                .name("Sample Name")
+                .fromLocation("Sample From")
+                .toLocation("Sample To")
+                .transportType("Car")
+                .enrichmentStatus(EnrichmentStatus.PENDING)
+                .build();
+    }
+
     @Test
     void getTourById_existingId_shouldReturnMappedDto() throws SQLException {
         Long id = 1L;
@@ -173,16 +405,17 @@ public class TourServiceTest {
                 .childFriendliness(4)
                 .build();
 
-        when(geocodingService.geocode(anyString())).thenReturn(new double[]{0.0, 0.0});
+        when(geocodingService.geocodeAsync(anyString(), any())).thenReturn(Mono.just(new double[]{0.0, 0.0}));
 
         Map<String, Object> routeInfo = Map.of(
                 "staticMapUrl", "mockedUrl",
                 "distance", 1000.0,
                 "duration", 3600.0
         );
-        when(openRouteService.getRouteInfo(anyString(), anyList())).thenReturn(routeInfo);
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList())).thenReturn(Mono.just(routeInfo));
 
         when(tourRepository.findById(2L)).thenReturn(Optional.of(existingEntity));
+        when(tourRepository.findByIdForUpdate(2L)).thenReturn(Optional.of(existingEntity));
         when(tourRepository.save(existingEntity)).thenReturn(existingEntity);
         when(tourMapper.toDto(existingEntity)).thenReturn(updateDto);
 
@@ -197,6 +430,65 @@ public class TourServiceTest {
         verify(tourMapper).toDto(existingEntity);
     }
 
+    @Test
+    void updateTour_unchangedLocations_shouldSkipGeocodingAndRouting() throws SQLException {
+        Tour updateDto = Tour.builder()
+                .name("Renamed")
+                .description("Sample Description")
+                .fromLocation("Sample From")
+                .toLocation("Sample To")
+                .transportType("Car")
+                .build();
+        when(tourRepository.findById(1L)).thenReturn(Optional.of(sampleEntity));
+        when(tourRepository.findByIdForUpdate(1L)).thenReturn(Optional.of(sampleEntity));
+        when(tourRepository.save(sampleEntity)).thenReturn(sampleEntity);
+
+        tourService.updateTour(1L, updateDto);
+
+        assertThat(sampleEntity.getName()).isEqualTo("Renamed");
+        assertThat(sampleEntity.getDistance()).isEqualTo(1000);
+        assertThat(sampleEntity.getRouteImageUrl()).isEqualTo("Sample Route Image");
+        verifyNoInteractions(geocodingService, openRouteService);
+        verify(tourRepository).save(sampleEntity);
+    }
+
+    @Test
+    void updateTour_keepsLogStatsWrittenWhileEnriching() throws SQLException {
+        TourEntity snapshot = new TourEntity();
+        snapshot.setId(4L);
+        snapshot.setFromLocation("Old From");
+        snapshot.setToLocation("Old To");
+        // waehrend der Anreicherung von addLog unter Sperre aktualisiert
+        TourEntity locked = new TourEntity();
+        locked.setId(4L);
+        locked.setFromLocation("Old From");
+        locked.setToLocation("Old To");
+        locked.setPopularity(3);
+        locked.setChildFriendliness(2.5);
+        locked.setDifficultySum(9);
+        locked.setTimeSecondsSum(5400);
+        locked.setDistanceSum(12.0);
+        when(openRouteService.getRouteInfoAsync(anyString(), anyList()))
+                .thenReturn(Mono.just(Map.of("staticMapUrl", "mockedUrl", "distance", 3000.0, "duration", 1800.0)));
+        when(tourRepository.findById(4L)).thenReturn(Optional.of(snapshot));
+        when(tourRepository.findByIdForUpdate(4L)).thenReturn(Optional.of(locked));
+        when(tourRepository.save(locked)).thenReturn(locked);
+
+        tourService.updateTour(4L, Tour.builder().name("Renamed").fromLocation("New From").toLocation("New To").build());
+
+        verify(tourRepository).save(locked);
+        verify(tourRepository, never()).save(snapshot);
+        assertThat(locked.getName()).isEqualTo("Renamed");
+        assertThat(locked.getFromLocation()).isEqualTo("New From");
+        assertThat(locked.getDistance()).isEqualTo(3);
+        assertThat(locked.getEnrichmentStatus()).isEqualTo(EnrichmentStatus.DONE);
+        assertThat(locked.getPopularity()).isEqualTo(3);
+        assertThat(locked.getChildFriendliness()).isEqualTo(2.5);
+        assertThat(locked.getDifficultySum()).isEqualTo(9);
+        assertThat(locked.getTimeSecondsSum()).isEqualTo(5400);
+        assertThat(locked.getDistanceSum()).isEqualTo(12.0);
+    }
+
     @Test
     void updateTour_unknownId_shouldThrowException() throws SQLException {
         when(tourRepository.findById(99L)).thenReturn(Optional.empty());
@@ -0,0 +1,201 @@
+package at.fhtw.mbtourplanner.service;
+
+import at.fhtw.mbtourplanner.model.Tour;
+import at.fhtw.mbtourplanner.repository.GeocodeCacheRepository;
+import at.fhtw.mbtourplanner.repository.TourEntity;
+import at.fhtw.mbtourplanner.repository.TourRepository;
+import com.sun.net.httpserver.HttpServer;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+// Synchrone Anreicherung gegen einen langsamen Geocoder: wie viele Requests laufen gleichzeitig,
+// wenn Tomcat einen festen Plattform-Pool bzw. einen virtuellen Thread pro Request verwendet
+class VirtualThreadModeBenchmarkTest {
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadModeBenchmarkTest.class);
+
+    private static final int GEOCODER_DELAY_MS = 300;
+    private static final int TOMCAT_MAX_THREADS = 20;
+    private static final int REQUESTS = 200;
+
+    private HttpServer server;
+    private ExecutorService serverExecutor;
+    private AtomicInteger inFlight;
+    private AtomicInteger peak;
+    private TourService tourService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        byte[] route;
+        try (InputStream in = getClass().getResourceAsStream("/ors/foot-walking-vienna.json")) {
+            route = in.readAllBytes();
+        }
+        inFlight = new AtomicInteger();
+        peak = new AtomicInteger();
+        serverExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 1024);
+        server.setExecutor(serverExecutor);
+        server.createContext("/search", exchange -> {
+            peak.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(GEOCODER_DELAY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                inFlight.decrementAndGet();
+            }
+            respond(exchange, "[{\"lat\":\"48.2\",\"lon\":\"16.37\"}]".getBytes(StandardCharsets.UTF_8));
+        });
+        server.createContext("/foot-walking/geojson", exchange -> respond(exchange, route));
+        server.start();
+        String baseUrl = "http://localhost:" + server.getAddress().getPort();
+
+        GeocodeCacheRepository geocodeCacheRepository = mock(GeocodeCacheRepository.class);
+        when(geocodeCacheRepository.findById(anyString())).thenReturn(Optional.empty());
+        TourRepository tourRepository = mock(TourRepository.class);
+        AtomicLong ids = new AtomicLong();
+        when(tourRepository.save(any(TourEntity.class))).thenAnswer(inv -> {
+            TourEntity entity = inv.getArgument(0);
+            entity.setId(ids.incrementAndGet());
+            return entity;
+        });
+        // synchroner Modus: die Anreicherung belegt den Request-Thread
+        tourService = new TourService(tourRepository, new TourMapper(),
+                new GeocodingService(new GeocodingCache(geocodeCacheRepository, 10_000, Duration.ofDays(30), Duration.ofDays(1)),
+                new NominatimScheduler(0, 1, Duration.ofSeconds(10), new WorkerThreads(false)), baseUrl),
+                new OpenRouteService(WebClient.builder(), new RouteCache(1 << 24), baseUrl, "key"),
+                mock(SearchIndexService.class), mock(TourEnrichmentQueue.class), mock(TransactionTemplate.class),
+                new EnrichmentStages(Duration.ofSeconds(10), Duration.ofSeconds(10)), mock(SpatialIndexService.class));
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+    }
+
+    @Test
+    void virtualThreadsServeFarMoreConcurrentSlowEnrichmentsThanPlatformPool() throws Exception {
+        // wie Tomcat: fester Pool im Plattform-Modus, ein Thread pro Request im virtuellen Modus
+        WorkerThreads platformThreads = new WorkerThreads(false);
+        WorkerThreads virtualThreads = new WorkerThreads(true);
+        run(platformThreads.newExecutor("warmup-", TOMCAT_MAX_THREADS), "warmup", 40);
+
+        Result platform = run(platformThreads.newExecutor("http-nio-", TOMCAT_MAX_THREADS), "platform", REQUESTS);
+        Result virtual = run(Executors.newThreadPerTaskExecutor(virtualThreads.factory("http-vt-")), "virtual", REQUESTS);
+
+        // Start und Ziel werden pro Request parallel geocodiert
+        assertThat(platform.peak()).isLessThanOrEqualTo(2 * TOMCAT_MAX_THREADS);
+        assertThat(virtual.peak()).as("virtual peak").isGreaterThan(4 * TOMCAT_MAX_THREADS);
+    }
+
+    // ./gradlew test --tests '*VirtualThreadModeBenchmarkTest' -Dtours.threads.large-test=true (Property an die Test-JVM weiterreichen)
+    @Test
+    @EnabledIfSystemProperty(named = "tours.threads.large-test", matches = "true")
+    void virtualThreadsFinishSlowEnrichmentsFasterThanPlatformPool() throws Exception {
+        WorkerThreads platformThreads = new WorkerThreads(false);
+        WorkerThreads virtualThreads = new WorkerThreads(true);
+        run(platformThreads.newExecutor("warmup-", TOMCAT_MAX_THREADS), "warmup", 40);
+
+        Result platform = run(platformThreads.newExecutor("http-nio-", TOMCAT_MAX_THREADS), "platform", REQUESTS);
+        Result virtual = run(Executors.newThreadPerTaskExecutor(virtualThreads.factory("http-vt-")), "virtual", REQUESTS);
+
+        log.info("platform: peak={} {} s, virtual: peak={} {} s", platform.peak(), platform.seconds(), virtual.peak(), virtual.seconds());
+        // Plattform: REQUESTS / TOMCAT_MAX_THREADS Runden a 2 x GEOCODER_DELAY_MS; virtuell begrenzt nur die CPU
+        assertThat(virtual.seconds()).isLessThan(platform.seconds());
+    }
+
+    @Test
+    void enrichmentOnVirtualThreadsDoesNotPinInProjectCode() throws Exception {
+        List<String> pinned = new CopyOnWriteArrayList<>();
+        try (RecordingStream recording = new RecordingStream()) {
+            recording.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO).withStackTrace();
+            recording.onEvent("jdk.VirtualThreadPinned", event -> {
+                if (event.getStackTrace() == null) {
+                    return;
+                }
+                for (RecordedFrame frame : event.getStackTrace().getFrames()) {
+                    if (frame.getMethod().getType().getName().startsWith("at.fhtw.mbtourplanner")) {
+                        pinned.add(frame.getMethod().getType().getName() + "." + frame.getMethod().getName());
+                        return;
+                    }
+                }
+            });
+            recording.startAsync();
+
+            run(Executors.newThreadPerTaskExecutor(new WorkerThreads(true).factory("http-vt-")), "pinning", 50);
+            // stop() liefert auch die noch gepufferten Events aus
+            recording.stop();
+        }
+
+        assertThat(pinned).isEmpty();
+    }
+
+    private Result run(ExecutorService executor, String prefix, int requests) throws Exception {
+        peak.set(0);
+        long start = System.nanoTime();
+        try (executor) {
+            List<Future<?>> futures = new ArrayList<>(requests);
+            for (int i = 0; i < requests; i++) {
+                Tour tour = tour(prefix, i);
+                futures.add(executor.submit(() -> {
+                    tourService.addTour(tour);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        }
+        return new Result(peak.get(), (System.nanoTime() - start) / 1e9);
+    }
+
+    private static Tour tour(String prefix, int i) {
+        return Tour.builder()
+                .name(prefix + " " + i)
+                .description("Benchmark")
+                .fromLocation(prefix + " Start " + i)
+                .toLocation(prefix + " Ziel " + i)
+                .transportType("walk")
+                .build();
+    }
+
+    private static void respond(com.sun.net.httpserver.HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private record Result(int peak, double seconds) {
+    }
+}